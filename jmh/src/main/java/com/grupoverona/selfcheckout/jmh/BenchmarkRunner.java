@@ -0,0 +1,27 @@
+package com.grupoverona.selfcheckout.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ponto de entrada do benchmarks.jar: aceita as mesmas opções do JMH
+ * (ex.: "MessageProcessorBenchmark.processUdpMessage -p corpus=long")
+ * e ativa sempre o profiler de GC, que reporta bytes alocados por operação
+ * (gc.alloc.rate.norm).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
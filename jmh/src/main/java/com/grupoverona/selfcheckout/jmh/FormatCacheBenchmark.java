@@ -0,0 +1,166 @@
+package com.grupoverona.selfcheckout.jmh;
+
+import com.grupoverona.selfcheckout.benchmark.PdvTrafficGenerator;
+import com.grupoverona.selfcheckout.benchmark.PdvTrafficGenerator.CaptureRecord;
+import com.grupoverona.selfcheckout.network.FormattedMessageCache;
+import com.grupoverona.selfcheckout.util.FilterChain;
+import com.grupoverona.selfcheckout.util.MessageProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ganho do cache de mensagens formatadas ({@link FormattedMessageCache}) sobre
+ * tráfego repetido, no mesmo caminho da fila do PDV: bytes do datagrama →
+ * conteúdo processado → mensagem com o cabeçalho do remetente.
+ *
+ * O tráfego é uma captura real (parâmetro capture, arquivo gravado pelo
+ * PdvTrafficGenerator em modo captura) reproduzida em ordem, ou, sem captura,
+ * o corpus RESEND. O carimbo "#seq;nanos^" do gerador é removido para que as
+ * repetições sejam reconhecidas. O setup confere a saída com cache contra a
+ * saída sem cache e imprime a taxa de acerto de uma única passada pelo
+ * tráfego; as medições repetem o tráfego em rodízio, então com memória
+ * suficiente medem o custo de um acerto, e com pouca, o efeito das remoções.
+ *
+ * Ex.: "FormatCacheBenchmark -p capture=/tmp/turno.tsv"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatCacheBenchmark {
+
+    private static final String SENDER_IP = "192.168.0.101";
+    private static final int SENDER_PORT = 38800;
+    private static final int LOCAL_PORT = 9001;
+
+    /**
+     * Arquivo de captura ("ms\tpayload" por linha); vazio usa o corpus RESEND
+     */
+    @Param({""})
+    public String capture;
+
+    /**
+     * Memória do cache, em bytes
+     */
+    @Param({"65536", "2097152"})
+    public long cacheBytes;
+
+    @Param({"1024"})
+    public int maxEntryBytes;
+
+    private String[] messages;
+    private ByteBuffer[] datagrams;
+    private int next;
+
+    private FormattedMessageCache cache;
+    private FormattedMessageCache.Key probe;
+    private FilterChain chain;
+
+    @Setup
+    public void setup() throws IOException {
+        messages = capture.isEmpty() ? ReceiptCorpus.RESEND.messages() : loadMessages(Path.of(capture));
+        datagrams = new ByteBuffer[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            datagrams[i] = ByteBuffer.wrap(messages[i].getBytes(StandardCharsets.UTF_8));
+            // A fila do PDV entrega a mensagem sem espaços nas pontas
+            messages[i] = messages[i].trim();
+        }
+
+        chain = MessageProcessor.chainFor(SENDER_IP, LOCAL_PORT);
+        cache = new FormattedMessageCache(cacheBytes, maxEntryBytes);
+        probe = cache.newProbe();
+
+        // Duas passadas: a segunda confere as mensagens servidas pelo cache.
+        // A taxa de acerto da primeira é a do tráfego reproduzido uma única vez.
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < messages.length; i++) {
+                if (!uncached(i).equals(cached(i))) {
+                    throw new IllegalStateException("Saída do cache diferente para: " + messages[i]);
+                }
+            }
+            if (pass == 0) {
+                System.out.println();
+                System.out.printf("%d mensagens, acerto em uma passada=%.1f%%%n",
+                        messages.length, cache.stats().hitRatio() * 100);
+            }
+        }
+        cache.clear();
+    }
+
+    @TearDown
+    public void report() {
+        System.out.println();
+        System.out.println(cache.stats() + String.format(" acerto=%.1f%%", cache.stats().hitRatio() * 100));
+    }
+
+    private static String[] loadMessages(Path file) throws IOException {
+        List<CaptureRecord> records = PdvTrafficGenerator.loadCapture(file);
+        String[] messages = new String[records.size()];
+        for (int i = 0; i < messages.length; i++) {
+            String payload = records.get(i).payload();
+            if (payload.startsWith("#")) {
+                payload = payload.substring(payload.indexOf('^') + 1);
+            }
+            messages[i] = payload;
+        }
+        return messages;
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == messages.length ? 0 : index + 1;
+        return index;
+    }
+
+    private String uncached(int index) {
+        return MessageProcessor.processUdpMessage(SENDER_IP, SENDER_PORT, LOCAL_PORT, messages[index]);
+    }
+
+    private String cached(int index) {
+        ByteBuffer datagram = datagrams[index];
+        probe.set(datagram, 0, datagram.limit(), chain);
+
+        String content = cache.get(probe);
+        if (content == null) {
+            content = MessageProcessor.processContent(chain, messages[index]);
+            cache.put(probe, content);
+        }
+        return MessageProcessor.formatUdpMessage(SENDER_IP, SENDER_PORT, content);
+    }
+
+    /**
+     * Cada datagrama passa pela cadeia de filtros (comportamento sem cache)
+     */
+    @Benchmark
+    public String uncached() {
+        return uncached(nextIndex());
+    }
+
+    /**
+     * Hash dos bytes e consulta ao cache; só as mensagens inéditas passam pela cadeia
+     */
+    @Benchmark
+    public String cached() {
+        return cached(nextIndex());
+    }
+}
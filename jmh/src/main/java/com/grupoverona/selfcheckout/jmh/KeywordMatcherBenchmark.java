@@ -0,0 +1,114 @@
+package com.grupoverona.selfcheckout.jmh;
+
+import com.grupoverona.selfcheckout.util.KeywordMatcher;
+import com.grupoverona.selfcheckout.util.MessageProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Destaque de palavras-chave nas mensagens formatadas, com o dicionário padrão:
+ * - highlight: autômato único do {@link KeywordMatcher}
+ * - regexAlternation: um Pattern com todas as palavras em alternância
+ * - regexPerKeyword: um Pattern por palavra-chave, como seria com createRegexFilter
+ *
+ * As variantes com regex apenas contam as ocorrências (sem montar os trechos),
+ * então o resultado favorece a linha de base.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatcherBenchmark {
+
+    // Amostra do dicionário padrão usada pelas variantes com regex
+    private static final String[] KEYWORDS = {
+            "CANCELAMENTO", "CANCELAMENTO DE ITEM", "CANCELADO", "ESTORNO", "DEVOLUCAO", "SUPERVISOR",
+            "SENHA SUPERVISOR", "LIBERACAO SUPERVISOR", "GERENTE", "AUTORIZACAO", "DESCONTO", "ACRESCIMO",
+            "PRECO ALTERADO", "SANGRIA", "SUPRIMENTO", "GAVETA ABERTA", "ERRO", "FALHA", "RECUSADO",
+            "TIMEOUT", "ITEM NAO ENCONTRADO", "PRODUTO NAO CADASTRADO", "DIVERGENCIA DE PESO", "ALERTA"
+    };
+
+    @Param({"SHORT", "LONG", "BURST", "RESEND"})
+    public ReceiptCorpus corpus;
+
+    private String[] messages;
+    private int next;
+
+    private KeywordMatcher matcher;
+    private Pattern alternation;
+    private Pattern[] perKeyword;
+
+    @Setup
+    public void setup() {
+        String[] raw = corpus.messages();
+        messages = new String[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            messages[i] = MessageProcessor.processUdpMessage("192.168.0.101:38800", raw[i]);
+        }
+
+        matcher = MessageProcessor.getKeywordMatcher();
+        if (matcher.keywordCount() == 0) {
+            throw new IllegalStateException("Dicionário de destaques não carregado");
+        }
+
+        List<String> quoted = new ArrayList<>();
+        perKeyword = new Pattern[KEYWORDS.length];
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            quoted.add(Pattern.quote(KEYWORDS[i]));
+            perKeyword[i] = Pattern.compile("\\b" + Pattern.quote(KEYWORDS[i]) + "\\b", Pattern.CASE_INSENSITIVE);
+        }
+        alternation = Pattern.compile("\\b(?:" + String.join("|", quoted) + ")\\b", Pattern.CASE_INSENSITIVE);
+    }
+
+    private String nextMessage() {
+        String message = messages[next];
+        next = next + 1 == messages.length ? 0 : next + 1;
+        return message;
+    }
+
+    @Benchmark
+    public Object highlight() {
+        return matcher.highlight(nextMessage());
+    }
+
+    @Benchmark
+    public int regexAlternation() {
+        Matcher m = alternation.matcher(nextMessage());
+        int count = 0;
+        while (m.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int regexPerKeyword() {
+        String message = nextMessage();
+        int count = 0;
+        for (Pattern pattern : perKeyword) {
+            Matcher m = pattern.matcher(message);
+            while (m.find()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
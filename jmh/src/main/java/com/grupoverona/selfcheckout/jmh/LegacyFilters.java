@@ -0,0 +1,58 @@
+package com.grupoverona.selfcheckout.jmh;
+
+import com.grupoverona.selfcheckout.util.MessageProcessor.MessageFilter;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cópia fiel da cadeia original de três filtros do MessageProcessor, anterior
+ * ao filtro de passada única. Serve de linha de base de desempenho e de
+ * referência de saída: o benchmark confere que o filtro atual produz
+ * exatamente o mesmo texto para todo o corpus.
+ */
+final class LegacyFilters {
+
+    // Filtro para remover caracteres de controle (exceto nova linha)
+    static final MessageFilter CONTROL_CHARS = message -> message.replaceAll("[\\p{Cntrl}&&[^\r\n]]", "");
+
+    // Filtro para substituir o caractere ^ por quebra de linha
+    static final MessageFilter CARET = message -> message.replace("^", "\n");
+
+    // Filtro para alinhar mensagens com valores monetários (compila o Pattern a cada mensagem)
+    static final MessageFilter PRICE_ALIGN = message -> {
+        Pattern pattern = Pattern.compile("(\\d+,\\d{2}) ?= ?(\\d+,\\d{2})");
+        Matcher matcher = pattern.matcher(message);
+        StringBuffer sb = new StringBuffer();
+
+        while (matcher.find()) {
+            String replacement = String.format("%-10s = %10s", matcher.group(1), matcher.group(2));
+            matcher.appendReplacement(sb, replacement);
+        }
+
+        matcher.appendTail(sb);
+        return sb.toString();
+    };
+
+    static final List<MessageFilter> CHAIN = List.of(CONTROL_CHARS, CARET, PRICE_ALIGN);
+
+    private LegacyFilters() {
+    }
+
+    static String processMessage(String message) {
+        for (MessageFilter filter : CHAIN) {
+            message = filter.process(message);
+        }
+        return message;
+    }
+
+    static String processUdpMessage(String senderInfo, String rawMessage) {
+        String processedContent = processMessage(rawMessage);
+        if (processedContent.contains("\n")) {
+            return "Recebido de " + senderInfo + ":\n" + processedContent;
+        } else {
+            return "Recebido de " + senderInfo + ": " + processedContent;
+        }
+    }
+}
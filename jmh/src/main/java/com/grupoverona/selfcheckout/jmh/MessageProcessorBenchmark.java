@@ -0,0 +1,136 @@
+package com.grupoverona.selfcheckout.jmh;
+
+import com.grupoverona.selfcheckout.util.MessageProcessor;
+import com.grupoverona.selfcheckout.util.MessageProcessor.MessageFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linha de base do caminho de formatação das mensagens dos PDVs:
+ * - Cada filtro da cadeia original isolado e a cadeia original completa (legacy*)
+ * - O filtro padrão atual, processMessage e processUdpMessage (o que a UI recebe)
+ * - Um filtro criado por createRegexFilter
+ *
+ * Cada operação processa a próxima mensagem do corpus, em rodízio. No setup,
+ * a saída atual é comparada com a da cadeia original para todo o corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageProcessorBenchmark {
+
+    private static final String SENDER_INFO = "192.168.0.101:38800";
+
+    @Param({"SHORT", "LONG", "BURST"})
+    public ReceiptCorpus corpus;
+
+    private String[] messages;
+    private int next;
+
+    // Entradas de cada filtro original como ele as recebe na cadeia (saída do filtro anterior)
+    private String[][] legacyInputs;
+
+    private MessageFilter defaultFilter;
+    private MessageFilter regexFilter;
+
+    @Setup
+    public void setup() {
+        messages = corpus.messages();
+
+        legacyInputs = new String[LegacyFilters.CHAIN.size()][messages.length];
+        for (int m = 0; m < messages.length; m++) {
+            String message = messages[m];
+            for (int f = 0; f < LegacyFilters.CHAIN.size(); f++) {
+                legacyInputs[f][m] = message;
+                message = LegacyFilters.CHAIN.get(f).process(message);
+            }
+        }
+
+        defaultFilter = MessageProcessor.getFilters().get(0);
+        regexFilter = MessageProcessor.createRegexFilter("(\\d+,\\d{2}) ?= ?(\\d+,\\d{2})", "%-10s = %10s", 1, 2);
+
+        for (String message : messages) {
+            String expected = LegacyFilters.processUdpMessage(SENDER_INFO, message);
+            if (!expected.equals(MessageProcessor.processUdpMessage(SENDER_INFO, message))) {
+                throw new IllegalStateException("Saída diferente da cadeia original para: " + message);
+            }
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == messages.length ? 0 : index + 1;
+        return index;
+    }
+
+    private String applyLegacyFilter(int filter) {
+        return LegacyFilters.CHAIN.get(filter).process(legacyInputs[filter][nextIndex()]);
+    }
+
+    /**
+     * Remoção de caracteres de controle (1º filtro original)
+     */
+    @Benchmark
+    public String legacyControlCharFilter() {
+        return applyLegacyFilter(0);
+    }
+
+    /**
+     * Substituição de ^ por quebra de linha (2º filtro original)
+     */
+    @Benchmark
+    public String legacyCaretFilter() {
+        return applyLegacyFilter(1);
+    }
+
+    /**
+     * Alinhamento dos valores monetários (3º filtro original)
+     */
+    @Benchmark
+    public String legacyPriceAlignFilter() {
+        return applyLegacyFilter(2);
+    }
+
+    @Benchmark
+    public String legacyProcessUdpMessage() {
+        return LegacyFilters.processUdpMessage(SENDER_INFO, messages[nextIndex()]);
+    }
+
+    /**
+     * Filtro padrão atual (controle, ^ e preços em uma passada)
+     */
+    @Benchmark
+    public String defaultFilter() {
+        return defaultFilter.process(messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public String processMessage() {
+        return MessageProcessor.processMessage(messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public String processUdpMessage() {
+        return MessageProcessor.processUdpMessage(SENDER_INFO, messages[nextIndex()]);
+    }
+
+    @Benchmark
+    public String createRegexFilter() {
+        return regexFilter.process(messages[nextIndex()]);
+    }
+}
@@ -0,0 +1,146 @@
+package com.grupoverona.selfcheckout.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Corpora de mensagens de PDV para os benchmarks, no formato recebido por UDP:
+ * linhas separadas por ^, linhas de preço "123,45 = 678,90" e caracteres de
+ * controle da impressora (ESC/POS) misturados ao texto.
+ *
+ * - SHORT: um datagrama por item, como o PDV envia durante a venda
+ * - LONG: cupom completo em um único datagrama (fechamento da venda)
+ * - BURST: sequência de um cupom enviado linha a linha, misturando abertura,
+ *   itens, cancelamentos e pagamento, como na rajada de fechamento
+ * - RESEND: turno com várias vendas linha a linha, intercaladas com as
+ *   mensagens que o PDV repete o dia todo (caixa livre, instruções ao cliente,
+ *   cabeçalho e rodapé fixos do cupom)
+ *
+ * Os textos são gerados com semente fixa para que as execuções sejam comparáveis.
+ */
+public enum ReceiptCorpus {
+
+    SHORT {
+        @Override
+        String[] messages() {
+            Random random = new Random(1);
+            String[] messages = new String[64];
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = itemLine(random, i + 1);
+            }
+            return messages;
+        }
+    },
+
+    LONG {
+        @Override
+        String[] messages() {
+            Random random = new Random(2);
+            String[] messages = new String[16];
+            for (int i = 0; i < messages.length; i++) {
+                StringBuilder receipt = new StringBuilder(header(i + 1));
+                int items = 30 + random.nextInt(20);
+                for (int item = 1; item <= items; item++) {
+                    receipt.append('^').append(itemLine(random, item));
+                }
+                receipt.append('^').append(footer(random));
+                messages[i] = receipt.toString();
+            }
+            return messages;
+        }
+    },
+
+    BURST {
+        @Override
+        String[] messages() {
+            Random random = new Random(3);
+            List<String> messages = new ArrayList<>();
+            messages.add(header(7));
+            for (int item = 1; item <= 40; item++) {
+                messages.add(itemLine(random, item));
+                if (item % 13 == 0) {
+                    messages.add("CANCELAMENTO ITEM " + String.format("%03d", item) + "^-" + amount(random));
+                }
+            }
+            messages.add("SUBTOTAL");
+            messages.add(footer(random));
+            return messages.toArray(new String[0]);
+        }
+    },
+
+    RESEND {
+        @Override
+        String[] messages() {
+            Random random = new Random(4);
+            List<String> messages = new ArrayList<>();
+            for (int sale = 0; sale < 40; sale++) {
+                for (int idle = random.nextInt(4); idle >= 0; idle--) {
+                    messages.add(IDLE_BANNER);
+                }
+                messages.add(PROMPTS[0]);
+                messages.add(header(7));
+                int items = 3 + random.nextInt(12);
+                for (int item = 1; item <= items; item++) {
+                    messages.add(itemLine(random, item));
+                    messages.add(PROMPTS[1 + random.nextInt(PROMPTS.length - 1)]);
+                }
+                messages.add("SUBTOTAL");
+                messages.add(PROMPTS[0]);
+                messages.add(footer(random));
+                messages.add(THANKS);
+            }
+            return messages.toArray(new String[0]);
+        }
+    };
+
+    private static final String[] PRODUCTS = {
+            "ARROZ TIPO 1 5KG", "FEIJAO CARIOCA 1KG", "OLEO DE SOJA 900ML", "ACUCAR REFINADO 1KG",
+            "CAFE TORRADO 500G", "LEITE INTEGRAL 1L", "MACARRAO ESPAGUETE 500G", "DETERGENTE 500ML",
+            "SABAO EM PO 1KG", "PAPEL HIGIENICO 12UN", "REFRIGERANTE COLA 2L", "BISCOITO RECHEADO 140G"
+    };
+
+    // Negrito liga/desliga e avanço de linha da impressora, filtrados pelo MessageProcessor
+    private static final String ESC_BOLD_ON = "\u001BE\u0001";
+    private static final String ESC_BOLD_OFF = "\u001BE\u0000";
+
+    // Textos fixos que o PDV reenvia a cada venda
+    private static final String IDLE_BANNER = ESC_BOLD_ON + "CAIXA LIVRE" + ESC_BOLD_OFF + "^AGUARDANDO CLIENTE";
+    private static final String THANKS = "OBRIGADO PELA PREFERENCIA^VOLTE SEMPRE!^\u0007";
+    private static final String[] PROMPTS = {
+            "INFORME O CPF NA NOTA?", "PASSE O PRODUTO NO LEITOR", "COLOQUE O PRODUTO NA AREA DE ENSACAMENTO",
+            "AGUARDE..."
+    };
+
+    /**
+     * @return Mensagens do corpus, na ordem em que chegariam
+     */
+    abstract String[] messages();
+
+    private static String header(int pdv) {
+        return ESC_BOLD_ON + "CUPOM FISCAL ELETRONICO - SAT" + ESC_BOLD_OFF
+                + "^PDV " + pdv + "  OPERADOR 0042^CPF/CNPJ CONSUMIDOR: NAO INFORMADO";
+    }
+
+    private static String itemLine(Random random, int item) {
+        int quantity = 1 + random.nextInt(3);
+        long unitCents = 100 + random.nextInt(5000);
+        return String.format("%03d %s\t", item, PRODUCTS[random.nextInt(PRODUCTS.length)])
+                + "^" + quantity + " UN X " + amount(unitCents) + (random.nextBoolean() ? " = " : "=")
+                + amount(quantity * unitCents);
+    }
+
+    private static String footer(Random random) {
+        String total = amount(random);
+        return ESC_BOLD_ON + "TOTAL R$ " + total + ESC_BOLD_OFF + "^DINHEIRO " + total
+                + "^TROCO 0,00^\u0007";
+    }
+
+    private static String amount(Random random) {
+        return amount(1000 + random.nextInt(50000));
+    }
+
+    private static String amount(long cents) {
+        return cents / 100 + "," + String.format("%02d", cents % 100);
+    }
+}
@@ -1,6 +1,10 @@
 package com.grupoverona.selfcheckout.app;
 
+import com.grupoverona.selfcheckout.media.MediaPlayerFactoryPool;
+import com.grupoverona.selfcheckout.network.SharedUdpListener;
+import com.grupoverona.selfcheckout.rules.RuleEngine;
 import com.grupoverona.selfcheckout.ui.CameraQuadrant;
+import com.grupoverona.selfcheckout.ui.VideoVisibilityScheduler;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -50,6 +54,9 @@ public class MainController {
     // Referências para os GridPanes originais dos quadrantes
     private final List<GridPane> originalQuadrantGrids = new ArrayList<>(4);
 
+    // Suspende o vídeo dos quadrantes fora da tela
+    private VideoVisibilityScheduler videoScheduler;
+
     /**
      * Define o estágio principal
      */
@@ -88,6 +95,9 @@ public class MainController {
                 // Inicializa os quadrantes
                 setupQuadrants();
 
+                // Suspende o vídeo dos quadrantes escondidos ou com a janela minimizada
+                setupVideoScheduler();
+
                 // Configura os botões de conexão
                 setupConnections();
 
@@ -185,6 +195,20 @@ public class MainController {
         }
     }
 
+    /**
+     * Configura o agendador de vídeo conforme a visibilidade dos quadrantes
+     */
+    private void setupVideoScheduler() {
+        videoScheduler = new VideoVisibilityScheduler(quadrants);
+
+        if (mainStage != null) {
+            mainStage.iconifiedProperty().addListener((obs, oldVal, newVal) -> {
+                System.out.println("Janela minimizada: " + newVal);
+                videoScheduler.setIconified(newVal);
+            });
+        }
+    }
+
     /**
      * Alterna o modo de visualização do quadrante (normal/tela cheia)
      * @param quadrant O quadrante que recebeu duplo clique
@@ -218,6 +242,16 @@ public class MainController {
 
             CameraQuadrant quadrant = quadrants.get(quadrantIndex);
 
+            // Só o quadrante exibido recebe o vídeo na taxa completa
+            for (CameraQuadrant other : quadrants) {
+                other.setExpanded(other == quadrant);
+            }
+
+            // Os demais quadrantes saem da tela: a decodificação deles é suspensa
+            if (videoScheduler != null) {
+                videoScheduler.showOnly(quadrantIndex);
+            }
+
             // Salva referências às posições originais
             GridPane originalGrid = originalQuadrantGrids.get(quadrantIndex);
 
@@ -275,6 +309,10 @@ public class MainController {
             // Atualiza estado
             singleQuadrantMode = false;
             fullscreenQuadrantIndex = -1;
+            quadrants.forEach(quadrant -> quadrant.setExpanded(false));
+            if (videoScheduler != null) {
+                videoScheduler.showAll();
+            }
 
             // Notifica todos os quadrantes sobre a mudança de layout
             Platform.runLater(() -> {
@@ -366,6 +404,9 @@ public class MainController {
      * Configura os botões de conexão UDP
      */
     private void setupUdpConnections() {
+        // Motor de regras alimentado uma vez por PDV (IP e porta) pelo motor UDP, não por quadrante
+        SharedUdpListener.getInstance().setReceiptLaneFactory(RuleEngine.getInstance()::laneFor);
+
         configureUdpButton(btn_ip1, txtField_ip1, 0);
         configureUdpButton(btn_ip2, txtField_ip2, 1);
         configureUdpButton(btn_ip3, txtField_ip3, 2);
@@ -473,6 +514,9 @@ public class MainController {
             }
         }
 
+        // Com os players devolvidos, libera as instâncias do libVLC
+        MediaPlayerFactoryPool.getInstance().shutdown();
+
         System.out.println("Todos os recursos foram liberados com sucesso!");
     }
 }
\ No newline at end of file
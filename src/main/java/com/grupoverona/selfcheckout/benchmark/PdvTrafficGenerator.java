@@ -0,0 +1,393 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Gerador de tráfego de PDVs falsos em UDP, para testes de carga.
+ *
+ * Cada PDV envia de um IP próprio da faixa de loopback 127.1.x.y (no Linux toda
+ * a faixa 127.0.0.0/8 responde localmente), como os caixas reais na rede da loja.
+ * Todo datagrama começa com "#sequência;nanoTime^", permitindo medir a latência
+ * de entrega no mesmo processo e detectar lacunas com DatagramSequence.prefixed("#").
+ *
+ * Modos:
+ * - Sintético: cupons com linhas separadas por ^ e linhas de preço "123,45 = 678,90"
+ * - Replay: reenvia uma captura a N vezes a velocidade original
+ * - Captura: grava os datagramas recebidos de PDVs reais em uma porta
+ *
+ * Formato da captura: um datagrama por linha, "milissegundos\tconteúdo", com o
+ * tempo relativo ao início da captura.
+ *
+ * Uso:
+ *   java ... PdvTrafficGenerator sintetico [host=127.0.0.1] [porta=38800] [pdvs=4] [pacotesPorSegundoPorPdv=20] [segundos=10]
+ *   java ... PdvTrafficGenerator replay arquivo [host=127.0.0.1] [porta=38800] [pdvs=4] [velocidade=1]
+ *   java ... PdvTrafficGenerator captura arquivo [porta=38800] [segundos=60]
+ */
+public class PdvTrafficGenerator implements Closeable {
+
+    private static final String[] PRODUCTS = {
+            "ARROZ TIPO 1 5KG", "FEIJAO CARIOCA 1KG", "OLEO DE SOJA 900ML", "ACUCAR REFINADO 1KG",
+            "CAFE TORRADO 500G", "LEITE INTEGRAL 1L", "MACARRAO ESPAGUETE 500G", "DETERGENTE 500ML",
+            "SABAO EM PO 1KG", "PAPEL HIGIENICO 12UN", "REFRIGERANTE COLA 2L", "BISCOITO RECHEADO 140G"
+    };
+
+    private static final int MAX_ITEMS_PER_RECEIPT = 15;
+
+    private final InetSocketAddress target;
+    private final DatagramChannel[] channels;
+    private final String[] ips;
+
+    // Estado de cada PDV no cupom sintético
+    private final long[] sequences;
+    private final int[] itemsLeft;
+    private final int[] itemNumbers;
+    private final long[] receiptCents;
+
+    private final Random random = new Random(38800);
+    private final StringBuilder payloadBuilder = new StringBuilder(256);
+    private final ByteBuffer payloadBuffer = ByteBuffer.allocate(4096);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+    /**
+     * Abre um canal por PDV, cada um com seu IP de origem
+     * @param pdvCount Número de PDVs simulados (até 250 × 256)
+     * @param target Endereço do listener
+     */
+    public PdvTrafficGenerator(int pdvCount, InetSocketAddress target) throws IOException {
+        this.target = target;
+        this.channels = new DatagramChannel[pdvCount];
+        this.ips = new String[pdvCount];
+        this.sequences = new long[pdvCount];
+        this.itemsLeft = new int[pdvCount];
+        this.itemNumbers = new int[pdvCount];
+        this.receiptCents = new long[pdvCount];
+
+        try {
+            for (int i = 0; i < pdvCount; i++) {
+                ips[i] = pdvIp(i);
+                channels[i] = DatagramChannel.open();
+                channels[i].bind(new InetSocketAddress(ips[i], 0));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return IP de origem do PDV de índice informado
+     */
+    public static String pdvIp(int index) {
+        return "127.1." + (index / 250) + "." + (1 + index % 250);
+    }
+
+    /**
+     * @return IPs de origem dos PDVs simulados
+     */
+    public List<String> getPdvIps() {
+        return List.of(ips);
+    }
+
+    /**
+     * Envia cupons sintéticos de todos os PDVs em rodízio, com espera ativa para manter a taxa
+     * @param packetsPerSecondPerPdv Datagramas por segundo de cada PDV
+     * @param durationMillis Duração do envio
+     * @return Número de datagramas enviados
+     */
+    public long sendSynthetic(int packetsPerSecondPerPdv, long durationMillis) throws IOException {
+        long intervalNanos = 1_000_000_000L / ((long) packetsPerSecondPerPdv * channels.length);
+        long end = System.nanoTime() + durationMillis * 1_000_000L;
+        long next = System.nanoTime();
+        long sent = 0;
+        int pdv = 0;
+
+        while (next < end) {
+            while (System.nanoTime() < next) {
+                Thread.onSpinWait();
+            }
+
+            nextSyntheticPayload(pdv);
+            send(pdv);
+            sent++;
+
+            pdv = (pdv + 1) % channels.length;
+            next += intervalNanos;
+        }
+        return sent;
+    }
+
+    /**
+     * Reenvia a captura por todos os PDVs, defasados uniformemente dentro do
+     * intervalo médio entre datagramas, para que não enviem em rajada simultânea
+     * @param capture Datagramas da captura, em ordem de tempo
+     * @param speed Fator de aceleração (2 = duas vezes mais rápido)
+     * @return Número de datagramas enviados
+     */
+    public long replay(List<CaptureRecord> capture, double speed) throws IOException {
+        if (capture.isEmpty()) {
+            return 0;
+        }
+
+        long spanNanos = (long) ((capture.get(capture.size() - 1).offsetMillis() * 1_000_000L) / speed);
+        long phaseStep = spanNanos / Math.max(1, capture.size()) / channels.length;
+
+        // Próximo envio de cada PDV: {instante relativo, pdv, índice na captura}
+        PriorityQueue<long[]> schedule = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        for (int pdv = 0; pdv < channels.length; pdv++) {
+            schedule.add(new long[] {replayTime(capture, 0, speed) + pdv * phaseStep, pdv, 0});
+        }
+
+        long start = System.nanoTime();
+        long sent = 0;
+
+        long[] next;
+        while ((next = schedule.poll()) != null) {
+            while (System.nanoTime() - start < next[0]) {
+                Thread.onSpinWait();
+            }
+
+            int pdv = (int) next[1];
+            int index = (int) next[2];
+            stamp(pdv).append(capture.get(index).payload());
+            send(pdv);
+            sent++;
+
+            if (index + 1 < capture.size()) {
+                next[0] = replayTime(capture, index + 1, speed) + pdv * phaseStep;
+                next[2] = index + 1;
+                schedule.add(next);
+            }
+        }
+        return sent;
+    }
+
+    private static long replayTime(List<CaptureRecord> capture, int index, double speed) {
+        return (long) ((capture.get(index).offsetMillis() * 1_000_000L) / speed);
+    }
+
+    /**
+     * Monta o próximo trecho do cupom do PDV: abertura, itens e fechamento,
+     * um por datagrama, como o PDV envia durante a venda
+     */
+    private void nextSyntheticPayload(int pdv) {
+        StringBuilder payload = stamp(pdv);
+
+        if (itemsLeft[pdv] == 0) {
+            // Itens mais o fechamento
+            itemsLeft[pdv] = 2 + random.nextInt(MAX_ITEMS_PER_RECEIPT);
+            itemNumbers[pdv] = 0;
+            receiptCents[pdv] = 0;
+            payload.append("CUPOM FISCAL^PDV ").append(pdv + 1).append("^CPF NAO INFORMADO");
+            return;
+        }
+
+        if (--itemsLeft[pdv] == 0) {
+            payload.append("SUBTOTAL^TOTAL R$ ");
+            appendAmount(payload, receiptCents[pdv]);
+            payload.append("^DINHEIRO ");
+            appendAmount(payload, receiptCents[pdv]);
+            return;
+        }
+
+        int quantity = 1 + random.nextInt(3);
+        long unitCents = 100 + random.nextInt(5000);
+        receiptCents[pdv] += quantity * unitCents;
+
+        int item = ++itemNumbers[pdv];
+        payload.append(item < 10 ? "00" : "0").append(item)
+                .append(' ').append(PRODUCTS[random.nextInt(PRODUCTS.length)])
+                .append('^').append(quantity).append(" UN X ");
+        appendAmount(payload, unitCents);
+        payload.append(" = ");
+        appendAmount(payload, quantity * unitCents);
+    }
+
+    private StringBuilder stamp(int pdv) {
+        payloadBuilder.setLength(0);
+        return payloadBuilder.append('#').append(++sequences[pdv]).append(';').append(System.nanoTime()).append('^');
+    }
+
+    private static void appendAmount(StringBuilder builder, long cents) {
+        builder.append(cents / 100).append(',');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        builder.append(fraction);
+    }
+
+    private void send(int pdv) throws IOException {
+        payloadBuffer.clear();
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(payloadBuilder), payloadBuffer, true);
+        payloadBuffer.flip();
+        channels[pdv].send(payloadBuffer, target);
+    }
+
+    /**
+     * Extrai o nanoTime carimbado por este gerador em uma mensagem recebida
+     * (bruta ou já formatada pelo MessageProcessor)
+     * @return Instante do envio, ou -1 se a mensagem não tiver carimbo
+     */
+    public static long sendNanosOf(CharSequence message) {
+        int i = 0;
+        int length = message.length();
+        while (i < length && message.charAt(i) != '#') {
+            i++;
+        }
+        while (i < length && message.charAt(i) != ';') {
+            i++;
+        }
+        if (++i >= length) {
+            return -1;
+        }
+
+        long nanos = 0;
+        boolean negative = message.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        int digits = 0;
+        for (; i < length && Character.isDigit(message.charAt(i)); i++, digits++) {
+            nanos = nanos * 10 + (message.charAt(i) - '0');
+        }
+        if (digits == 0) {
+            return -1;
+        }
+        return negative ? -nanos : nanos;
+    }
+
+    @Override
+    public void close() {
+        for (DatagramChannel channel : channels) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Canal já está sendo descartado
+                }
+            }
+        }
+    }
+
+    /**
+     * Um datagrama da captura
+     * @param offsetMillis Tempo desde o início da captura
+     * @param payload Conteúdo do datagrama
+     */
+    public record CaptureRecord(long offsetMillis, String payload) {
+    }
+
+    /**
+     * Lê uma captura no formato "milissegundos\tconteúdo" (linhas vazias são ignoradas)
+     */
+    public static List<CaptureRecord> loadCapture(Path file) throws IOException {
+        List<CaptureRecord> records = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            records.add(new CaptureRecord(Long.parseLong(line.substring(0, tab).trim()), line.substring(tab + 1)));
+        }
+        records.sort((a, b) -> Long.compare(a.offsetMillis(), b.offsetMillis()));
+        return records;
+    }
+
+    /**
+     * Grava os datagramas recebidos em uma porta no formato de captura.
+     * Quebras de linha e tabulações do conteúdo são substituídas por ^ e espaço.
+     */
+    public static int capture(int port, Path file, long durationMillis) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        int count = 0;
+
+        try (DatagramChannel channel = DatagramChannel.open();
+             Selector selector = Selector.open();
+             BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            channel.bind(new InetSocketAddress(port));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+
+            long start = System.nanoTime();
+            long end = start + durationMillis * 1_000_000L;
+            long remaining;
+            while ((remaining = end - System.nanoTime()) > 0) {
+                buffer.clear();
+                SocketAddress sender = channel.receive(buffer);
+                if (sender == null) {
+                    // Aguarda o próximo datagrama sem consumir CPU
+                    selector.select(Math.max(1, remaining / 1_000_000));
+                    selector.selectedKeys().clear();
+                    continue;
+                }
+
+                buffer.flip();
+                String payload = StandardCharsets.UTF_8.decode(buffer).toString()
+                        .replace("\r\n", "^").replace('\n', '^').replace('\t', ' ');
+                writer.write((System.nanoTime() - start) / 1_000_000 + "\t" + payload);
+                writer.newLine();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "sintetico";
+
+        switch (mode) {
+            case "sintetico" -> {
+                String host = args.length > 1 ? args[1] : "127.0.0.1";
+                int port = args.length > 2 ? Integer.parseInt(args[2]) : 38800;
+                int pdvs = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+                int rate = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+                int seconds = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+
+                try (PdvTrafficGenerator generator = new PdvTrafficGenerator(pdvs, new InetSocketAddress(host, port))) {
+                    long sent = generator.sendSynthetic(rate, seconds * 1000L);
+                    System.out.println("Enviados " + sent + " datagramas de " + pdvs + " PDVs para " + host + ":" + port);
+                }
+            }
+            case "replay" -> {
+                Path file = Path.of(args[1]);
+                String host = args.length > 2 ? args[2] : "127.0.0.1";
+                int port = args.length > 3 ? Integer.parseInt(args[3]) : 38800;
+                int pdvs = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+                double speed = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+
+                List<CaptureRecord> capture = loadCapture(file);
+                try (PdvTrafficGenerator generator = new PdvTrafficGenerator(pdvs, new InetSocketAddress(host, port))) {
+                    long sent = generator.replay(capture, speed);
+                    System.out.println("Reenviados " + sent + " datagramas de " + pdvs + " PDVs a " + speed + "x");
+                }
+            }
+            case "captura" -> {
+                Path file = Path.of(args[1]);
+                int port = args.length > 2 ? Integer.parseInt(args[2]) : 38800;
+                int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+
+                int count = capture(port, file, seconds * 1000L);
+                System.out.println("Capturados " + count + " datagramas na porta " + port + " em " + file);
+            }
+            default -> System.err.println("Modo desconhecido: " + mode + " (use sintetico, replay ou captura)");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+import com.grupoverona.selfcheckout.receipt.ReceiptTokenizer;
+import com.grupoverona.selfcheckout.rules.AnomalyListener;
+import com.grupoverona.selfcheckout.rules.RuleEngine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark do motor de regras em uma única thread: vendas sintéticas de N PDVs
+ * (itens, cancelamentos, alterações de preço, total e pagamento) intercaladas
+ * datagrama a datagrama, como chegariam ao motor UDP.
+ *
+ * Mede o tokenizador sozinho e o tokenizador seguido do {@link RuleEngine}; a
+ * diferença é o custo das regras por evento. Reporta também quantos PDVs um
+ * núcleo suportaria na taxa de datagramas informada.
+ *
+ * Uso: java ... RuleEngineBenchmark [pdvs=500] [datagramas/s por PDV=20] [segundos=5]
+ */
+public class RuleEngineBenchmark {
+
+    // Porta padrão dos PDVs (as lanes do motor são por IP e porta)
+    private static final int PDV_PORT = 38800;
+
+    private static final String[] PRODUCTS = {
+            "ARROZ TIPO 1 5KG", "FEIJAO CARIOCA 1KG", "LEITE INTEGRAL 1L", "CAFE TORRADO 500G", "DETERGENTE 500ML"
+    };
+
+    public static void main(String[] args) {
+        int pdvCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int datagramsPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        String[] ips = new String[pdvCount];
+        for (int i = 0; i < pdvCount; i++) {
+            ips[i] = PdvTrafficGenerator.pdvIp(i);
+        }
+        ByteBuffer[] datagrams = saleDatagrams(new Random(7));
+        ReceiptTokenizer tokenizer = new ReceiptTokenizer();
+
+        // Contador de eventos (sem regras)
+        long[] events = new long[1];
+        ReceiptEventHandler[] counters = new ReceiptEventHandler[pdvCount];
+        Arrays.fill(counters, (ReceiptEventHandler) event -> events[0]++);
+
+        // Estado das regras de cada PDV, como o motor UDP o obtém para cada fila
+        RuleEngine engine = new RuleEngine(5 * 60_000, 3, 5 * 60_000, 2, 2 * 60_000);
+        ReceiptEventHandler[] lanes = new ReceiptEventHandler[pdvCount];
+        for (int i = 0; i < pdvCount; i++) {
+            lanes[i] = engine.laneFor(ips[i], PDV_PORT);
+        }
+        AtomicLong alerts = new AtomicLong();
+        AnomalyListener listener = alert -> alerts.incrementAndGet();
+        engine.addAnomalyListener(listener);
+
+        System.out.printf("%d PDVs, %d datagramas por venda%n", pdvCount, datagrams.length);
+
+        // Aquecimento
+        run(tokenizer, counters, ips, datagrams, 2_000_000_000L);
+        run(tokenizer, lanes, ips, datagrams, 2_000_000_000L);
+
+        long nanos = seconds * 1_000_000_000L;
+        events[0] = 0;
+        long baseline = run(tokenizer, counters, ips, datagrams, nanos);
+        long eventCount = events[0];
+        long withRules = run(tokenizer, lanes, ips, datagrams, nanos);
+        engine.removeAnomalyListener(listener);
+
+        double baselineNs = (double) nanos / baseline;
+        double rulesNs = (double) nanos / withRules;
+        double eventsPerDatagram = (double) eventCount / baseline;
+        double rulesPerEventNs = (rulesNs - baselineNs) / eventsPerDatagram;
+        double datagramsPerCore = 1e9 / rulesNs;
+
+        System.out.printf("Tokenizador:           %8.0f ns/datagrama (%.2f eventos/datagrama)%n", baselineNs, eventsPerDatagram);
+        System.out.printf("Tokenizador + regras:  %8.0f ns/datagrama%n", rulesNs);
+        System.out.printf("Regras:                %8.1f ns/evento%n", rulesPerEventNs);
+        System.out.printf("Capacidade de 1 núcleo: %.0f datagramas/s = %.0f PDVs a %d datagramas/s%n",
+                datagramsPerCore, datagramsPerCore / datagramsPerSecond, datagramsPerSecond);
+        System.out.printf("PDVs no motor: %d, alertas: %d%n", engine.getLaneCount(), alerts.get());
+    }
+
+    /**
+     * Tokeniza os datagramas dos PDVs em rodízio pelo tempo indicado
+     * @param handlers Consumidor dos eventos de cada PDV, na ordem dos IPs
+     * @return Datagramas processados
+     */
+    private static long run(ReceiptTokenizer tokenizer, ReceiptEventHandler[] handlers, String[] ips,
+                            ByteBuffer[] datagrams, long durationNanos) {
+        long count = 0;
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        int datagram = 0;
+
+        while (true) {
+            ByteBuffer payload = datagrams[datagram];
+            // Todos os PDVs enviam o mesmo datagrama da venda, um após o outro
+            long now = System.nanoTime();
+            for (int i = 0; i < ips.length; i++) {
+                payload.rewind();
+                tokenizer.tokenize(payload, ips[i], now, handlers[i]);
+            }
+            count += ips.length;
+            datagram = datagram + 1 == datagrams.length ? 0 : datagram + 1;
+
+            if (now >= deadline) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Uma venda linha a linha, com um cancelamento após o total e uma alteração de preço
+     */
+    private static ByteBuffer[] saleDatagrams(Random random) {
+        List<String> lines = new ArrayList<>();
+        int items = 12;
+        long total = 0;
+        for (int item = 1; item <= items; item++) {
+            int quantity = 1 + random.nextInt(3);
+            long unit = 100 + random.nextInt(3000);
+            total += quantity * unit;
+            lines.add(String.format("%03d %s", item, PRODUCTS[random.nextInt(PRODUCTS.length)]));
+            lines.add(quantity + " UN X " + amount(unit) + " = " + amount(quantity * unit));
+            if (item == 5) {
+                lines.add("ALTERACAO DE PRECO " + String.format("%03d", item) + " " + amount(unit / 2));
+            }
+            if (item % 6 == 0) {
+                lines.add("CANCELAMENTO ITEM " + String.format("%03d", item) + " -" + amount(quantity * unit));
+            }
+        }
+        lines.add("SUBTOTAL " + amount(total));
+        lines.add("TOTAL R$ " + amount(total));
+        lines.add("CANCELAMENTO ITEM 003");
+        lines.add("DINHEIRO " + amount(total));
+
+        ByteBuffer[] datagrams = new ByteBuffer[lines.size()];
+        for (int i = 0; i < datagrams.length; i++) {
+            datagrams[i] = ByteBuffer.wrap(lines.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        return datagrams;
+    }
+
+    private static String amount(long cents) {
+        return cents / 100 + "," + String.format("%02d", cents % 100);
+    }
+}
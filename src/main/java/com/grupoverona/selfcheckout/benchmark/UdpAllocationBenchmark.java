@@ -0,0 +1,127 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import com.grupoverona.selfcheckout.network.SharedUdpListener;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark de alocação do caminho de recepção do {@link SharedUdpListener}.
+ * Envia pacotes em loopback a uma taxa fixa (padrão 20k pacotes/s) e mede os
+ * bytes alocados por pacote recebido pelas threads da JVM (seletor e threads
+ * que executam as filas dos PDVs), exceto a thread que envia, comparando:
+ * - Consumidor de CharSequence (sem String por pacote)
+ * - Consumidor de String (mensagem formatada pelo MessageProcessor, como a UI recebe)
+ *
+ * Uso: java ... UdpAllocationBenchmark [porta] [pacotesPorSegundo] [segundos]
+ */
+public class UdpAllocationBenchmark {
+
+    private static final String LOOPBACK_IP = "127.0.0.1";
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 42000;
+        int packetsPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        SharedUdpListener listener = SharedUdpListener.getInstance();
+
+        // Aquecimento para que o JIT compile o caminho de recepção
+        AtomicLong received = new AtomicLong();
+        listener.registerListener(LOOPBACK_IP, port, (senderIp, message) -> received.addAndGet(message.length()));
+        send(port, packetsPerSecond, 2);
+        listener.unregisterListener(LOOPBACK_IP, port);
+        Thread.sleep(200);
+
+        System.out.println("consumidor   | pacotes recebidos | bytes alocados | bytes/pacote");
+
+        AtomicLong charSequencePackets = new AtomicLong();
+        listener.registerListener(LOOPBACK_IP, port, (senderIp, message) -> {
+            if (message.length() > 0) {
+                charSequencePackets.incrementAndGet();
+            }
+        });
+        measure("CharSequence", port, packetsPerSecond, seconds, charSequencePackets);
+        listener.unregisterListener(LOOPBACK_IP, port);
+        Thread.sleep(200);
+
+        AtomicLong stringPackets = new AtomicLong();
+        listener.registerListener(LOOPBACK_IP, port, message -> {
+            if (!message.isEmpty()) {
+                stringPackets.incrementAndGet();
+            }
+        });
+        measure("String", port, packetsPerSecond, seconds, stringPackets);
+        listener.unregisterListener(LOOPBACK_IP, port);
+    }
+
+    private static void measure(String label, int port, int packetsPerSecond, int seconds,
+                                AtomicLong packets) throws Exception {
+        Thread.sleep(200);
+        long[] threadIds = receiverThreadIds();
+
+        long allocatedBefore = allocatedBytes(threadIds);
+        send(port, packetsPerSecond, seconds);
+        Thread.sleep(200);
+        long allocated = allocatedBytes(threadIds) - allocatedBefore;
+
+        long count = packets.get();
+        System.out.printf("%-12s | %17d | %14d | %.2f%n",
+                label, count, allocated, count == 0 ? 0.0 : (double) allocated / count);
+    }
+
+    /**
+     * Envia pacotes de recibo sintéticos com espera ativa para manter a taxa
+     */
+    private static void send(int port, int packetsPerSecond, int seconds) throws Exception {
+        byte[] payload = "ITEM 001 ARROZ 5KG^1,00 = 25,90^SUBTOTAL 25,90".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        InetSocketAddress target = new InetSocketAddress(LOOPBACK_IP, port);
+
+        long intervalNanos = 1_000_000_000L / packetsPerSecond;
+        long total = (long) packetsPerSecond * seconds;
+        long next = System.nanoTime();
+
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            for (long i = 0; i < total; i++) {
+                buffer.rewind();
+                sender.send(buffer, target);
+
+                next += intervalNanos;
+                while (System.nanoTime() < next) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Threads de plataforma vivas, exceto a atual (que envia os pacotes).
+     * Inclui as threads carregadoras das virtual threads das filas.
+     */
+    private static long[] receiverThreadIds() {
+        long self = Thread.currentThread().threadId();
+        return Arrays.stream(ManagementFactory.getThreadMXBean().getAllThreadIds())
+                .filter(id -> id != self)
+                .toArray();
+    }
+
+    private static long allocatedBytes(long[] threadIds) {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads) {
+            long total = 0;
+            for (long allocated : sunThreads.getThreadAllocatedBytes(threadIds)) {
+                if (allocated > 0) {
+                    total += allocated;
+                }
+            }
+            return total;
+        }
+        return 0;
+    }
+}
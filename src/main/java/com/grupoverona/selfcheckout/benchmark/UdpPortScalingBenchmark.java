@@ -0,0 +1,113 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import com.grupoverona.selfcheckout.network.SharedUdpListener;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark de escalabilidade do {@link SharedUdpListener}.
+ * Abre 10, 50 e 200 portas em loopback e mede, para cada cenário:
+ * - Número de threads da JVM antes e depois do registro
+ * - Tempo de CPU do processo com as portas ociosas
+ * - Tempo de CPU do processo recebendo tráfego distribuído entre as portas
+ *
+ * Uso: java ... UdpPortScalingBenchmark [portaBase]
+ */
+public class UdpPortScalingBenchmark {
+
+    private static final int[] PORT_COUNTS = {10, 50, 200};
+    private static final String LOOPBACK_IP = "127.0.0.1";
+    private static final long IDLE_WINDOW_MS = 3000;
+    private static final long LOAD_WINDOW_MS = 3000;
+    private static final int PACKETS_PER_SECOND = 5000;
+
+    public static void main(String[] args) throws Exception {
+        int basePort = args.length > 0 ? Integer.parseInt(args[0]) : 41000;
+
+        System.out.println("portas | threads antes | threads depois | CPU ocioso (ms) | CPU carga (ms) | pacotes recebidos");
+
+        for (int portCount : PORT_COUNTS) {
+            runScenario(basePort, portCount);
+        }
+    }
+
+    private static void runScenario(int basePort, int portCount) throws Exception {
+        SharedUdpListener listener = SharedUdpListener.getInstance();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicLong received = new AtomicLong();
+
+        int threadsBefore = threads.getThreadCount();
+
+        for (int i = 0; i < portCount; i++) {
+            listener.registerListener(LOOPBACK_IP, basePort + i, message -> received.incrementAndGet());
+        }
+
+        // Aguarda o registro dos canais no seletor
+        Thread.sleep(200);
+        int threadsAfter = threads.getThreadCount();
+
+        // CPU com todas as portas ociosas
+        long cpuStart = processCpuNanos();
+        Thread.sleep(IDLE_WINDOW_MS);
+        long idleCpu = processCpuNanos() - cpuStart;
+
+        // CPU com tráfego distribuído em round-robin entre as portas
+        cpuStart = processCpuNanos();
+        sendTraffic(basePort, portCount);
+        long loadCpu = processCpuNanos() - cpuStart;
+
+        // Aguarda o processamento dos últimos pacotes
+        Thread.sleep(200);
+
+        for (int i = 0; i < portCount; i++) {
+            listener.unregisterListener(LOOPBACK_IP, basePort + i);
+        }
+
+        System.out.printf("%6d | %13d | %14d | %15d | %14d | %d%n",
+                portCount, threadsBefore, threadsAfter,
+                idleCpu / 1_000_000, loadCpu / 1_000_000, received.get());
+    }
+
+    private static void sendTraffic(int basePort, int portCount) throws Exception {
+        byte[] payload = "ITEM 001 ARROZ 5KG^1,00 = 25,90^".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+
+        InetSocketAddress[] targets = new InetSocketAddress[portCount];
+        for (int i = 0; i < portCount; i++) {
+            targets[i] = new InetSocketAddress(LOOPBACK_IP, basePort + i);
+        }
+
+        long intervalNanos = 1_000_000_000L / PACKETS_PER_SECOND;
+        long end = System.nanoTime() + LOAD_WINDOW_MS * 1_000_000L;
+        long next = System.nanoTime();
+        int target = 0;
+
+        try (DatagramChannel sender = DatagramChannel.open()) {
+            while (System.nanoTime() < end) {
+                buffer.rewind();
+                sender.send(buffer, targets[target]);
+                target = (target + 1) % portCount;
+
+                next += intervalNanos;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+            }
+        }
+    }
+
+    private static long processCpuNanos() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return sunOs.getProcessCpuTime();
+        }
+        return 0;
+    }
+}
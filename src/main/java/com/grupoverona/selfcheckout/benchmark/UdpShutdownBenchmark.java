@@ -0,0 +1,154 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import com.grupoverona.selfcheckout.network.SharedUdpListener;
+import com.grupoverona.selfcheckout.network.UdpListener;
+import com.grupoverona.selfcheckout.network.UdpListenerRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Benchmark de encerramento do motor UDP. Mede, em loopback:
+ * - Latência de {@link UdpListener#stop()} do último listener (fecha a porta e a thread do seletor)
+ * - Latência de parar e registrar de novo o mesmo PDV na mesma porta, com outras portas abertas
+ * - Latência de {@link UdpListenerRegistry#disposeAll()} com vários PDVs
+ * - Tempo de CPU da thread do seletor com as portas ociosas (esperado: zero)
+ *
+ * Uso: java ... UdpShutdownBenchmark [portaBase=43000] [pdvs=16] [repeticoes=20]
+ */
+public class UdpShutdownBenchmark {
+
+    private static final String LOOPBACK_IP = "127.0.0.1";
+    private static final long IDLE_WINDOW_MS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        int basePort = args.length > 0 ? Integer.parseInt(args[0]) : 43000;
+        int pdvCount = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        measureLastStop(basePort, repetitions);
+        measureReRegistration(basePort, repetitions);
+        measureDisposeAll(basePort, pdvCount, repetitions);
+        measureIdleWakeups(basePort, pdvCount);
+    }
+
+    /**
+     * Parar o último listener fecha o canal e encerra a thread do seletor
+     */
+    private static void measureLastStop(int basePort, int repetitions) {
+        long worst = 0;
+        long total = 0;
+
+        for (int i = 0; i < repetitions; i++) {
+            UdpListener listener = new UdpListener(LOOPBACK_IP + ":" + basePort);
+            listener.start();
+
+            long start = System.nanoTime();
+            listener.stop();
+            long elapsed = System.nanoTime() - start;
+
+            total += elapsed;
+            worst = Math.max(worst, elapsed);
+        }
+
+        report("stop() do último listener", total / repetitions, worst);
+    }
+
+    /**
+     * Com outra porta mantendo o seletor ativo, para e registra de novo o mesmo
+     * PDV; o novo bind só funciona se o socket anterior já foi liberado
+     */
+    private static void measureReRegistration(int basePort, int repetitions) {
+        UdpListener keepAlive = new UdpListener(LOOPBACK_IP + ":" + (basePort + 1));
+        keepAlive.start();
+
+        long worst = 0;
+        long total = 0;
+        int failures = 0;
+
+        UdpListener listener = new UdpListener(LOOPBACK_IP + ":" + basePort);
+        listener.start();
+
+        for (int i = 0; i < repetitions; i++) {
+            long start = System.nanoTime();
+            listener.stop();
+            listener = new UdpListener(LOOPBACK_IP + ":" + basePort);
+            listener.start();
+            long elapsed = System.nanoTime() - start;
+
+            if (!listener.isActive()) {
+                failures++;
+            }
+            total += elapsed;
+            worst = Math.max(worst, elapsed);
+        }
+
+        listener.stop();
+        keepAlive.stop();
+
+        report("stop() + start() na mesma porta", total / repetitions, worst);
+        System.out.println("  falhas de bind: " + failures + " de " + repetitions);
+    }
+
+    private static void measureDisposeAll(int basePort, int pdvCount, int repetitions) {
+        long worst = 0;
+        long total = 0;
+
+        for (int i = 0; i < repetitions; i++) {
+            startListeners(basePort, pdvCount);
+
+            long start = System.nanoTime();
+            UdpListenerRegistry.disposeAll();
+            long elapsed = System.nanoTime() - start;
+
+            total += elapsed;
+            worst = Math.max(worst, elapsed);
+        }
+
+        report("disposeAll() com " + pdvCount + " PDVs", total / repetitions, worst);
+    }
+
+    /**
+     * CPU consumida pela thread do seletor sem tráfego: sem timeouts de
+     * polling, ela não deve acordar
+     */
+    private static void measureIdleWakeups(int basePort, int pdvCount) throws InterruptedException {
+        startListeners(basePort, pdvCount);
+        Thread.sleep(200);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long selectorId = findThread(threads, "UDP-Selector");
+
+        long cpuStart = threads.getThreadCpuTime(selectorId);
+        Thread.sleep(IDLE_WINDOW_MS);
+        long idleCpu = threads.getThreadCpuTime(selectorId) - cpuStart;
+
+        UdpListenerRegistry.disposeAll();
+
+        System.out.printf("CPU da thread do seletor ociosa por %d ms: %.3f ms%n",
+                IDLE_WINDOW_MS, idleCpu / 1_000_000.0);
+        System.out.println("Portas abertas ao final: " + SharedUdpListener.getInstance().getOpenPortCount());
+    }
+
+    private static void startListeners(int basePort, int pdvCount) {
+        // Dois PDVs por porta, como nos caixas que compartilham a porta padrão
+        for (int i = 0; i < pdvCount; i++) {
+            new UdpListener("127.0.0." + (1 + i % 2) + ":" + (basePort + i / 2)).start();
+        }
+    }
+
+    private static long findThread(ThreadMXBean threads, String name) {
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && name.equals(info.getThreadName())) {
+                return info.getThreadId();
+            }
+        }
+        throw new IllegalStateException("Thread não encontrada: " + name);
+    }
+
+    private static void report(String scenario, long averageNanos, long worstNanos) {
+        System.out.printf("%s: média %.3f ms, pior %.3f ms%n",
+                scenario, averageNanos / 1_000_000.0, worstNanos / 1_000_000.0);
+    }
+}
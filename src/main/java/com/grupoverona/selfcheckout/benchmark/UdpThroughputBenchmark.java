@@ -0,0 +1,159 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import com.grupoverona.selfcheckout.network.DatagramSequence;
+import com.grupoverona.selfcheckout.network.PortMetrics;
+import com.grupoverona.selfcheckout.network.SharedUdpListener;
+import com.grupoverona.selfcheckout.network.UdpListener;
+import com.grupoverona.selfcheckout.network.UdpListenerRegistry;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark ponta a ponta da recepção UDP, sem interface gráfica.
+ * Para cada quantidade de PDVs, o {@link PdvTrafficGenerator} envia em loopback
+ * e cada PDV é assinado por um {@link UdpListener}, como na UI: a mensagem passa
+ * pelo motor, pela fila do PDV e pelo MessageProcessor até o callback.
+ *
+ * Reporta pacotes/s entregues, latência de entrega (envio → callback) nos
+ * percentis 50, 99 e 99,9, perda total e onde ela ocorreu (fila do PDV,
+ * buffer do kernel, lacunas na sequência).
+ *
+ * Uso: java ... UdpThroughputBenchmark [porta=44000] [pacotesPorSegundoPorPdv=20] [segundos=5]
+ *      [pdvs=4,16,64,200,500] [captura] [velocidade=1]
+ * Com um arquivo de captura, o tráfego é o replay da captura em vez de cupons sintéticos.
+ */
+public class UdpThroughputBenchmark {
+
+    private static final String LOOPBACK_IP = "127.0.0.1";
+
+    // Espera máxima pelos últimos pacotes após o fim do envio
+    private static final long DRAIN_TIMEOUT_MS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 44000;
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int[] pdvCounts = args.length > 3
+                ? Arrays.stream(args[3].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {4, 16, 64, 200, 500};
+        List<PdvTrafficGenerator.CaptureRecord> capture = args.length > 4
+                ? PdvTrafficGenerator.loadCapture(Path.of(args[4]))
+                : null;
+        double speed = args.length > 5 ? Double.parseDouble(args[5]) : 1.0;
+
+        SharedUdpListener.getInstance().setSequenceExtractor(DatagramSequence.prefixed("#"));
+
+        // Aquecimento para que o JIT compile o caminho de recepção
+        runScenario(port, 4, rate, 2, capture, speed);
+
+        System.out.println();
+        System.out.println("  pdvs | enviados | recebidos | perda % | pacotes/s | p50 (us) | p99 (us) | p999 (us)"
+                + " | desc. fila | desc. kernel | lacunas");
+
+        for (int pdvCount : pdvCounts) {
+            Result result = runScenario(port, pdvCount, rate, seconds, capture, speed);
+            System.out.printf("%6d | %8d | %9d | %7.3f | %9.0f | %8.1f | %8.1f | %9.1f | %10d | %12d | %7d%n",
+                    pdvCount, result.sent(), result.received(),
+                    result.sent() == 0 ? 0.0 : 100.0 * (result.sent() - result.received()) / result.sent(),
+                    result.packetsPerSecond(),
+                    result.percentileMicros(0.50), result.percentileMicros(0.99), result.percentileMicros(0.999),
+                    result.metrics().queueDrops(), result.metrics().kernelDrops(), result.metrics().sequenceGaps());
+        }
+    }
+
+    private static Result runScenario(int port, int pdvCount, int rate, int seconds,
+                                      List<PdvTrafficGenerator.CaptureRecord> capture,
+                                      double speed) throws Exception {
+        long expected = capture == null
+                ? (long) rate * pdvCount * seconds
+                : (long) capture.size() * pdvCount;
+        LatencyRecorder latencies = new LatencyRecorder((int) Math.min(Integer.MAX_VALUE - 8, expected + 1024));
+
+        try (PdvTrafficGenerator generator = new PdvTrafficGenerator(pdvCount, new InetSocketAddress(LOOPBACK_IP, port))) {
+            for (String ip : generator.getPdvIps()) {
+                UdpListener listener = new UdpListener(ip + ":" + port);
+                listener.setMessageCallback(latencies::onMessage);
+                listener.start();
+            }
+
+            long start = System.nanoTime();
+            long sent = capture == null
+                    ? generator.sendSynthetic(rate, seconds * 1000L)
+                    : generator.replay(capture, speed);
+            long sendNanos = System.nanoTime() - start;
+
+            latencies.awaitCount(sent, DRAIN_TIMEOUT_MS);
+            PortMetrics metrics = SharedUdpListener.getInstance().getPortMetrics().stream()
+                    .filter(m -> m.port() == port)
+                    .findFirst()
+                    .orElse(new PortMetrics(port, 0, 0, 0, 0, 0, 0, -1, 0, 0));
+
+            UdpListenerRegistry.disposeAll();
+
+            long received = latencies.count();
+            return new Result(sent, received, received * 1_000_000_000.0 / sendNanos, latencies.sorted(), metrics);
+        }
+    }
+
+    /**
+     * Latências de entrega gravadas pelas threads das filas dos PDVs em um
+     * array pré-alocado, sem alocação por pacote além da mensagem formatada
+     */
+    private static final class LatencyRecorder {
+        private final long[] samples;
+        private final AtomicInteger index = new AtomicInteger();
+        private final AtomicLong received = new AtomicLong();
+
+        LatencyRecorder(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        void onMessage(String message) {
+            long sendNanos = PdvTrafficGenerator.sendNanosOf(message);
+            if (sendNanos == -1) {
+                return; // Mensagens de estado do listener, sem carimbo
+            }
+
+            long latency = System.nanoTime() - sendNanos;
+            int slot = index.getAndIncrement();
+            if (slot < samples.length) {
+                samples[slot] = latency;
+            }
+            received.incrementAndGet();
+        }
+
+        long count() {
+            return received.get();
+        }
+
+        void awaitCount(long expected, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (received.get() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, Math.min(index.get(), samples.length));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private record Result(long sent, long received, double packetsPerSecond, long[] sortedLatencies,
+                          PortMetrics metrics) {
+
+        double percentileMicros(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1_000.0;
+        }
+    }
+}
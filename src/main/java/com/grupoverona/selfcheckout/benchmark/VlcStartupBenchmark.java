@@ -0,0 +1,182 @@
+package com.grupoverona.selfcheckout.benchmark;
+
+import com.grupoverona.selfcheckout.media.MediaPlayerFactoryPool;
+
+import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.base.MediaPlayerEventAdapter;
+import uk.co.caprica.vlcj.player.embedded.EmbeddedMediaPlayer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de inicialização do VLC com 4, 9 e 16 streams:
+ * - isolada: uma instância do libVLC por player (como cada VlcjMediaHandler fazia)
+ * - compartilhada: todos os players em uma instância do {@link MediaPlayerFactoryPool}
+ *
+ * Cada cenário roda em uma JVM nova, para que a memória nativa de um não
+ * contamine o outro. Mede o tempo até todos os players existirem, o tempo até
+ * todos reproduzirem (se uma URL for informada) e o RSS do processo (Linux).
+ *
+ * O vídeo e o áudio vão para saídas nulas (sem janelas); a decodificação acontece.
+ *
+ * Uso: java ... VlcStartupBenchmark [url rtsp]
+ */
+public class VlcStartupBenchmark {
+
+    private static final int[] STREAM_COUNTS = {4, 9, 16};
+    private static final String[] MODES = {"isolada", "compartilhada"};
+
+    private static final String[] VLC_OPTIONS = {
+            "--no-video-title-show",
+            "--quiet",
+            "--network-caching=1000",
+            "--rtsp-caching=300",
+            "--rtsp-tcp",
+            "--vout=dummy",
+            "--aout=dummy"
+    };
+
+    private static final String RESULT_PREFIX = "RESULTADO ";
+    private static final long PLAYING_TIMEOUT_S = 30;
+    private static final long SETTLE_MS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("--cenario")) {
+            runScenario(args[1], Integer.parseInt(args[2]), args.length > 3 ? args[3] : null);
+            return;
+        }
+
+        String url = args.length > 0 ? args[0] : null;
+        System.out.println(url == null ? "Sem URL: mede apenas a criação dos players" : "Stream: " + url);
+        System.out.println("modo          | streams | criação (ms) | reprodução (ms) | RSS antes (MB) | RSS depois (MB)");
+
+        for (int streams : STREAM_COUNTS) {
+            for (String mode : MODES) {
+                String result = runInChildJvm(mode, streams, url);
+                if (result == null) {
+                    System.out.printf("%-13s | %7d | falhou%n", mode, streams);
+                    continue;
+                }
+                String[] f = result.split(" ");
+                System.out.printf("%-13s | %7d | %12s | %15s | %14.1f | %15.1f%n", mode, streams, f[0],
+                        f[1].equals("-1") ? "-" : f[1], Long.parseLong(f[2]) / 1024.0, Long.parseLong(f[3]) / 1024.0);
+            }
+        }
+    }
+
+    /**
+     * Executa um cenário em outra JVM com o mesmo classpath
+     * @return Linha de resultado do cenário, ou null se falhou
+     */
+    private static String runInChildJvm(String mode, int streams, String url) throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                VlcStartupBenchmark.class.getName(), "--cenario", mode, Integer.toString(streams)));
+        if (url != null) {
+            command.add(url);
+        }
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = line.substring(RESULT_PREFIX.length());
+                }
+            }
+        }
+        process.waitFor();
+        return result;
+    }
+
+    /**
+     * Cria os players do cenário, reproduz a URL em todos e imprime
+     * "RESULTADO criaçãoMs reproduçãoMs rssAntesKb rssDepoisKb"
+     */
+    private static void runScenario(String mode, int streams, String url) throws InterruptedException {
+        boolean shared = mode.equals("compartilhada");
+        long rssBefore = rssKb();
+
+        List<MediaPlayerFactory> factories = new ArrayList<>();
+        List<EmbeddedMediaPlayer> players = new ArrayList<>();
+        MediaPlayerFactoryPool pool = shared ? new MediaPlayerFactoryPool(1, VLC_OPTIONS) : null;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < streams; i++) {
+            if (shared) {
+                players.add(pool.acquirePlayer());
+            } else {
+                MediaPlayerFactory factory = new MediaPlayerFactory(VLC_OPTIONS);
+                factories.add(factory);
+                players.add(factory.mediaPlayers().newEmbeddedMediaPlayer());
+            }
+        }
+        long createMs = (System.nanoTime() - start) / 1_000_000;
+
+        long playingMs = -1;
+        if (url != null) {
+            CountDownLatch playing = new CountDownLatch(streams);
+            for (EmbeddedMediaPlayer player : players) {
+                player.events().addMediaPlayerEventListener(new MediaPlayerEventAdapter() {
+                    @Override
+                    public void playing(MediaPlayer mediaPlayer) {
+                        playing.countDown();
+                    }
+                });
+            }
+
+            long playStart = System.nanoTime();
+            for (EmbeddedMediaPlayer player : players) {
+                player.media().play(url);
+            }
+            if (playing.await(PLAYING_TIMEOUT_S, TimeUnit.SECONDS)) {
+                playingMs = (System.nanoTime() - playStart) / 1_000_000;
+            }
+        }
+
+        // Deixa os buffers e decodificadores estabilizarem antes de medir a memória
+        Thread.sleep(SETTLE_MS);
+        long rssAfter = rssKb();
+
+        System.out.println(RESULT_PREFIX + createMs + " " + playingMs + " " + rssBefore + " " + rssAfter);
+
+        // Libera na ordem: players, depois as instâncias do libVLC
+        if (shared) {
+            pool.shutdown();
+        } else {
+            for (EmbeddedMediaPlayer player : players) {
+                player.controls().stop();
+                player.release();
+            }
+            for (int i = factories.size() - 1; i >= 0; i--) {
+                factories.get(i).release();
+            }
+        }
+    }
+
+    /**
+     * @return RSS do processo em KB (VmRSS de /proc/self/status), ou -1 fora do Linux
+     */
+    private static long rssKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.substring(6).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Sem /proc
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,40 @@
+package com.grupoverona.selfcheckout.media;
+
+/**
+ * Perfis de reprodução de um stream, aplicados como opções da mídia ao abri-la.
+ *
+ * - SMOOTH: buffer de rede maior e nenhum quadro descartado (o padrão)
+ * - LOW_LATENCY: buffer pequeno, sincronismo de relógio desligado e o
+ *   decodificador autorizado a pular quadros atrasados e não referenciados,
+ *   para um stream que não acompanha a câmera não acumular atraso
+ */
+public enum LatencyProfile {
+    SMOOTH(
+            ":network-caching=" + Long.getLong("selfcheckout.video.smoothCachingMs", 1000),
+            ":no-drop-late-frames",
+            ":no-skip-frames"
+    ),
+    LOW_LATENCY(
+            ":network-caching=" + Long.getLong("selfcheckout.video.lowLatencyCachingMs", 200),
+            ":clock-jitter=0",
+            ":clock-synchro=0",
+            ":drop-late-frames",
+            ":skip-frames",
+            ":avcodec-hurry-up",
+            ":avcodec-skip-frame=1",       // Pula quadros não referenciados quando atrasado
+            ":avcodec-skiploopfilter=4"    // Sem filtro de desbloqueio (mais barato de decodificar)
+    );
+
+    private final String[] options;
+
+    LatencyProfile(String... options) {
+        this.options = options;
+    }
+
+    /**
+     * @return Opções da mídia deste perfil (cópia)
+     */
+    public String[] options() {
+        return options.clone();
+    }
+}
@@ -0,0 +1,158 @@
+package com.grupoverona.selfcheckout.media;
+
+import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
+import uk.co.caprica.vlcj.player.embedded.EmbeddedMediaPlayer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pool de instâncias do libVLC ({@link MediaPlayerFactory}) compartilhadas
+ * pelos players dos quadrantes.
+ *
+ * Cada fábrica é uma instância completa do libVLC (carga de módulos, centenas
+ * de ms e dezenas de MB nativos); os players são leves. O pool cria as fábricas
+ * sob demanda, até o tamanho configurado, e entrega cada novo player pela
+ * fábrica com menos players. As fábricas ficam abertas enquanto a aplicação
+ * roda, para que reconectar um quadrante não pague a inicialização de novo.
+ *
+ * No encerramento, os players ainda emprestados são liberados antes das
+ * fábricas, e as fábricas na ordem inversa da criação.
+ */
+public final class MediaPlayerFactoryPool {
+
+    // Opções padrão para otimização de streaming RTSP
+    private static final String[] VLC_OPTIONS = {
+            "--no-video-title-show",   // Não mostra título do vídeo
+            "--quiet",                 // Reduz logs do VLC
+            "--quiet-synchro",         // Reduz logs de sincronização
+            "--network-caching=1000",  // 1000ms de buffer para estabilidade da rede
+            "--rtsp-caching=300",      // 300ms de buffer específico para RTSP
+            "--rtsp-tcp",              // Força uso de TCP para RTSP (mais estável)
+            "--no-drop-late-frames"    // Não descarta frames atrasados
+    };
+
+    // Número de instâncias do libVLC (configurável por propriedade do sistema)
+    private static final int DEFAULT_FACTORIES = Integer.getInteger("selfcheckout.vlc.factories", 1);
+
+    private static final MediaPlayerFactoryPool INSTANCE = new MediaPlayerFactoryPool(DEFAULT_FACTORIES, VLC_OPTIONS);
+
+    private final String[] options;
+    private final MediaPlayerFactory[] factories;
+    private final int[] playerCounts;
+
+    // Ordem de criação das fábricas, para a liberação inversa
+    private final List<Integer> creationOrder = new ArrayList<>();
+
+    // Fábrica de cada player emprestado
+    private final Map<EmbeddedMediaPlayer, Integer> owners = new IdentityHashMap<>();
+
+    private boolean shutdown = false;
+
+    /**
+     * @return Pool compartilhado, com as opções padrão de RTSP
+     */
+    public static MediaPlayerFactoryPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param size Número máximo de instâncias do libVLC
+     * @param options Opções do libVLC de todas as fábricas
+     */
+    public MediaPlayerFactoryPool(int size, String... options) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Tamanho do pool inválido: " + size);
+        }
+        this.options = options.clone();
+        this.factories = new MediaPlayerFactory[size];
+        this.playerCounts = new int[size];
+    }
+
+    /**
+     * Cria um player na fábrica com menos players (criando a fábrica se preciso)
+     * @return Novo player; deve ser devolvido com {@link #releasePlayer}
+     */
+    public synchronized EmbeddedMediaPlayer acquirePlayer() {
+        if (shutdown) {
+            throw new IllegalStateException("Pool de fábricas do VLC encerrado");
+        }
+
+        int slot = 0;
+        for (int i = 1; i < factories.length; i++) {
+            if (playerCounts[i] < playerCounts[slot]) {
+                slot = i;
+            }
+        }
+
+        if (factories[slot] == null) {
+            long start = System.nanoTime();
+            factories[slot] = new MediaPlayerFactory(options);
+            creationOrder.add(slot);
+            System.out.printf("MediaPlayerFactoryPool: instância %d do libVLC criada em %d ms%n",
+                    slot, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        EmbeddedMediaPlayer player = factories[slot].mediaPlayers().newEmbeddedMediaPlayer();
+        owners.put(player, slot);
+        playerCounts[slot]++;
+        return player;
+    }
+
+    /**
+     * Libera um player emprestado pelo pool. A fábrica continua aberta.
+     * @param player Player obtido em {@link #acquirePlayer}
+     */
+    public synchronized void releasePlayer(EmbeddedMediaPlayer player) {
+        Integer slot = owners.remove(player);
+        if (slot == null) {
+            return; // Já liberado (ou liberado pelo shutdown)
+        }
+        player.release();
+        playerCounts[slot]--;
+    }
+
+    /**
+     * Libera os players ainda emprestados e depois as fábricas, na ordem
+     * inversa da criação. Chamado no encerramento da aplicação.
+     */
+    public synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+
+        if (!owners.isEmpty()) {
+            System.out.println("MediaPlayerFactoryPool: liberando " + owners.size() + " player(s) ainda em uso");
+            for (EmbeddedMediaPlayer player : owners.keySet()) {
+                player.release();
+            }
+            owners.clear();
+        }
+
+        for (int i = creationOrder.size() - 1; i >= 0; i--) {
+            int slot = creationOrder.get(i);
+            factories[slot].release();
+            factories[slot] = null;
+            playerCounts[slot] = 0;
+        }
+        creationOrder.clear();
+        System.out.println("MediaPlayerFactoryPool: instâncias do libVLC liberadas");
+    }
+
+    /**
+     * @return Número de players emprestados
+     */
+    public synchronized int getPlayerCount() {
+        return owners.size();
+    }
+
+    /**
+     * @return Número de instâncias do libVLC abertas
+     */
+    public synchronized int getFactoryCount() {
+        return creationOrder.size();
+    }
+}
@@ -0,0 +1,125 @@
+package com.grupoverona.selfcheckout.media;
+
+import uk.co.caprica.vlcj.media.MediaStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Amostrador das estatísticas do VLC de todos os streams abertos.
+ *
+ * A cada intervalo, lê as estatísticas da mídia exibida por cada
+ * {@link VlcjMediaHandler} (rede, demux, decodificação e exibição) e os
+ * contadores de publicação da superfície, e grava a diferença na
+ * {@link MediaStatsWindow} do handler. Uma única thread virtual atende todos
+ * os streams, e cada leitura só copia os contadores que o VLC já mantém.
+ */
+public final class MediaStatsSampler {
+
+    // Intervalo entre amostras
+    private static final long SAMPLE_INTERVAL_MS = Long.getLong("selfcheckout.video.statsIntervalMs", 1000);
+
+    // Amostras resumidas na exportação de métricas (10 s no intervalo padrão)
+    private static final int SUMMARY_SAMPLES = Integer.getInteger("selfcheckout.video.statsSummarySamples", 10);
+
+    private static final MediaStatsSampler INSTANCE = new MediaStatsSampler();
+
+    private final List<StreamEntry> streams = new CopyOnWriteArrayList<>();
+
+    // Amostragem ativa enquanto houver streams registrados
+    private Thread sampler;
+
+    public static MediaStatsSampler getInstance() {
+        return INSTANCE;
+    }
+
+    private MediaStatsSampler() {
+    }
+
+    /**
+     * Passa a amostrar um stream; o primeiro inicia a amostragem
+     */
+    public synchronized void register(VlcjMediaHandler handler) {
+        for (StreamEntry stream : streams) {
+            if (stream.handler == handler) {
+                return;
+            }
+        }
+        streams.add(new StreamEntry(handler));
+
+        if (sampler == null) {
+            sampler = Thread.ofVirtual()
+                    .name("Estatisticas-Video")
+                    .unstarted(this::runSampler);
+            sampler.start();
+        }
+    }
+
+    /**
+     * Deixa de amostrar um stream; o último encerra a amostragem. Aguarda a
+     * amostra em andamento, então o player do handler já pode ser liberado
+     */
+    public synchronized void unregister(VlcjMediaHandler handler) {
+        streams.removeIf(stream -> stream.handler == handler);
+        if (streams.isEmpty() && sampler != null) {
+            sampler.interrupt();
+            sampler = null;
+        }
+    }
+
+    /**
+     * @return Estatísticas recentes de cada stream amostrado, para exportação de métricas
+     */
+    public List<VideoStreamStats> getStreamStats() {
+        List<VideoStreamStats> stats = new ArrayList<>();
+        for (StreamEntry stream : streams) {
+            stats.add(stream.handler.getStreamStats(SUMMARY_SAMPLES));
+        }
+        return stats;
+    }
+
+    private void runSampler() {
+        try {
+            while (true) {
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+
+                // Amostra sob o lock do unregister: quando ele retorna, nenhuma
+                // leitura do player removido está em andamento e o handler pode
+                // devolvê-lo ao pool
+                synchronized (this) {
+                    if (sampler != Thread.currentThread()) {
+                        return;
+                    }
+                    long now = System.nanoTime();
+                    for (StreamEntry stream : streams) {
+                        stream.sample(now);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // Encerrada pelo unregister
+        }
+    }
+
+    /**
+     * Stream amostrado e o buffer de leitura das suas estatísticas (apenas a thread de amostragem)
+     */
+    private static final class StreamEntry {
+        private final VlcjMediaHandler handler;
+        private final MediaStatistics statistics = new MediaStatistics();
+
+        StreamEntry(VlcjMediaHandler handler) {
+            this.handler = handler;
+        }
+
+        void sample(long now) {
+            MediaStatsWindow window = handler.getStatsWindow();
+            if (handler.readStatistics(statistics)) {
+                window.record(now, statistics, handler.getRenderedFrames(), handler.getSkippedFrames());
+            } else {
+                window.markIdle();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.grupoverona.selfcheckout.media;
+
+import uk.co.caprica.vlcj.media.MediaStatistics;
+
+/**
+ * Janela circular das últimas amostras de estatísticas de um stream.
+ *
+ * O VLC informa contadores acumulados desde a abertura da mídia; cada amostra
+ * guarda só a diferença para a anterior, em arrays primitivos de tamanho fixo
+ * (nenhuma alocação por amostra). Se a mídia é reaberta (contadores voltam a
+ * zero) ou o stream para, a próxima amostra apenas recomeça a base.
+ *
+ * Gravada pela thread do {@link MediaStatsSampler} e lida pela interface e
+ * pela exportação de métricas; todos os métodos são sincronizados.
+ */
+public final class MediaStatsWindow {
+
+    private final int capacity;
+
+    // Diferenças de cada amostra, na ordem de gravação (head = mais antiga)
+    private final int[] intervalMs;
+    private final long[] inputBytes;
+    private final long[] demuxBytes;
+    private final int[] corrupted;
+    private final int[] discontinuities;
+    private final int[] decoded;
+    private final int[] displayed;
+    private final int[] lost;
+    private final int[] published;
+    private final int[] skipped;
+    private int head = 0;
+    private int size = 0;
+
+    // Contadores acumulados da amostra anterior (baseNanos = 0: sem base)
+    private long baseNanos;
+    private long lastInputBytes;
+    private long lastDemuxBytes;
+    private long lastCorrupted;
+    private long lastDiscontinuities;
+    private long lastDecoded;
+    private long lastDisplayed;
+    private long lastLost;
+    private long lastPublished;
+    private long lastSkipped;
+
+    /**
+     * @param capacity Número de amostras mantidas
+     */
+    public MediaStatsWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        this.intervalMs = new int[capacity];
+        this.inputBytes = new long[capacity];
+        this.demuxBytes = new long[capacity];
+        this.corrupted = new int[capacity];
+        this.discontinuities = new int[capacity];
+        this.decoded = new int[capacity];
+        this.displayed = new int[capacity];
+        this.lost = new int[capacity];
+        this.published = new int[capacity];
+        this.skipped = new int[capacity];
+    }
+
+    /**
+     * Registra uma amostra dos contadores acumulados
+     * @param nanos Instante da amostra (System.nanoTime())
+     * @param statistics Estatísticas da mídia lidas do VLC
+     * @param publishedTotal Quadros publicados na cena (acumulado)
+     * @param skippedTotal Quadros não publicados (acumulado)
+     */
+    public synchronized void record(long nanos, MediaStatistics statistics, long publishedTotal, long skippedTotal) {
+        long decodedNow = statistics.decodedVideo();
+        long inputNow = statistics.inputBytesRead();
+
+        // Sem base, ou mídia reaberta: só guarda os contadores
+        if (baseNanos != 0 && decodedNow >= lastDecoded && inputNow >= lastInputBytes) {
+            int slot = (head + size) % capacity;
+            if (size == capacity) {
+                head = (head + 1) % capacity;
+            } else {
+                size++;
+            }
+
+            intervalMs[slot] = (int) Math.min(Integer.MAX_VALUE, (nanos - baseNanos) / 1_000_000);
+            inputBytes[slot] = inputNow - lastInputBytes;
+            demuxBytes[slot] = Math.max(0, statistics.demuxBytesRead() - lastDemuxBytes);
+            corrupted[slot] = delta(statistics.demuxCorrupted(), lastCorrupted);
+            discontinuities[slot] = delta(statistics.demuxDiscontinuity(), lastDiscontinuities);
+            decoded[slot] = delta(decodedNow, lastDecoded);
+            displayed[slot] = delta(statistics.picturesDisplayed(), lastDisplayed);
+            lost[slot] = delta(statistics.picturesLost(), lastLost);
+            published[slot] = delta(publishedTotal, lastPublished);
+            skipped[slot] = delta(skippedTotal, lastSkipped);
+        }
+
+        baseNanos = nanos;
+        lastInputBytes = inputNow;
+        lastDemuxBytes = statistics.demuxBytesRead();
+        lastCorrupted = statistics.demuxCorrupted();
+        lastDiscontinuities = statistics.demuxDiscontinuity();
+        lastDecoded = decodedNow;
+        lastDisplayed = statistics.picturesDisplayed();
+        lastLost = statistics.picturesLost();
+        lastPublished = publishedTotal;
+        lastSkipped = skippedTotal;
+    }
+
+    /**
+     * Stream parado ou suspenso: a próxima amostra recomeça a base
+     */
+    public synchronized void markIdle() {
+        baseNanos = 0;
+    }
+
+    /**
+     * Resume as amostras mais recentes
+     * @param url URL do stream, repassada ao resultado
+     * @param profile Perfil de latência, repassado ao resultado
+     * @param samples Número de amostras resumidas (limitado às disponíveis)
+     */
+    public synchronized VideoStreamStats summary(String url, LatencyProfile profile, int samples) {
+        int count = Math.min(Math.max(samples, 0), size);
+        long totalMs = 0;
+        long input = 0;
+        long demux = 0;
+        long corruptedSum = 0;
+        long discontinuitySum = 0;
+        long decodedSum = 0;
+        long displayedSum = 0;
+        long lostSum = 0;
+        long publishedSum = 0;
+        long skippedSum = 0;
+
+        for (int i = size - count; i < size; i++) {
+            int slot = (head + i) % capacity;
+            totalMs += intervalMs[slot];
+            input += inputBytes[slot];
+            demux += demuxBytes[slot];
+            corruptedSum += corrupted[slot];
+            discontinuitySum += discontinuities[slot];
+            decodedSum += decoded[slot];
+            displayedSum += displayed[slot];
+            lostSum += lost[slot];
+            publishedSum += published[slot];
+            skippedSum += skipped[slot];
+        }
+
+        double seconds = Math.max(1, totalMs) / 1000.0;
+        return new VideoStreamStats(url, profile, totalMs,
+                input * 8 / 1000.0 / seconds, demux * 8 / 1000.0 / seconds, corruptedSum, discontinuitySum,
+                decodedSum / seconds, displayedSum / seconds, lostSum / seconds,
+                publishedSum / seconds, skippedSum / seconds);
+    }
+
+    /**
+     * @return Número de amostras guardadas
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Número máximo de amostras
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Descarta as amostras e a base
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+        baseNanos = 0;
+    }
+
+    private static int delta(long now, long last) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, now - last));
+    }
+}
@@ -0,0 +1,220 @@
+package com.grupoverona.selfcheckout.media;
+
+import javafx.application.Platform;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.embedded.videosurface.CallbackVideoSurface;
+import uk.co.caprica.vlcj.player.embedded.videosurface.VideoSurfaceAdapters;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.BufferFormat;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.BufferFormatCallback;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.RenderCallback;
+import uk.co.caprica.vlcj.player.embedded.videosurface.callback.format.RV32BufferFormat;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Superfície de vídeo do VLC que decodifica direto na memória de um
+ * {@link PixelBuffer} BGRA pré-multiplicado, exibido por um ImageView, sem
+ * cópia do quadro para uma imagem JavaFX.
+ *
+ * A cada quadro decodificado, a superfície decide se o publica na cena: no
+ * máximo um quadro por intervalo do limite de fps, e nenhum enquanto a
+ * publicação anterior ainda não foi atendida pela thread do JavaFX. Quadros
+ * não publicados são apenas contados; o VLC continua decodificando no mesmo
+ * buffer, e o próximo quadro publicado já traz a imagem mais recente.
+ *
+ * Com um tamanho alvo definido, o buffer é negociado nesse tamanho (nunca
+ * maior que o vídeo) e o VLC reduz a imagem nas suas próprias threads, antes
+ * da cópia para o buffer; o JavaFX só ajusta a diferença restante. O tamanho
+ * vale a partir da próxima negociação, isto é, da próxima mídia aberta.
+ */
+public class PixelBufferVideoSurface extends CallbackVideoSurface {
+
+    private final Callbacks callbacks;
+
+    /**
+     * @param imageView ImageView que exibirá o vídeo
+     */
+    public PixelBufferVideoSurface(ImageView imageView) {
+        this(new Callbacks(imageView));
+    }
+
+    private PixelBufferVideoSurface(Callbacks callbacks) {
+        super(callbacks, callbacks, true, VideoSurfaceAdapters.getVideoSurfaceAdapter());
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Limita os quadros publicados na cena
+     * @param fps Quadros por segundo, ou 0 para publicar na taxa da câmera
+     */
+    public void setMaxFps(double fps) {
+        callbacks.minIntervalNanos = fps > 0 ? (long) (1_000_000_000L / fps) : 0;
+    }
+
+    /**
+     * Define o tamanho dos quadros pedidos ao VLC na próxima negociação
+     * @param width Largura em pixels da tela, ou 0 para o tamanho do vídeo
+     * @param height Altura em pixels da tela, ou 0 para o tamanho do vídeo
+     */
+    public void setTargetSize(int width, int height) {
+        callbacks.targetWidth = width;
+        callbacks.targetHeight = height;
+    }
+
+    /**
+     * @return Largura do vídeo na última negociação (0 antes da primeira)
+     */
+    public int getSourceWidth() {
+        return callbacks.sourceWidth;
+    }
+
+    /**
+     * @return Altura do vídeo na última negociação (0 antes da primeira)
+     */
+    public int getSourceHeight() {
+        return callbacks.sourceHeight;
+    }
+
+    /**
+     * @return Largura do buffer negociado (0 antes da primeira negociação)
+     */
+    public int getBufferWidth() {
+        return callbacks.bufferWidth;
+    }
+
+    /**
+     * @return Altura do buffer negociado (0 antes da primeira negociação)
+     */
+    public int getBufferHeight() {
+        return callbacks.bufferHeight;
+    }
+
+    /**
+     * @return Limite de quadros por segundo (0 = taxa da câmera)
+     */
+    public double getMaxFps() {
+        long interval = callbacks.minIntervalNanos;
+        return interval == 0 ? 0 : 1_000_000_000.0 / interval;
+    }
+
+    /**
+     * Agenda uma ação para logo após o primeiro quadro publicado de uma nova
+     * mídia (buffer alocado depois desta chamada), na thread do JavaFX. Usado
+     * para trocar de player só quando o novo stream já tem imagem.
+     * @param action Ação executada uma vez, ou null para cancelar a pendente
+     */
+    public void onNextFrame(Runnable action) {
+        callbacks.staleBuffer = callbacks.pixelBuffer;
+        callbacks.nextFrameAction = action;
+    }
+
+    /**
+     * @return Quadros publicados na cena
+     */
+    public long getRenderedFrames() {
+        return callbacks.rendered.sum();
+    }
+
+    /**
+     * @return Quadros decodificados e não publicados (limite de fps ou cena atrasada)
+     */
+    public long getSkippedFrames() {
+        return callbacks.skipped.sum();
+    }
+
+    /**
+     * Callbacks do VLC: formato do buffer e exibição de cada quadro
+     */
+    private static final class Callbacks implements BufferFormatCallback, RenderCallback {
+        private final ImageView imageView;
+
+        // Tamanho pedido para a próxima negociação (0 = tamanho do vídeo)
+        private volatile int targetWidth;
+        private volatile int targetHeight;
+
+        // Dimensões do vídeo e do buffer negociadas com o VLC
+        private volatile int sourceWidth;
+        private volatile int sourceHeight;
+        private volatile int bufferWidth;
+        private volatile int bufferHeight;
+
+        // Buffer atual; trocado quando o formato do vídeo muda
+        private volatile PixelBuffer<ByteBuffer> pixelBuffer;
+
+        // Limite de publicação e instante da última publicada
+        private volatile long minIntervalNanos;
+        private long lastPublishNanos;
+
+        // Publicação agendada e ainda não executada pela thread do JavaFX
+        private final AtomicBoolean publishPending = new AtomicBoolean();
+
+        // Ação única após o primeiro quadro de um buffer diferente do antigo
+        private volatile Runnable nextFrameAction;
+        private volatile PixelBuffer<ByteBuffer> staleBuffer;
+
+        private final LongAdder rendered = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+
+        Callbacks(ImageView imageView) {
+            this.imageView = imageView;
+        }
+
+        @Override
+        public BufferFormat getBufferFormat(int sourceWidth, int sourceHeight) {
+            this.sourceWidth = sourceWidth;
+            this.sourceHeight = sourceHeight;
+
+            // Reduz até o tamanho da tela, sem ampliar; largura múltipla de 8 e altura par
+            int width = sourceWidth;
+            int height = sourceHeight;
+            if (targetWidth > 0 && targetHeight > 0) {
+                width = Math.max(8, Math.min(sourceWidth, targetWidth) & ~7);
+                height = Math.max(2, Math.min(sourceHeight, targetHeight) & ~1);
+            }
+
+            bufferWidth = width;
+            bufferHeight = height;
+            return new RV32BufferFormat(width, height);
+        }
+
+        @Override
+        public void allocatedBuffers(ByteBuffer[] buffers) {
+            // RV32 é BGRA na memória; o alfa é sempre opaco, então serve como pré-multiplicado
+            PixelBuffer<ByteBuffer> buffer = new PixelBuffer<>(bufferWidth, bufferHeight, buffers[0],
+                    PixelFormat.getByteBgraPreInstance());
+            pixelBuffer = buffer;
+            Platform.runLater(() -> imageView.setImage(new WritableImage(buffer)));
+        }
+
+        @Override
+        public void display(MediaPlayer mediaPlayer, ByteBuffer[] nativeBuffers, BufferFormat bufferFormat) {
+            long now = System.nanoTime();
+            PixelBuffer<ByteBuffer> buffer = pixelBuffer;
+            if (buffer == null || now - lastPublishNanos < minIntervalNanos
+                    || !publishPending.compareAndSet(false, true)) {
+                skipped.increment();
+                return;
+            }
+
+            lastPublishNanos = now;
+            Platform.runLater(() -> {
+                publishPending.set(false);
+                buffer.updateBuffer(pb -> null);
+                rendered.increment();
+
+                Runnable action = nextFrameAction;
+                if (action != null && buffer != staleBuffer) {
+                    nextFrameAction = null;
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.grupoverona.selfcheckout.media;
+
+/**
+ * Relógio de reprodução de um player: associa instantes da JVM
+ * (System.nanoTime(), a mesma base dos eventos do PDV) ao tempo da mídia
+ * exibido naquele instante.
+ *
+ * Cada aviso de tempo do VLC vira uma âncora (instante, tempo da mídia) em
+ * arrays primitivos circulares. Para converter um instante, a busca binária
+ * encontra a última âncora até ele e extrapola a partir dela; pausas e saltos
+ * da reprodução ficam registrados nas próprias âncoras.
+ *
+ * Escrito pela thread de eventos do VLC e lido pela thread do JavaFX.
+ */
+public final class PlaybackClock {
+
+    // Extrapolação máxima além da última âncora (o VLC avisa várias vezes por segundo)
+    private static final long MAX_EXTRAPOLATION_NANOS = 2_000_000_000L;
+
+    private final long[] anchorNanos;
+    private final long[] mediaTimesMs;
+
+    // Posição física da âncora mais antiga e número de âncoras no anel
+    private int head;
+    private int size;
+
+    /**
+     * @param capacity Número máximo de âncoras mantidas (cerca de 4 por segundo de reprodução)
+     */
+    public PlaybackClock(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        this.anchorNanos = new long[capacity];
+        this.mediaTimesMs = new long[capacity];
+    }
+
+    /**
+     * Registra o tempo da mídia exibido agora
+     * @param nanos Instante do aviso (System.nanoTime())
+     * @param mediaTimeMs Tempo da mídia em milissegundos
+     */
+    public synchronized void anchor(long nanos, long mediaTimeMs) {
+        if (size > 0) {
+            int last = physical(size - 1);
+            if (mediaTimesMs[last] == mediaTimeMs) {
+                return; // Pausado: a âncora anterior já cobre este tempo
+            }
+            nanos = Math.max(nanos, anchorNanos[last]);
+        }
+
+        int slot;
+        if (size < anchorNanos.length) {
+            slot = physical(size++);
+        } else {
+            slot = head;
+            head = head + 1 == anchorNanos.length ? 0 : head + 1;
+        }
+        anchorNanos[slot] = nanos;
+        mediaTimesMs[slot] = mediaTimeMs;
+    }
+
+    /**
+     * Tempo da mídia exibido no instante informado
+     * @param nanos Instante (System.nanoTime())
+     * @return Tempo da mídia em milissegundos, ou -1 se o instante é anterior
+     * às âncoras mantidas ou muito posterior à última
+     */
+    public synchronized long mediaTimeAt(long nanos) {
+        // Última âncora até o instante
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (anchorNanos[physical(mid)] <= nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int index = low - 1;
+        if (index < 0) {
+            return -1;
+        }
+
+        int slot = physical(index);
+        long elapsedNanos = nanos - anchorNanos[slot];
+        if (index + 1 == size && elapsedNanos > MAX_EXTRAPOLATION_NANOS) {
+            return -1; // Reprodução parada desde a última âncora
+        }
+        long mediaTime = mediaTimesMs[slot] + Math.min(elapsedNanos, MAX_EXTRAPOLATION_NANOS) / 1_000_000;
+
+        if (index + 1 < size) {
+            // Entre duas âncoras: não passa do tempo da seguinte (pausa ou salto adiante)
+            long next = mediaTimesMs[physical(index + 1)];
+            if (next >= mediaTimesMs[slot]) {
+                mediaTime = Math.min(mediaTime, next);
+            }
+        }
+        return mediaTime;
+    }
+
+    /**
+     * @return Instante da âncora mais antiga, ou Long.MIN_VALUE se vazio
+     */
+    public synchronized long oldestNanos() {
+        return size == 0 ? Long.MIN_VALUE : anchorNanos[head];
+    }
+
+    /**
+     * @return Número de âncoras mantidas
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Descarta as âncoras (nova mídia, novo relógio)
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private int physical(int logical) {
+        int slot = head + logical;
+        return slot >= anchorNanos.length ? slot - anchorNanos.length : slot;
+    }
+}
@@ -0,0 +1,266 @@
+package com.grupoverona.selfcheckout.media;
+
+import javafx.application.Platform;
+
+import uk.co.caprica.vlcj.media.MediaStatistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Controlador de latência dos streams abertos.
+ *
+ * A cada segundo, mede por stream os quadros decodificados e perdidos pelo VLC
+ * e o atraso acumulado (tempo de parede menos o avanço do tempo da mídia: um
+ * stream ao vivo que não acompanha a câmera avança mais devagar que o relógio).
+ * Mede também a CPU do processo contra um orçamento único, compartilhado por
+ * todos os streams.
+ *
+ * - Stream sob pressão (perdas ou atraso crescendo) ou CPU acima do orçamento:
+ *   o stream mais atrasado (ou, só por CPU, o mais pesado) passa ao perfil
+ *   LOW_LATENCY
+ * - Folga de CPU e stream estável por um tempo: volta ao perfil SMOOTH, o mais
+ *   leve primeiro, se a estimativa do seu custo couber no orçamento
+ *
+ * No máximo uma troca de perfil por ciclo, e cada stream espera um intervalo
+ * depois de trocar, para o sistema não oscilar.
+ */
+public final class StreamLatencyController {
+
+    // Orçamento de CPU do processo (fração de todos os núcleos) e folga para voltar ao perfil suave
+    private static final double CPU_BUDGET = Double.parseDouble(System.getProperty("selfcheckout.video.cpuBudget", "0.80"));
+    private static final double CPU_HEADROOM = 0.15;
+
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    // Sinais de pressão e de estabilidade por stream
+    private static final double LOST_RATIO_HIGH = 0.05;
+    private static final double LOST_RATIO_LOW = 0.01;
+    private static final long LAG_HIGH_MS = 1500;
+    private static final long LAG_LOW_MS = 300;
+    private static final int PRESSURE_SAMPLES = 2;
+    private static final int HEALTHY_SAMPLES = 15;
+
+    // Intervalo mínimo entre trocas de perfil do mesmo stream
+    private static final long SWITCH_COOLDOWN_NANOS = 10_000_000_000L;
+
+    private static final StreamLatencyController INSTANCE = new StreamLatencyController();
+
+    private final List<StreamState> streams = new CopyOnWriteArrayList<>();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+    // Amostragem ativa enquanto houver streams registrados
+    private Thread sampler;
+
+    public static StreamLatencyController getInstance() {
+        return INSTANCE;
+    }
+
+    private StreamLatencyController() {
+    }
+
+    /**
+     * Passa a acompanhar um stream; o primeiro inicia a amostragem
+     */
+    public synchronized void register(VlcjMediaHandler handler) {
+        for (StreamState stream : streams) {
+            if (stream.handler == handler) {
+                return;
+            }
+        }
+        streams.add(new StreamState(handler));
+
+        if (sampler == null) {
+            sampler = Thread.ofVirtual()
+                    .name("Latencia-Video")
+                    .unstarted(this::runSampler);
+            sampler.start();
+        }
+    }
+
+    /**
+     * Deixa de acompanhar um stream; o último encerra a amostragem. Aguarda a
+     * amostra em andamento, então o player do handler já pode ser liberado
+     */
+    public synchronized void unregister(VlcjMediaHandler handler) {
+        streams.removeIf(stream -> stream.handler == handler);
+        if (streams.isEmpty() && sampler != null) {
+            sampler.interrupt();
+            sampler = null;
+        }
+    }
+
+    /**
+     * @return CPU do processo (0 a 1, todos os núcleos), ou -1 se a JVM não informa
+     */
+    public double getProcessCpuLoad() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            return sunOs.getProcessCpuLoad();
+        }
+        return -1;
+    }
+
+    private void runSampler() {
+        try {
+            while (true) {
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+
+                // Amostra sob o lock do unregister: quando ele retorna, nenhuma
+                // leitura do player removido está em andamento e o handler pode
+                // devolvê-lo ao pool
+                synchronized (this) {
+                    if (sampler != Thread.currentThread()) {
+                        return;
+                    }
+                    sample(System.nanoTime());
+                }
+            }
+        } catch (InterruptedException e) {
+            // Encerrada pelo unregister
+        }
+    }
+
+    /**
+     * Amostra todos os streams e aplica no máximo uma troca de perfil
+     */
+    private void sample(long now) {
+        int playing = 0;
+        for (StreamState stream : streams) {
+            if (stream.sample(now)) {
+                playing++;
+            }
+        }
+        if (playing == 0) {
+            return;
+        }
+
+        double cpu = getProcessCpuLoad();
+        boolean overBudget = cpu > CPU_BUDGET;
+
+        // Degrada: o stream suave mais atrasado; só por CPU, o que mais decodifica
+        StreamState degrade = null;
+        for (StreamState stream : streams) {
+            if (!stream.canSwitch(now, LatencyProfile.SMOOTH)) {
+                continue;
+            }
+            if (stream.pressureSamples >= PRESSURE_SAMPLES) {
+                if (degrade == null || degrade.pressureSamples < PRESSURE_SAMPLES || stream.lagMs > degrade.lagMs) {
+                    degrade = stream;
+                }
+            } else if (overBudget && (degrade == null
+                    || (degrade.pressureSamples < PRESSURE_SAMPLES && stream.decodedPerSecond > degrade.decodedPerSecond))) {
+                degrade = stream;
+            }
+        }
+        if (degrade != null) {
+            degrade.apply(now, LatencyProfile.LOW_LATENCY, String.format(
+                    "perdidos %.0f%%, atraso %d ms, CPU %.0f%%", degrade.lostRatio * 100, degrade.lagMs, cpu * 100));
+            return;
+        }
+
+        // Restaura: com folga, o stream estável mais leve, se o custo estimado couber
+        if (cpu < 0 || cpu > CPU_BUDGET - CPU_HEADROOM) {
+            return;
+        }
+        StreamState restore = null;
+        for (StreamState stream : streams) {
+            if (stream.canSwitch(now, LatencyProfile.LOW_LATENCY) && stream.healthySamples >= HEALTHY_SAMPLES
+                    && (restore == null || stream.decodedPerSecond < restore.decodedPerSecond)) {
+                restore = stream;
+            }
+        }
+        if (restore != null && cpu + cpu / playing <= CPU_BUDGET) {
+            restore.apply(now, LatencyProfile.SMOOTH, String.format("CPU %.0f%%", cpu * 100));
+        }
+    }
+
+    /**
+     * Medidas de um stream entre amostras (apenas a thread de amostragem)
+     */
+    private static final class StreamState {
+        private final VlcjMediaHandler handler;
+        private final MediaStatistics statistics = new MediaStatistics();
+
+        // Amostra anterior (wallNanos = 0: sem base)
+        private long wallNanos;
+        private long mediaTimeMs;
+        private long decoded;
+        private long lost;
+
+        // Resultado da última amostra
+        private double lostRatio;
+        private double decodedPerSecond;
+        private long lagMs;
+        private int pressureSamples;
+        private int healthySamples;
+
+        private long lastSwitchNanos = Long.MIN_VALUE;
+
+        StreamState(VlcjMediaHandler handler) {
+            this.handler = handler;
+        }
+
+        /**
+         * @return false se o stream não está em exibição
+         */
+        boolean sample(long now) {
+            long mediaTime = handler.currentMediaTimeMs();
+            if (mediaTime < 0 || !handler.readStatistics(statistics)) {
+                reset();
+                return false;
+            }
+
+            long decodedNow = statistics.decodedVideo();
+            long lostNow = statistics.picturesLost();
+
+            // Mídia reaberta (troca de stream ou perfil): recomeça a base
+            if (wallNanos == 0 || mediaTime < mediaTimeMs || decodedNow < decoded) {
+                wallNanos = now;
+                mediaTimeMs = mediaTime;
+                decoded = decodedNow;
+                lost = lostNow;
+                lagMs = 0;
+                return true;
+            }
+
+            long wallDeltaMs = (now - wallNanos) / 1_000_000;
+            long decodedDelta = decodedNow - decoded;
+            lostRatio = (double) (lostNow - lost) / Math.max(1, decodedDelta + (lostNow - lost));
+            decodedPerSecond = decodedDelta * 1000.0 / Math.max(1, wallDeltaMs);
+            lagMs = Math.max(0, lagMs + wallDeltaMs - (mediaTime - mediaTimeMs));
+
+            boolean pressure = lostRatio > LOST_RATIO_HIGH || lagMs > LAG_HIGH_MS;
+            boolean healthy = lostRatio < LOST_RATIO_LOW && lagMs < LAG_LOW_MS;
+            pressureSamples = pressure ? pressureSamples + 1 : 0;
+            healthySamples = healthy ? healthySamples + 1 : 0;
+
+            wallNanos = now;
+            mediaTimeMs = mediaTime;
+            decoded = decodedNow;
+            lost = lostNow;
+            return true;
+        }
+
+        boolean canSwitch(long now, LatencyProfile from) {
+            return wallNanos != 0 && handler.getLatencyProfile() == from
+                    && (lastSwitchNanos == Long.MIN_VALUE || now - lastSwitchNanos >= SWITCH_COOLDOWN_NANOS);
+        }
+
+        void apply(long now, LatencyProfile profile, String reason) {
+            lastSwitchNanos = now;
+            pressureSamples = 0;
+            healthySamples = 0;
+            System.out.println("StreamLatencyController: perfil " + profile + " (" + reason + ")");
+            Platform.runLater(() -> handler.setLatencyProfile(profile));
+        }
+
+        private void reset() {
+            wallNanos = 0;
+            lagMs = 0;
+            pressureSamples = 0;
+            healthySamples = 0;
+        }
+    }
+}
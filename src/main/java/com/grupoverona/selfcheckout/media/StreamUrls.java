@@ -0,0 +1,39 @@
+package com.grupoverona.selfcheckout.media;
+
+/**
+ * URLs de uma câmera: o stream principal (alta resolução) e, opcionalmente,
+ * o substream de baixa resolução exibido enquanto o quadrante está na grade.
+ *
+ * @param primary Stream principal
+ * @param secondary Substream, ou null se a câmera foi configurada com uma URL só
+ */
+public record StreamUrls(String primary, String secondary) {
+
+    /**
+     * Lê o texto digitado no campo da câmera: "principal" ou "principal substream",
+     * separados por espaço ou ';'
+     * @return URLs da câmera, ou null se o texto está vazio
+     */
+    public static StreamUrls parse(String text) {
+        String[] parts = text.trim().split("[\\s;]+");
+        if (parts[0].isEmpty()) {
+            return null;
+        }
+        return new StreamUrls(parts[0], parts.length > 1 ? parts[1] : null);
+    }
+
+    /**
+     * @return Se a câmera tem substream
+     */
+    public boolean hasSecondary() {
+        return secondary != null;
+    }
+
+    /**
+     * @param expanded Se o quadrante está em tela cheia
+     * @return Stream principal em tela cheia (ou sem substream), substream na grade
+     */
+    public String forExpanded(boolean expanded) {
+        return expanded || secondary == null ? primary : secondary;
+    }
+}
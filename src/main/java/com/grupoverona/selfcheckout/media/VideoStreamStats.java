@@ -0,0 +1,24 @@
+package com.grupoverona.selfcheckout.media;
+
+/**
+ * Estatísticas de um stream de vídeo na janela recente de amostras, separadas
+ * por etapa: rede (entrada e demux), decodificador e publicação na cena.
+ *
+ * @param url URL do stream exibido (null se nenhum)
+ * @param profile Perfil de latência do stream
+ * @param windowMs Duração coberta pelas amostras, em ms (0 sem amostras)
+ * @param inputKbps Taxa de entrada da rede, em kbit/s
+ * @param demuxKbps Taxa entregue pelo demux, em kbit/s
+ * @param demuxCorrupted Pacotes corrompidos descartados pelo demux na janela
+ * @param discontinuities Descontinuidades do demux na janela (pacotes faltando no stream)
+ * @param decodedFps Quadros decodificados por segundo
+ * @param displayedFps Quadros entregues pelo VLC à superfície de vídeo por segundo
+ * @param lostFps Quadros perdidos pelo VLC por segundo (atrasados ou descartados antes da exibição)
+ * @param publishedFps Quadros publicados na cena por segundo
+ * @param skippedFps Quadros não publicados por segundo (limite de fps ou cena atrasada)
+ */
+public record VideoStreamStats(String url, LatencyProfile profile, long windowMs,
+                               double inputKbps, double demuxKbps, long demuxCorrupted, long discontinuities,
+                               double decodedFps, double displayedFps, double lostFps,
+                               double publishedFps, double skippedFps) {
+}
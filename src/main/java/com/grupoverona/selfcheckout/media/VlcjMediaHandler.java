@@ -5,48 +5,82 @@ import javafx.scene.control.Label;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 
-import uk.co.caprica.vlcj.factory.MediaPlayerFactory;
-import uk.co.caprica.vlcj.javafx.videosurface.ImageViewVideoSurface;
+import uk.co.caprica.vlcj.media.InfoApi;
+import uk.co.caprica.vlcj.media.MediaStatistics;
 import uk.co.caprica.vlcj.player.base.MediaPlayer;
 import uk.co.caprica.vlcj.player.base.MediaPlayerEventAdapter;
 import uk.co.caprica.vlcj.player.embedded.EmbeddedMediaPlayer;
 
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 /**
  * Gerenciador de mídia que utiliza a biblioteca VLCj para
  * reprodução de streams RTSP em componentes JavaFX.
+ * O player vem do {@link MediaPlayerFactoryPool}, compartilhado entre os quadrantes.
  */
 public class VlcjMediaHandler {
 
-    // Opções padrão para otimização de streaming RTSP
-    private static final String[] VLC_OPTIONS = {
-            "--no-video-title-show",   // Não mostra título do vídeo
-            "--quiet",                 // Reduz logs do VLC
-            "--quiet-synchro",         // Reduz logs de sincronização
-            "--network-caching=1000",  // 1000ms de buffer para estabilidade da rede
-            "--rtsp-caching=300",      // 300ms de buffer específico para RTSP
-            "--rtsp-tcp",              // Força uso de TCP para RTSP (mais estável)
-            "--no-drop-late-frames"    // Não descarta frames atrasados
-    };
+    // Âncoras do relógio de reprodução (o VLC avisa o tempo ~4x por segundo: ~30 min)
+    private static final int PLAYBACK_CLOCK_ANCHORS = 8192;
 
-    // Componentes VLC
-    private MediaPlayerFactory mediaPlayerFactory;
-    private EmbeddedMediaPlayer mediaPlayer;
+    // Diferença de tamanho (10%) a partir da qual o buffer de vídeo é renegociado
+    private static final double RESIZE_TOLERANCE = 0.10;
 
-    // Componente JavaFX para exibição
-    private ImageView imageView;
+    // Buffer de rede ao retomar um stream suspenso (menor que o padrão, para voltar rápido)
+    private static final long RESUME_CACHING_MS = Long.getLong("selfcheckout.video.resumeCachingMs", 300);
+
+    // Amostras de estatísticas mantidas por stream (1 min no intervalo padrão)
+    private static final int STATS_WINDOW_SAMPLES = Integer.getInteger("selfcheckout.video.statsWindow", 60);
+
+    // Componentes VLC: os players são emprestados do pool de instâncias do libVLC
+    private final MediaPlayerFactoryPool playerPool;
+
+    // Player exibido e player reserva (criado na primeira troca de stream), que
+    // abre o novo stream escondido e só assume a tela quando já tem imagem
+    private volatile VideoSlot activeSlot;
+    private VideoSlot standbySlot;
+
+    // Painel onde o vídeo é exibido
+    private AnchorPane videoPane;
+
+    // Decodificação parada enquanto o quadrante está fora da tela
+    private volatile boolean suspended = false;
+
+    // Perfil de latência das mídias abertas (ajustado pelo StreamLatencyController)
+    private volatile LatencyProfile latencyProfile = LatencyProfile.SMOOTH;
+
+    // Tamanho do painel em pixels da tela, pedido ao VLC para os quadros (0 = tamanho do vídeo)
+    private int targetWidth = 0;
+    private int targetHeight = 0;
+
+    // Limite de quadros publicados na cena (0 = taxa da câmera)
+    private volatile double maxFps = 0;
 
     // Callback para logs
     private Consumer<String> logCallback;
 
+    // Relógio de reprodução: instante da JVM -> tempo da mídia exibido
+    private final PlaybackClock playbackClock = new PlaybackClock(PLAYBACK_CLOCK_ANCHORS);
+
+    // Estatísticas recentes do VLC (gravadas pelo MediaStatsSampler)
+    private final MediaStatsWindow statsWindow = new MediaStatsWindow(STATS_WINDOW_SAMPLES);
+
     /**
-     * Inicializa o manipulador de mídia
+     * Inicializa o manipulador de mídia com o pool compartilhado
      */
     public VlcjMediaHandler() {
+        this(MediaPlayerFactoryPool.getInstance());
+    }
+
+    /**
+     * Inicializa o manipulador de mídia
+     * @param playerPool Pool de onde os players são emprestados
+     */
+    public VlcjMediaHandler(MediaPlayerFactoryPool playerPool) {
+        this.playerPool = playerPool;
         try {
-            mediaPlayerFactory = new MediaPlayerFactory(VLC_OPTIONS);
-            mediaPlayer = mediaPlayerFactory.mediaPlayers().newEmbeddedMediaPlayer();
+            activeSlot = new VideoSlot(playerPool.acquirePlayer());
             log("Inicializado VLCj Media Handler");
         } catch (Exception e) {
             log("Erro ao inicializar VLCj: " + e.getMessage());
@@ -68,15 +102,21 @@ public class VlcjMediaHandler {
      */
     public void connectToStream(String url, AnchorPane videoPane) {
         stop();
+        playbackClock.clear();
+        statsWindow.clear();
+        suspended = false;
 
         try {
             log("Iniciando conexão com: " + url);
 
             Platform.runLater(() -> {
                 setupVideoPane(videoPane);
-                setupMediaPlayerEvents();
-                mediaPlayer.media().play(url);
+                activeSlot.play(url);
             });
+
+            // Acompanha atraso e quadros perdidos deste stream
+            StreamLatencyController.getInstance().register(this);
+            MediaStatsSampler.getInstance().register(this);
         } catch (Exception e) {
             log("Erro ao conectar ao stream: " + e.getMessage());
             e.printStackTrace();
@@ -85,13 +125,233 @@ public class VlcjMediaHandler {
     }
 
     /**
-     * Configura o painel de vídeo com ImageView
+     * Troca o stream exibido sem tela preta: o player reserva abre a nova URL
+     * escondido, e o quadro atual fica na tela até o novo stream publicar o
+     * primeiro quadro. Deve ser chamado na thread do JavaFX, após connectToStream.
+     * @param url URL do novo stream
+     */
+    public void switchStream(String url) {
+        VideoSlot active = activeSlot;
+        if (active == null || videoPane == null || suspended) {
+            return; // Suspenso: resume() já abre o stream certo
+        }
+
+        if (url.equals(active.url)) {
+            // Volta ao stream atual: cancela uma troca ainda pendente
+            if (standbySlot != null && standbySlot.url != null) {
+                standbySlot.stop();
+            }
+            return;
+        }
+
+        startOnStandby(url);
+        log("Trocando para: " + url);
+    }
+
+    /**
+     * Abre a URL no player reserva, escondido; ele assume a tela no primeiro quadro
+     */
+    private void startOnStandby(String url) {
+        if (standbySlot == null) {
+            standbySlot = new VideoSlot(playerPool.acquirePlayer());
+            standbySlot.surface.setTargetSize(targetWidth, targetHeight);
+            attachView(standbySlot.view, videoPane);
+        }
+
+        VideoSlot next = standbySlot;
+        next.view.setVisible(false);
+        next.surface.onNextFrame(() -> completeSwitch(next));
+        next.play(url);
+    }
+
+    /**
+     * Mede o painel em pixels da tela (considerando a escala do monitor) e
+     * define esse tamanho para as próximas negociações dos players
+     */
+    private void measureTargetSize(AnchorPane videoPane) {
+        double scaleX = 1.0;
+        double scaleY = 1.0;
+        if (videoPane.getScene() != null && videoPane.getScene().getWindow() != null) {
+            scaleX = videoPane.getScene().getWindow().getOutputScaleX();
+            scaleY = videoPane.getScene().getWindow().getOutputScaleY();
+        }
+
+        targetWidth = (int) Math.round(videoPane.getWidth() * scaleX);
+        targetHeight = (int) Math.round(videoPane.getHeight() * scaleY);
+
+        activeSlot.surface.setTargetSize(targetWidth, targetHeight);
+        if (standbySlot != null) {
+            standbySlot.surface.setTargetSize(targetWidth, targetHeight);
+        }
+    }
+
+    /**
+     * Se o buffer negociado pelo player exibido ficou longe do tamanho do
+     * painel, reabre o mesmo stream no player reserva com o novo tamanho; a
+     * troca acontece no primeiro quadro, sem tela preta
+     */
+    private void renegotiateSize() {
+        VideoSlot active = activeSlot;
+        if (suspended || active.url == null || (standbySlot != null && standbySlot.url != null)) {
+            return; // Parado, ou uma troca pendente já vai negociar com o tamanho novo
+        }
+
+        PixelBufferVideoSurface surface = active.surface;
+        int sourceWidth = surface.getSourceWidth();
+        int sourceHeight = surface.getSourceHeight();
+        if (sourceWidth == 0 || targetWidth <= 0 || targetHeight <= 0) {
+            return; // Ainda não negociado: a negociação já usará o tamanho novo
+        }
+
+        int expectedWidth = Math.min(sourceWidth, targetWidth);
+        int expectedHeight = Math.min(sourceHeight, targetHeight);
+        if (!differs(surface.getBufferWidth(), expectedWidth) && !differs(surface.getBufferHeight(), expectedHeight)) {
+            return;
+        }
+
+        log("Renegociando quadros: " + surface.getBufferWidth() + "x" + surface.getBufferHeight()
+                + " -> " + expectedWidth + "x" + expectedHeight);
+        startOnStandby(active.url);
+    }
+
+    private static boolean differs(int current, int expected) {
+        return Math.abs(current - expected) > current * RESIZE_TOLERANCE;
+    }
+
+    /**
+     * Para a decodificação enquanto o quadrante não está na tela (outro
+     * quadrante em tela cheia ou janela minimizada). O ImageView mantém o
+     * último quadro. Deve ser chamado na thread do JavaFX.
+     */
+    public void suspend() {
+        VideoSlot active = activeSlot;
+        if (suspended || active == null || active.url == null) {
+            return;
+        }
+
+        suspended = true;
+        if (standbySlot != null) {
+            standbySlot.stop();
+        }
+        active.stop();
+        log("Decodificação suspensa");
+    }
+
+    /**
+     * Retoma a decodificação suspensa com buffer de rede reduzido, para o
+     * vídeo voltar logo. Deve ser chamado na thread do JavaFX.
+     * @param url Stream a retomar (o quadrante pode ter mudado de modo enquanto suspenso)
+     */
+    public void resume(String url) {
+        if (!suspended || activeSlot == null) {
+            return;
+        }
+
+        suspended = false;
+        activeSlot.play(url, ":network-caching=" + RESUME_CACHING_MS);
+        log("Decodificação retomada: " + url);
+    }
+
+    /**
+     * Troca o perfil de latência. A mídia em exibição é reaberta com as novas
+     * opções no player reserva, sem tela preta. Deve ser chamado na thread do JavaFX.
+     * @param profile Novo perfil
+     */
+    public void setLatencyProfile(LatencyProfile profile) {
+        if (profile == latencyProfile) {
+            return;
+        }
+        latencyProfile = profile;
+
+        VideoSlot active = activeSlot;
+        if (suspended || active == null || active.url == null || videoPane == null) {
+            return; // A próxima abertura já usa o perfil novo
+        }
+
+        // Uma troca pendente é reiniciada com o perfil novo
+        String url = standbySlot != null && standbySlot.url != null ? standbySlot.url : active.url;
+        startOnStandby(url);
+        log("Perfil de latência " + profile + ": " + url);
+    }
+
+    /**
+     * @return Perfil de latência atual
+     */
+    public LatencyProfile getLatencyProfile() {
+        return latencyProfile;
+    }
+
+    /**
+     * Lê as estatísticas de decodificação do player exibido
+     * @return false se não há stream em exibição
+     */
+    boolean readStatistics(MediaStatistics statistics) {
+        VideoSlot active = activeSlot;
+        if (suspended || active == null || active.url == null) {
+            return false;
+        }
+        InfoApi info = active.player.media().info();
+        return info != null && info.statistics(statistics);
+    }
+
+    /**
+     * @return Tempo da mídia do player exibido em ms, ou -1 se não há stream em exibição
+     */
+    long currentMediaTimeMs() {
+        VideoSlot active = activeSlot;
+        if (suspended || active == null || active.url == null) {
+            return -1;
+        }
+        return active.player.status().time();
+    }
+
+    /**
+     * @return Se a decodificação está suspensa
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Primeiro quadro do novo stream publicado: troca os players de papel
+     */
+    private void completeSwitch(VideoSlot next) {
+        if (next != standbySlot) {
+            return;
+        }
+
+        VideoSlot previous = activeSlot;
+        next.view.setVisible(true);
+        previous.view.setVisible(false);
+        activeSlot = next;
+        standbySlot = previous;
+        previous.stop();
+
+        log("Stream trocado: " + next.url);
+    }
+
+    /**
+     * Configura o painel de vídeo com os ImageViews dos players
      */
     private void setupVideoPane(AnchorPane videoPane) {
+        this.videoPane = videoPane;
         videoPane.getChildren().clear();
 
-        // Cria o ImageView para exibir o vídeo
-        imageView = new ImageView();
+        if (standbySlot != null) {
+            attachView(standbySlot.view, videoPane);
+            standbySlot.view.setVisible(false);
+        }
+        attachView(activeSlot.view, videoPane);
+        activeSlot.view.setVisible(true);
+
+        // Os quadros já são pedidos no tamanho do painel
+        measureTargetSize(videoPane);
+    }
+
+    /**
+     * Adiciona um ImageView ao painel, preenchendo todo o espaço
+     */
+    private void attachView(ImageView imageView, AnchorPane videoPane) {
         imageView.setPreserveRatio(false);  // Preenche todo o espaço
 
         // Dimensiona para preencher o espaço disponível
@@ -108,33 +368,6 @@ public class VlcjMediaHandler {
         AnchorPane.setBottomAnchor(imageView, 0.0);
         AnchorPane.setLeftAnchor(imageView, 0.0);
         AnchorPane.setRightAnchor(imageView, 0.0);
-
-        // Configura o VLC para renderizar no ImageView
-        mediaPlayer.videoSurface().set(new ImageViewVideoSurface(imageView));
-    }
-
-    /**
-     * Configura eventos do media player
-     */
-    private void setupMediaPlayerEvents() {
-        mediaPlayer.events().addMediaPlayerEventListener(new MediaPlayerEventAdapter() {
-            @Override
-            public void playing(MediaPlayer mediaPlayer) {
-                log("Reprodução iniciada");
-            }
-
-            @Override
-            public void error(MediaPlayer mediaPlayer) {
-                log("Erro durante a reprodução");
-            }
-
-            @Override
-            public void buffering(MediaPlayer mediaPlayer, float newCache) {
-                if (newCache == 100f) {
-                    log("Buffer completo");
-                }
-            }
-        });
     }
 
     /**
@@ -154,38 +387,154 @@ public class VlcjMediaHandler {
     }
 
     /**
-     * Para a reprodução do stream
+     * Para a reprodução do stream (e uma troca pendente)
      */
     public void stop() {
-        if (mediaPlayer != null) {
-            mediaPlayer.controls().stop();
+        if (standbySlot != null) {
+            standbySlot.stop();
+        }
+        if (activeSlot != null) {
+            activeSlot.stop();
             log("Stream parado");
         }
     }
 
+    /**
+     * Limita os quadros publicados na cena; os demais são decodificados e descartados
+     * @param fps Quadros por segundo, ou 0 para a taxa da câmera
+     */
+    public void setMaxFps(double fps) {
+        this.maxFps = fps;
+        if (activeSlot != null) {
+            activeSlot.surface.setMaxFps(fps);
+        }
+        if (standbySlot != null) {
+            standbySlot.surface.setMaxFps(fps);
+        }
+    }
+
+    /**
+     * @return Quadros publicados na cena pelos players deste quadrante
+     */
+    public long getRenderedFrames() {
+        long frames = activeSlot == null ? 0 : activeSlot.surface.getRenderedFrames();
+        VideoSlot standby = standbySlot;
+        return standby == null ? frames : frames + standby.surface.getRenderedFrames();
+    }
+
+    /**
+     * @return Quadros não publicados pelos players deste quadrante (limite de fps ou cena atrasada)
+     */
+    public long getSkippedFrames() {
+        long frames = activeSlot == null ? 0 : activeSlot.surface.getSkippedFrames();
+        VideoSlot standby = standbySlot;
+        return standby == null ? frames : frames + standby.surface.getSkippedFrames();
+    }
+
+    /**
+     * @return Janela das estatísticas recentes do VLC deste quadrante
+     */
+    public MediaStatsWindow getStatsWindow() {
+        return statsWindow;
+    }
+
+    /**
+     * Resume as estatísticas recentes do stream exibido
+     * @param samples Número de amostras mais recentes consideradas
+     */
+    public VideoStreamStats getStreamStats(int samples) {
+        return statsWindow.summary(getCurrentUrl(), latencyProfile, samples);
+    }
+
+    /**
+     * @return URL do stream exibido, ou null se nenhum
+     */
+    public String getCurrentUrl() {
+        VideoSlot active = activeSlot;
+        return active == null ? null : active.url;
+    }
+
+    /**
+     * Tempo da mídia exibido no instante de recepção de um evento do PDV
+     * @param receiveNanos Instante (System.nanoTime())
+     * @return Tempo da mídia em milissegundos, ou -1 se fora do relógio de reprodução
+     */
+    public long mediaTimeAt(long receiveNanos) {
+        return playbackClock.mediaTimeAt(receiveNanos);
+    }
+
+    /**
+     * Posiciona a reprodução no momento exibido quando o evento foi recebido.
+     * Só é possível em mídia com busca (gravação); em stream ao vivo apenas
+     * registra o tempo da mídia correspondente.
+     * @param receiveNanos Instante de recepção do evento (System.nanoTime())
+     * @return true se a reprodução foi reposicionada
+     */
+    public boolean seekToReceiveTime(long receiveNanos) {
+        long mediaTime = playbackClock.mediaTimeAt(receiveNanos);
+        VideoSlot active = activeSlot;
+        if (active == null || mediaTime < 0) {
+            log("Marcador fora do período reproduzido");
+            return false;
+        }
+
+        String position = formatMediaTime(mediaTime);
+        if (!active.player.status().isSeekable()) {
+            log("Stream sem busca; marcador no tempo " + position);
+            return false;
+        }
+
+        active.player.controls().setTime(mediaTime);
+        log("Reprodução posicionada em " + position);
+        return true;
+    }
+
+    /**
+     * @return Relógio de reprodução do player
+     */
+    public PlaybackClock getPlaybackClock() {
+        return playbackClock;
+    }
+
+    private static String formatMediaTime(long mediaTimeMs) {
+        long seconds = mediaTimeMs / 1000;
+        return String.format("%02d:%02d:%02d.%03d", seconds / 3600, seconds / 60 % 60, seconds % 60, mediaTimeMs % 1000);
+    }
+
     /**
      * Atualiza o layout após redimensionamento
      */
     public void refreshLayout(AnchorPane videoPane) {
-        if (imageView == null) {
+        if (this.videoPane == null) {
             return;
         }
 
         Platform.runLater(() -> {
             // Renova vinculações para forçar atualização
-            imageView.fitWidthProperty().unbind();
-            imageView.fitHeightProperty().unbind();
-
-            imageView.setFitWidth(videoPane.getWidth());
-            imageView.setFitHeight(videoPane.getHeight());
-
-            imageView.fitWidthProperty().bind(videoPane.widthProperty());
-            imageView.fitHeightProperty().bind(videoPane.heightProperty());
+            refreshView(activeSlot.view, videoPane);
+            if (standbySlot != null) {
+                refreshView(standbySlot.view, videoPane);
+            }
 
             log("Layout atualizado - dimensões: " + videoPane.getWidth() + "x" + videoPane.getHeight());
+
+            // Novo tamanho: renegocia o buffer de vídeo se mudou o bastante
+            measureTargetSize(videoPane);
+            renegotiateSize();
         });
     }
 
+    private static void refreshView(ImageView imageView, AnchorPane videoPane) {
+        imageView.fitWidthProperty().unbind();
+        imageView.fitHeightProperty().unbind();
+
+        imageView.setFitWidth(videoPane.getWidth());
+        imageView.setFitHeight(videoPane.getHeight());
+
+        imageView.fitWidthProperty().bind(videoPane.widthProperty());
+        imageView.fitHeightProperty().bind(videoPane.heightProperty());
+    }
+
     /**
      * Log de mensagens
      */
@@ -200,18 +549,80 @@ public class VlcjMediaHandler {
      * Libera todos os recursos
      */
     public void dispose() {
+        StreamLatencyController.getInstance().unregister(this);
+        MediaStatsSampler.getInstance().unregister(this);
         stop();
 
-        if (mediaPlayer != null) {
-            mediaPlayer.release();
-            mediaPlayer = null;
+        // Devolve os players ao pool; a instância do libVLC segue aberta para os demais
+        if (standbySlot != null) {
+            playerPool.releasePlayer(standbySlot.player);
+            standbySlot = null;
         }
-
-        if (mediaPlayerFactory != null) {
-            mediaPlayerFactory.release();
-            mediaPlayerFactory = null;
+        if (activeSlot != null) {
+            playerPool.releasePlayer(activeSlot.player);
+            activeSlot = null;
         }
 
         log("Recursos liberados");
     }
-}
\ No newline at end of file
+
+    /**
+     * Um player com o ImageView e a superfície que o alimentam
+     */
+    private final class VideoSlot {
+        private final EmbeddedMediaPlayer player;
+        private final ImageView view = new ImageView();
+        private final PixelBufferVideoSurface surface = new PixelBufferVideoSurface(view);
+
+        // URL em reprodução, ou null se parado
+        private volatile String url;
+
+        VideoSlot(EmbeddedMediaPlayer player) {
+            this.player = player;
+            surface.setMaxFps(maxFps);
+            player.videoSurface().set(surface);
+            player.events().addMediaPlayerEventListener(new MediaPlayerEventAdapter() {
+                @Override
+                public void playing(MediaPlayer mediaPlayer) {
+                    log("Reprodução iniciada: " + url);
+                }
+
+                @Override
+                public void timeChanged(MediaPlayer mediaPlayer, long newTime) {
+                    // O relógio acompanha apenas o player exibido
+                    if (activeSlot == VideoSlot.this) {
+                        playbackClock.anchor(System.nanoTime(), newTime);
+                    }
+                }
+
+                @Override
+                public void error(MediaPlayer mediaPlayer) {
+                    log("Erro durante a reprodução: " + url);
+                }
+
+                @Override
+                public void buffering(MediaPlayer mediaPlayer, float newCache) {
+                    if (newCache == 100f) {
+                        log("Buffer completo");
+                    }
+                }
+            });
+        }
+
+        void play(String url, String... extraOptions) {
+            // Opções do perfil primeiro; as extras (ex.: buffer de retomada) prevalecem
+            String[] profileOptions = latencyProfile.options();
+            String[] options = Arrays.copyOf(profileOptions, profileOptions.length + extraOptions.length);
+            System.arraycopy(extraOptions, 0, options, profileOptions.length, extraOptions.length);
+
+            this.url = url;
+            player.media().play(url, options);
+        }
+
+        void stop() {
+            surface.onNextFrame(null);
+            url = null;
+            player.controls().stop();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.grupoverona.selfcheckout.network;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodificador UTF-8 reutilizável para datagramas.
+ * Mantém um único CharBuffer de saída, evitando criar Strings a cada pacote.
+ * Não é thread-safe: cada thread de recepção deve ter a sua instância.
+ */
+class DatagramDecoder {
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final CharBuffer chars;
+
+    /**
+     * @param maxBytes Tamanho máximo do datagrama em bytes
+     */
+    DatagramDecoder(int maxBytes) {
+        // Em UTF-8 cada byte gera no máximo um char
+        this.chars = CharBuffer.allocate(maxBytes);
+    }
+
+    /**
+     * Decodifica o conteúdo do buffer (entre position e limit).
+     * @param bytes Buffer já preparado para leitura (flip)
+     * @return Visão dos caracteres decodificados, válida até a próxima chamada
+     */
+    CharBuffer decode(ByteBuffer bytes) {
+        chars.clear();
+        decoder.reset();
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        return chars;
+    }
+
+    /**
+     * Remove espaços e caracteres de controle das extremidades ajustando
+     * position/limit, com a mesma regra de {@link String#trim()}.
+     */
+    static CharBuffer trim(CharBuffer text) {
+        int start = text.position();
+        int end = text.limit();
+
+        while (start < end && text.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.get(end - 1) <= ' ') {
+            end--;
+        }
+
+        text.limit(end);
+        text.position(start);
+        return text;
+    }
+}
@@ -0,0 +1,17 @@
+package com.grupoverona.selfcheckout.network;
+
+/**
+ * Consumidor de datagramas recebidos dos PDVs sem conversão para String.
+ * As instâncias de CharSequence recebidas são visões reutilizáveis do buffer de
+ * recepção e só são válidas durante a chamada; quem precisar guardar o conteúdo
+ * deve chamar {@code toString()} (normalmente apenas na fronteira com a UI).
+ */
+@FunctionalInterface
+public interface DatagramHandler {
+    /**
+     * Processa um datagrama recebido
+     * @param senderIp IP de origem (instância em cache, reutilizada para o mesmo remetente)
+     * @param message Conteúdo decodificado do datagrama
+     */
+    void onDatagram(String senderIp, CharSequence message);
+}
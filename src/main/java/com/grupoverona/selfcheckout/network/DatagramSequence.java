@@ -0,0 +1,52 @@
+package com.grupoverona.selfcheckout.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Extrai o número de sequência carimbado pelo PDV em um datagrama, para
+ * detecção de perdas (lacunas na sequência). Executado na thread de recepção:
+ * implementações não devem alocar nem alterar position/limit do buffer.
+ */
+@FunctionalInterface
+public interface DatagramSequence {
+
+    /**
+     * @param payload Conteúdo do datagrama (entre position e limit)
+     * @return Número de sequência, ou -1 se o datagrama não estiver carimbado
+     */
+    long sequenceOf(ByteBuffer payload);
+
+    /**
+     * Sequência em texto decimal logo após um prefixo fixo no início do
+     * datagrama, ex.: "#1234^CUPOM..." com o prefixo "#"
+     * @param prefix Prefixo ASCII que antecede o número
+     */
+    static DatagramSequence prefixed(String prefix) {
+        byte[] expected = prefix.getBytes(StandardCharsets.US_ASCII);
+
+        return payload -> {
+            int start = payload.position();
+            int end = payload.limit();
+            if (end - start <= expected.length) {
+                return -1;
+            }
+
+            for (int i = 0; i < expected.length; i++) {
+                if (payload.get(start + i) != expected[i]) {
+                    return -1;
+                }
+            }
+
+            long sequence = -1;
+            for (int i = start + expected.length; i < end && i < start + expected.length + 18; i++) {
+                byte digit = payload.get(i);
+                if (digit < '0' || digit > '9') {
+                    break;
+                }
+                sequence = (sequence < 0 ? 0 : sequence * 10) + (digit - '0');
+            }
+            return sequence;
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.grupoverona.selfcheckout.network;
+
+/**
+ * Contadores do cache de mensagens formatadas.
+ *
+ * @param hits Mensagens servidas pelo cache
+ * @param misses Mensagens processadas e guardadas no cache
+ * @param evictions Entradas descartadas para respeitar o limite de memória
+ * @param bypassed Mensagens maiores que o limite por entrada, processadas sem cache
+ * @param entries Entradas no cache no momento
+ * @param usedBytes Memória estimada ocupada pelas entradas
+ * @param budgetBytes Limite de memória do cache
+ */
+public record FormatCacheStats(long hits, long misses, long evictions, long bypassed,
+                               int entries, long usedBytes, long budgetBytes) {
+
+    /**
+     * @return Fração das consultas atendidas pelo cache (0 a 1)
+     */
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
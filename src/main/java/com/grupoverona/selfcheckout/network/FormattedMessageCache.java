@@ -0,0 +1,253 @@
+package com.grupoverona.selfcheckout.network;
+
+import com.grupoverona.selfcheckout.util.FilterChain;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache LRU, limitado em memória, do conteúdo formatado das mensagens dos PDVs.
+ * Os PDVs reenviam os mesmos cabeçalhos, rodapés e mensagens de espera milhares
+ * de vezes por turno; com o cache, cada texto repetido passa pela cadeia de
+ * filtros uma única vez.
+ *
+ * A chave é o hash dos bytes brutos do datagrama mais a cadeia de filtros
+ * aplicada (cadeias diferentes por PDV geram textos diferentes); os bytes são
+ * comparados na consulta, então colisões de hash nunca trocam mensagens.
+ * Datagramas maiores que o limite por entrada (cupons completos) não entram.
+ *
+ * Compartilhado pelas filas de todos os PDVs: dividido em segmentos com lock
+ * próprio, cada um com sua parte do limite de memória.
+ */
+public class FormattedMessageCache {
+
+    private static final int SEGMENTS = 16;
+
+    // Custo fixo estimado de uma entrada (objetos de chave, entrada, String e nó do mapa)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long budgetBytes;
+    private final int maxEntryBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    /**
+     * @param budgetBytes Memória total do cache
+     * @param maxEntryBytes Tamanho máximo do datagrama para entrar no cache
+     */
+    public FormattedMessageCache(long budgetBytes, int maxEntryBytes) {
+        this.budgetBytes = budgetBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(budgetBytes / SEGMENTS);
+        }
+    }
+
+    /**
+     * @return Chave de consulta reutilizável; cada thread deve ter a sua
+     */
+    public Key newProbe() {
+        return new Key();
+    }
+
+    /**
+     * Consulta o conteúdo formatado dos bytes indicados na chave de consulta
+     * @param probe Chave preparada com {@link Key#set(ByteBuffer, int, int, FilterChain)}
+     * @return Conteúdo em cache, ou null (a mensagem deve ser processada e guardada com put)
+     */
+    public String get(Key probe) {
+        if (probe.length() > maxEntryBytes) {
+            bypassed.increment();
+            return null;
+        }
+
+        String content = segmentFor(probe).get(probe);
+        if (content != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return content;
+    }
+
+    /**
+     * Guarda o conteúdo formatado após um get sem sucesso, copiando os bytes da chave
+     */
+    public void put(Key probe, String content) {
+        if (probe.length() > maxEntryBytes) {
+            return;
+        }
+        Key stored = probe.copy();
+        segmentFor(stored).put(stored, content, ENTRY_OVERHEAD_BYTES + stored.length() + 2L * content.length());
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hash;
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Descarta todas as entradas
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return Contadores atuais do cache
+     */
+    public FormatCacheStats stats() {
+        int entries = 0;
+        long used = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.entries.size();
+                used += segment.usedBytes;
+            }
+        }
+        return new FormatCacheStats(hits.sum(), misses.sum(), evictions.sum(), bypassed.sum(),
+                entries, used, budgetBytes);
+    }
+
+    /**
+     * Segmento LRU: LinkedHashMap em ordem de acesso, protegido pelo próprio monitor
+     */
+    private final class Segment {
+        private final long budget;
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long usedBytes;
+
+        Segment(long budget) {
+            this.budget = budget;
+        }
+
+        synchronized String get(Key probe) {
+            Entry entry = entries.get(probe);
+            return entry != null ? entry.content : null;
+        }
+
+        synchronized void put(Key key, String content, long cost) {
+            if (cost > budget) {
+                return;
+            }
+
+            Entry previous = entries.put(key, new Entry(content, cost));
+            usedBytes += cost - (previous != null ? previous.cost : 0);
+
+            // Remove as entradas menos usadas até caber no limite
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (usedBytes > budget && eldest.hasNext()) {
+                usedBytes -= eldest.next().getValue().cost;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            usedBytes = 0;
+        }
+    }
+
+    private record Entry(String content, long cost) {
+    }
+
+    /**
+     * Chave do cache. Como chave de consulta, aponta sem cópia para os bytes do
+     * datagrama em entrega; guardada no cache, tem a própria cópia dos bytes.
+     */
+    public static final class Key {
+        private ByteBuffer buffer;
+        private byte[] bytes;
+        private int start;
+        private int end;
+        private FilterChain chain;
+        private int hash;
+
+        /**
+         * Prepara a chave de consulta e calcula o hash dos bytes
+         * @param buffer Buffer do datagrama (não é alterado)
+         * @param start Índice do primeiro byte
+         * @param end Índice seguinte ao último byte
+         * @param chain Cadeia de filtros que será aplicada
+         * @return Esta chave
+         */
+        public Key set(ByteBuffer buffer, int start, int end, FilterChain chain) {
+            this.buffer = buffer;
+            this.bytes = null;
+            this.start = start;
+            this.end = end;
+            this.chain = chain;
+            this.hash = hash(buffer, start, end) * 31 + System.identityHashCode(chain);
+            return this;
+        }
+
+        int length() {
+            return end - start;
+        }
+
+        private byte byteAt(int index) {
+            return bytes != null ? bytes[index] : buffer.get(start + index);
+        }
+
+        private Key copy() {
+            Key copy = new Key();
+            copy.bytes = new byte[length()];
+            for (int i = 0; i < copy.bytes.length; i++) {
+                copy.bytes[i] = byteAt(i);
+            }
+            copy.end = copy.bytes.length;
+            copy.chain = chain;
+            copy.hash = hash;
+            return copy;
+        }
+
+        /**
+         * Hash de 64 bits dos bytes, lidos de 8 em 8, reduzido a 32 bits
+         */
+        private static int hash(ByteBuffer buffer, int start, int end) {
+            long h = 0x9E3779B97F4A7C15L ^ (end - start);
+            int i = start;
+            for (; i + 8 <= end; i += 8) {
+                h = Long.rotateLeft(h ^ buffer.getLong(i) * 0xC2B2AE3D27D4EB4FL, 31) * 0x9E3779B185EBCA87L;
+            }
+            for (; i < end; i++) {
+                h = Long.rotateLeft(h ^ (buffer.get(i) & 0xFFL) * 0x165667B19E3779F9L, 23) * 0x9E3779B185EBCA87L;
+            }
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key) || key.hash != hash || key.chain != chain || key.length() != length()) {
+                return false;
+            }
+            for (int i = 0; i < length(); i++) {
+                if (key.byteAt(i) != byteAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.grupoverona.selfcheckout.network;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Leitura dos descartes de datagramas feitos pelo kernel (buffer de recepção
+ * cheio), a partir de /proc/net/udp e /proc/net/udp6. Disponível apenas no Linux;
+ * em outros sistemas os valores são reportados como -1.
+ */
+final class KernelUdpStats {
+
+    private static final Path[] UDP_TABLES = {
+            Path.of("/proc/net/udp"),
+            Path.of("/proc/net/udp6")
+    };
+
+    private KernelUdpStats() {
+    }
+
+    /**
+     * @param port Porta local do socket
+     * @return Datagramas descartados pelo kernel nos sockets da porta, ou -1 se indisponível
+     */
+    static long drops(int port) {
+        String portHex = String.format(":%04X", port);
+        long total = -1;
+
+        for (Path table : UDP_TABLES) {
+            if (!Files.isReadable(table)) {
+                continue;
+            }
+
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(table);
+            } catch (IOException e) {
+                continue;
+            }
+
+            // Linha: sl local_address rem_address st ... drops (última coluna)
+            for (int i = 1; i < lines.size(); i++) {
+                String[] columns = lines.get(i).trim().split("\\s+");
+                if (columns.length < 13 || !columns[1].endsWith(portHex)) {
+                    continue;
+                }
+                try {
+                    total = Math.max(total, 0) + Long.parseLong(columns[columns.length - 1]);
+                } catch (NumberFormatException ignored) {
+                    // Formato inesperado, ignora a linha
+                }
+            }
+        }
+
+        return total;
+    }
+}
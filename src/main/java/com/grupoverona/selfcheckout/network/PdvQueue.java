@@ -0,0 +1,334 @@
+package com.grupoverona.selfcheckout.network;
+
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+import com.grupoverona.selfcheckout.receipt.ReceiptTokenizer;
+import com.grupoverona.selfcheckout.util.FilterChain;
+import com.grupoverona.selfcheckout.util.MessageProcessor;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Fila de datagramas de um PDV (IP de origem em uma porta).
+ *
+ * A thread do seletor é a única produtora: apenas copia o datagrama para um
+ * {@link SpscDatagramRing} e segue recebendo. Uma virtual thread dedicada é a
+ * única consumidora: decodifica, formata e entrega aos assinantes. Assim um
+ * assinante lento atrasa apenas o próprio PDV, e nunca o socket; quando a
+ * fila enche, os datagramas excedentes são descartados e contabilizados.
+ */
+class PdvQueue implements SpscDatagramRing.RecordHandler {
+
+    private final String senderIp;
+    private final int port;
+    private final SpscDatagramRing ring;
+    private final Supplier<List<Subscriber>> wildcardSubscribers;
+    private final Supplier<FormattedMessageCache> formatCache;
+
+    // Consumidor de eventos do motor para este PDV (nulo = nenhum), alimentado
+    // uma vez por datagrama, depois dos assinantes
+    private final ReceiptEventHandler laneHandler;
+
+    // Assinantes deste IP (snapshot imutável, trocado a cada alteração)
+    private volatile List<Subscriber> subscribers = List.of();
+
+    // Thread consumidora e sinalização produtor → consumidor
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean waiting = false;
+
+    // Estado usado apenas pela thread consumidora
+    private final DatagramDecoder decoder;
+    private final Delivery delivery;
+
+    // Contadores (escritos por uma única thread cada)
+    private volatile long enqueued = 0;
+    private volatile long dropped = 0;
+    private volatile long delivered = 0;
+    private volatile int highWaterMark = 0;
+    private volatile long sequenceGaps = 0;
+
+    // Última sequência carimbada pelo PDV (apenas a thread do seletor)
+    private long lastSequence = -1;
+
+    // Recepção do último datagrama enfileirado ou descartado (apenas a thread do seletor)
+    private long lastReceiveNanos = System.nanoTime();
+
+    /**
+     * @param senderIp IP de origem em texto
+     * @param port Porta em que o PDV envia
+     * @param capacityBytes Memória reservada para a fila deste PDV
+     * @param maxPacketSize Tamanho máximo de um datagrama
+     * @param wildcardSubscribers Assinantes do curinga 0.0.0.0 da porta
+     * @param formatCache Cache de mensagens formatadas atual (nulo = desativado)
+     * @param laneHandler Consumidor de eventos do motor para este PDV (nulo = nenhum)
+     */
+    PdvQueue(String senderIp, int port, int capacityBytes, int maxPacketSize,
+             Supplier<List<Subscriber>> wildcardSubscribers, Supplier<FormattedMessageCache> formatCache,
+             ReceiptEventHandler laneHandler) {
+        this.senderIp = senderIp;
+        this.port = port;
+        this.ring = new SpscDatagramRing(capacityBytes);
+        this.decoder = new DatagramDecoder(maxPacketSize);
+        this.wildcardSubscribers = wildcardSubscribers;
+        this.formatCache = formatCache;
+        this.laneHandler = laneHandler;
+        this.delivery = new Delivery(port);
+        this.consumer = Thread.ofVirtual()
+                .name("PDV-" + senderIp + ":" + port)
+                .unstarted(this::consume);
+    }
+
+    void start() {
+        consumer.start();
+    }
+
+    /**
+     * Encerra a thread consumidora; datagramas pendentes são descartados
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+    }
+
+    /**
+     * Enfileira um datagrama. Chamado apenas pela thread do seletor.
+     * @return false se a fila estava cheia e o datagrama foi descartado
+     */
+    boolean offer(ByteBuffer payload, long receiveNanos, int senderPort) {
+        lastReceiveNanos = receiveNanos;
+        if (!ring.offer(payload, senderPort, receiveNanos)) {
+            long drops = ++dropped;
+            // Avisa no 1º, 2º, 4º, 8º... descarte para não inundar o console
+            if ((drops & (drops - 1)) == 0) {
+                System.err.println("Fila do PDV " + senderIp + ":" + port + " cheia: "
+                        + drops + " datagramas descartados");
+            }
+            return false;
+        }
+
+        enqueued++;
+        int used = ring.usedBytes();
+        if (used > highWaterMark) {
+            highWaterMark = used;
+        }
+
+        if (waiting) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Registra a sequência carimbada no datagrama e contabiliza os faltantes.
+     * Uma sequência menor ou igual à anterior é tratada como reinício do PDV.
+     * Chamado apenas pela thread do seletor.
+     */
+    void trackSequence(long sequence) {
+        if (sequence < 0) {
+            return;
+        }
+        if (lastSequence >= 0 && sequence > lastSequence + 1) {
+            sequenceGaps += sequence - lastSequence - 1;
+        }
+        lastSequence = sequence;
+    }
+
+    /**
+     * @return Instante do último datagrama recebido deste PDV. Apenas a thread do seletor.
+     */
+    long lastReceiveNanos() {
+        return lastReceiveNanos;
+    }
+
+    long droppedCount() {
+        return dropped;
+    }
+
+    long sequenceGapCount() {
+        return sequenceGaps;
+    }
+
+    /**
+     * Loop da thread consumidora: drena a fila e estaciona quando vazia
+     */
+    private void consume() {
+        while (running) {
+            if (!ring.poll(this)) {
+                waiting = true;
+                if (ring.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    @Override
+    public void onRecord(ByteBuffer payload, int senderPort, long receiveNanos) {
+        int bytesStart = payload.position();
+        int bytesEnd = payload.limit();
+
+        CharBuffer message = DatagramDecoder.trim(decoder.decode(payload));
+        if (!message.hasRemaining()) {
+            return;
+        }
+
+        delivery.reset(senderIp, senderPort, receiveNanos, message, payload, bytesStart, bytesEnd, formatCache.get());
+        deliver(subscribers, delivery);
+        deliver(wildcardSubscribers.get(), delivery);
+        if (laneHandler != null) {
+            try {
+                delivery.tokenize(laneHandler);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao processar eventos de " + senderIp + ":" + port + ": " + e.getMessage());
+            }
+        }
+        delivered++;
+    }
+
+    private void deliver(List<Subscriber> targets, Delivery delivery) {
+        for (int i = 0; i < targets.size(); i++) {
+            try {
+                targets.get(i).deliver(delivery);
+            } catch (RuntimeException e) {
+                // Um assinante com erro não pode derrubar a fila do PDV
+                System.err.println("Erro ao entregar mensagem de " + senderIp + ":" + port + ": " + e.getMessage());
+            }
+        }
+    }
+
+    synchronized void addSubscriber(Subscriber subscriber) {
+        List<Subscriber> updated = new ArrayList<>(subscribers);
+        updated.add(subscriber);
+        subscribers = List.copyOf(updated);
+    }
+
+    /**
+     * Remove os assinantes que encapsulam o callback (ou todos, se nulo)
+     */
+    synchronized void removeSubscribers(Object callback) {
+        List<Subscriber> updated = new ArrayList<>(subscribers);
+        updated.removeIf(subscriber -> callback == null || subscriber.wraps(callback));
+        subscribers = List.copyOf(updated);
+    }
+
+    boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * @return Contadores atuais desta fila
+     */
+    PdvQueueStats stats() {
+        return new PdvQueueStats(senderIp, port, enqueued, delivered, dropped, sequenceGaps,
+                ring.usedBytes(), highWaterMark, ring.capacity());
+    }
+
+    /**
+     * Dados do datagrama em entrega. A mensagem formatada pelo MessageProcessor
+     * é criada sob demanda e no máximo uma vez por datagrama, reaproveitando o
+     * conteúdo do cache quando o PDV repete um texto; os eventos de cupom
+     * são extraídos dos bytes apenas para os assinantes de eventos. Instância
+     * única, reutilizada pela thread consumidora.
+     */
+    static final class Delivery {
+        private final int localPort;
+        private String senderIp;
+        private int senderPort;
+        private long receiveNanos;
+        private CharBuffer message;
+        private int messageStart;
+        private int messageEnd;
+        private String processedMessage;
+        private ByteBuffer bytes;
+        private int bytesStart;
+        private int bytesEnd;
+        private ReceiptTokenizer tokenizer;
+        private FormattedMessageCache cache;
+        private FormattedMessageCache.Key cacheProbe;
+
+        Delivery(int localPort) {
+            this.localPort = localPort;
+        }
+
+        void reset(String senderIp, int senderPort, long receiveNanos, CharBuffer message,
+                   ByteBuffer bytes, int bytesStart, int bytesEnd, FormattedMessageCache cache) {
+            this.senderIp = senderIp;
+            this.senderPort = senderPort;
+            this.receiveNanos = receiveNanos;
+            this.message = message;
+            this.messageStart = message.position();
+            this.messageEnd = message.limit();
+            this.processedMessage = null;
+            this.bytes = bytes;
+            this.bytesStart = bytesStart;
+            this.bytesEnd = bytesEnd;
+            if (cache != this.cache) {
+                this.cache = cache;
+                this.cacheProbe = cache != null ? cache.newProbe() : null;
+            }
+        }
+
+        String senderIp() {
+            return senderIp;
+        }
+
+        long receiveNanos() {
+            return receiveNanos;
+        }
+
+        /**
+         * @return Visão bruta da mensagem, restaurada a cada assinante
+         */
+        CharBuffer rawMessage() {
+            message.limit(messageEnd);
+            message.position(messageStart);
+            return message;
+        }
+
+        /**
+         * Emite os eventos de cupom do datagrama, a partir dos bytes recebidos
+         */
+        void tokenize(ReceiptEventHandler handler) {
+            if (tokenizer == null) {
+                tokenizer = new ReceiptTokenizer();
+            }
+            bytes.limit(bytesEnd);
+            bytes.position(bytesStart);
+            tokenizer.tokenize(bytes, senderIp, receiveNanos, handler);
+        }
+
+        /**
+         * @return Mensagem formatada para exibição (String criada apenas aqui)
+         */
+        String processedMessage() {
+            if (processedMessage == null) {
+                processedMessage = cache != null
+                        ? cachedMessage()
+                        : MessageProcessor.processUdpMessage(senderIp, senderPort, localPort, rawMessage());
+            }
+            return processedMessage;
+        }
+
+        /**
+         * Busca o conteúdo processado no cache pelos bytes do datagrama; o
+         * cabeçalho é montado a cada entrega, pois a porta de origem varia
+         */
+        private String cachedMessage() {
+            FilterChain chain = MessageProcessor.chainFor(senderIp, localPort);
+            cacheProbe.set(bytes, bytesStart, bytesEnd, chain);
+
+            String content = cache.get(cacheProbe);
+            if (content == null) {
+                content = MessageProcessor.processContent(chain, rawMessage());
+                cache.put(cacheProbe, content);
+            }
+            return MessageProcessor.formatUdpMessage(senderIp, senderPort, content);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.grupoverona.selfcheckout.network;
+
+/**
+ * Contadores da fila de um PDV no motor UDP.
+ *
+ * @param senderIp IP do PDV
+ * @param port Porta em que o PDV envia
+ * @param enqueued Datagramas enfileirados pela thread de recepção
+ * @param delivered Datagramas entregues aos assinantes
+ * @param dropped Datagramas descartados por fila cheia
+ * @param sequenceGaps Datagramas faltantes pela sequência carimbada pelo PDV (0 se não carimbada)
+ * @param usedBytes Bytes ocupados na fila no momento
+ * @param highWaterMarkBytes Maior ocupação observada, em bytes
+ * @param capacityBytes Capacidade da fila, em bytes
+ */
+public record PdvQueueStats(String senderIp, int port, long enqueued, long delivered, long dropped,
+                            long sequenceGaps,
+                            int usedBytes, int highWaterMarkBytes, int capacityBytes) {
+}
@@ -0,0 +1,20 @@
+package com.grupoverona.selfcheckout.network;
+
+/**
+ * Métricas de recepção de uma porta do motor UDP.
+ *
+ * @param port Porta local
+ * @param datagrams Datagramas recebidos do socket
+ * @param bytes Bytes recebidos (até o limite de MAX_PACKET_SIZE por datagrama)
+ * @param truncated Datagramas maiores que MAX_PACKET_SIZE, truncados
+ * @param queueDrops Datagramas descartados pela aplicação por fila de PDV cheia
+ * @param wildcardRejects Datagramas de remetentes novos descartados por limite de filas do curinga
+ * @param sequenceGaps Datagramas faltantes detectados pela sequência carimbada pelos PDVs
+ * @param kernelDrops Datagramas descartados pelo kernel (-1 se indisponível no SO)
+ * @param receiveBufferRequested SO_RCVBUF solicitado, em bytes
+ * @param receiveBufferActual SO_RCVBUF efetivo informado pelo SO, em bytes
+ */
+public record PortMetrics(int port, long datagrams, long bytes, long truncated, long queueDrops,
+                          long wildcardRejects, long sequenceGaps, long kernelDrops,
+                          int receiveBufferRequested, int receiveBufferActual) {
+}
@@ -0,0 +1,20 @@
+package com.grupoverona.selfcheckout.network;
+
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+
+/**
+ * Cria o consumidor de eventos de cupom de um PDV (IP e porta) no nível do
+ * motor UDP, como o motor de regras. Cada fila de PDV pede o seu consumidor
+ * ao ser criada e o alimenta uma única vez por datagrama, na sua própria
+ * thread, independentemente de quantos quadrantes assinam aquele PDV.
+ */
+@FunctionalInterface
+public interface ReceiptLaneFactory {
+
+    /**
+     * @param senderIp IP do PDV
+     * @param port Porta local em que o PDV envia
+     * @return Consumidor dos eventos deste PDV, ou null para nenhum
+     */
+    ReceiptEventHandler laneFor(String senderIp, int port);
+}
@@ -1,19 +1,40 @@
 package com.grupoverona.selfcheckout.network;
 
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.BindException;
-import java.nio.charset.StandardCharsets;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
- * Classe singleton para gerenciar um único socket UDP que escuta em uma porta específica
- * e encaminha mensagens para os listeners registrados com base no IP de origem.
+ * Classe singleton que implementa o motor UDP dos PDVs ({@link UdpMessageEngine}).
+ * Cada porta possui um DatagramChannel não bloqueante, compartilhado por todos os
+ * PDVs que enviam nela, e todas as portas são multiplexadas por um único Selector
+ * em uma única thread de escuta.
+ * A thread de escuta apenas copia cada datagrama para a fila do PDV de origem
+ * ({@link PdvQueue}); a decodificação, a formatação e a entrega aos listeners
+ * registrados para aquele IP acontecem na virtual thread da fila.
  */
-public class SharedUdpListener {
+public class SharedUdpListener implements UdpMessageEngine {
 
     // Singleton instance
     private static SharedUdpListener instance;
@@ -21,157 +42,399 @@ public class SharedUdpListener {
     // Tamanho máximo do buffer para receber pacotes UDP
     private static final int MAX_PACKET_SIZE = 4096;
 
+    // Máximo de pacotes lidos de uma mesma porta por rodada do seletor (evita monopolizar a thread)
+    private static final int MAX_READS_PER_SELECT = 64;
+
+    // Espera máxima pelo fechamento de uma porta na thread do seletor
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+
+    // Espera máxima pelo término da thread do seletor
+    private static final long SELECTOR_STOP_TIMEOUT_MS = 1000;
+
+    // Memória padrão da fila de cada PDV (configurável por propriedade do sistema)
+    private static final int DEFAULT_PDV_QUEUE_BYTES =
+            Integer.getInteger("selfcheckout.udp.pdvQueueBytes", 256 * 1024);
+
+    // SO_RCVBUF padrão de cada porta (configurável por propriedade do sistema).
+    // Absorve rajadas de vários PDVs enquanto a thread do seletor está ocupada.
+    private static final int DEFAULT_RECEIVE_BUFFER_BYTES =
+            Integer.getInteger("selfcheckout.udp.receiveBufferBytes", 4 * 1024 * 1024);
+
+    // Filas criadas pelo curinga 0.0.0.0 em cada porta (cada uma com seu buffer e
+    // sua thread): remetentes novos além do limite são descartados, exceto se
+    // houver filas paradas há mais que o tempo de inatividade para liberar
+    private static final int MAX_WILDCARD_QUEUES =
+            Integer.getInteger("selfcheckout.udp.maxWildcardQueues", 64);
+    private static final long WILDCARD_IDLE_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("selfcheckout.udp.wildcardIdleMs", 5 * 60_000));
+
+    // Intervalo mínimo entre varreduras de filas paradas do curinga
+    private static final long WILDCARD_EVICTION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Memória do cache de mensagens formatadas (0 desativa) e maior datagrama
+    // aceito nele; cupons completos acima do limite são formatados sempre
+    private static final long DEFAULT_FORMAT_CACHE_BYTES =
+            Long.getLong("selfcheckout.format.cacheBytes", 2 * 1024 * 1024);
+    private static final int FORMAT_CACHE_MAX_ENTRY_BYTES =
+            Integer.getInteger("selfcheckout.format.cacheMaxEntryBytes", 1024);
+
     // Mapa de sockets por porta
     private final Map<Integer, PortHandler> portHandlers = new ConcurrentHashMap<>();
 
-    // Classe para gerenciar um socket em uma porta específica
+    // Tarefas a executar na thread do seletor (registro/cancelamento de canais)
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    // Seletor único compartilhado por todas as portas
+    private Selector selector;
+    private Thread selectorThread;
+    private volatile boolean running = false;
+
+    // Buffer de recepção, usado apenas pela thread do seletor.
+    // O buffer é direto e reutilizado: não é limpo entre pacotes, pois apenas
+    // os bytes entre position e limit são lidos após cada receive.
+    // O byte extra acusa datagramas maiores que MAX_PACKET_SIZE (truncados).
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE + 1);
+
+    // Memória reservada para a fila de cada novo PDV
+    private volatile int pdvQueueBytes = DEFAULT_PDV_QUEUE_BYTES;
+
+    // SO_RCVBUF solicitado para cada nova porta
+    private volatile int receiveBufferBytes = DEFAULT_RECEIVE_BUFFER_BYTES;
+
+    // Extrator da sequência carimbada pelos PDVs (nulo = sem detecção de lacunas)
+    private volatile DatagramSequence sequenceExtractor;
+
+    // Consumidores de eventos por PDV no nível do motor, ex.: motor de regras (nulo = nenhum)
+    private volatile ReceiptLaneFactory receiptLanes;
+
+    // Cache de mensagens formatadas compartilhado pelas filas (nulo = desativado)
+    private volatile FormattedMessageCache formatCache = newFormatCache(DEFAULT_FORMAT_CACHE_BYTES);
+
+    // Classe para gerenciar o canal de uma porta específica
     private class PortHandler {
         private final int port;
-        private DatagramSocket socket;
-        private Thread listenerThread;
-        private volatile boolean running = false;
-        private final Map<String, Consumer<String>> ipListeners = new ConcurrentHashMap<>();
+        private DatagramChannel channel;
+        private SelectionKey selectionKey;
 
-        public PortHandler(int port) {
-            this.port = port;
-        }
+        // Filas dos PDVs com assinatura para o próprio IP
+        private final UdpRoutingTable<PdvQueue> routes = new UdpRoutingTable<>();
 
-        public synchronized void start() throws IOException {
-            if (running) {
-                return; // Já está rodando
-            }
+        // Assinantes do curinga 0.0.0.0 (snapshot imutável)
+        private volatile List<Subscriber> wildcardSubscribers = List.of();
 
-            try {
-                // Tenta criar o socket na porta especificada
-                socket = new DatagramSocket(port);
-                socket.setSoTimeout(3000); // Timeout para evitar bloqueio indefinido
+        // Filas criadas sob demanda para remetentes atendidos apenas pelo curinga
+        private final Map<InetAddress, PdvQueue> wildcardQueues = new ConcurrentHashMap<>();
+
+        // Última varredura de filas paradas do curinga (apenas a thread do seletor)
+        private long lastEvictionNanos = Long.MIN_VALUE;
+
+        // SO_RCVBUF solicitado e o efetivamente concedido pelo SO
+        private int receiveBufferRequested;
+        private int receiveBufferActual;
 
-                running = true;
+        // Contadores de recepção (escritos apenas pela thread do seletor)
+        private volatile long datagrams = 0;
+        private volatile long bytes = 0;
+        private volatile long truncated = 0;
+        private volatile long wildcardRejects = 0;
 
-                // Inicia a thread de escuta
-                listenerThread = new Thread(this::run, "UDP-Listener-" + port);
-                listenerThread.setDaemon(true);
-                listenerThread.start();
+        public PortHandler(int port) {
+            this.port = port;
+        }
 
-                System.out.println("Socket UDP compartilhado iniciado na porta " + port);
+        /**
+         * Abre o canal na porta e agenda o registro no seletor.
+         * O bind é feito na thread chamadora para que erros sejam reportados imediatamente.
+         */
+        public void open() throws IOException {
+            try {
+                channel = DatagramChannel.open();
+                configureReceiveBuffer();
+                channel.bind(new InetSocketAddress(port));
+                channel.configureBlocking(false);
             } catch (BindException e) {
                 System.err.println("Erro ao abrir socket na porta " + port + ": " + e.getMessage());
+                closeQuietly();
+                throw e;
+            } catch (IOException e) {
+                closeQuietly();
                 throw e;
             }
+
+            runOnSelector(() -> {
+                try {
+                    selectionKey = channel.register(selector, SelectionKey.OP_READ, this);
+                    System.out.println("Socket UDP compartilhado iniciado na porta " + port);
+                } catch (IOException e) {
+                    System.err.println("Erro ao registrar porta " + port + " no seletor: " + e.getMessage());
+                    closeQuietly();
+                }
+            });
         }
 
-        private void run() {
-            try {
-                // Buffer para receber os dados
-                byte[] buffer = new byte[MAX_PACKET_SIZE];
-
-                // Packet para receber os dados
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-
-                // Loop de recebimento
-                while (running) {
-                    try {
-                        // Limpa o buffer
-                        for (int i = 0; i < buffer.length; i++) {
-                            buffer[i] = 0;
-                        }
+        /**
+         * Aplica o SO_RCVBUF configurado e confere o valor concedido pelo SO,
+         * que pode limitá-lo silenciosamente (ex.: net.core.rmem_max no Linux)
+         */
+        private void configureReceiveBuffer() throws IOException {
+            receiveBufferRequested = receiveBufferBytes;
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferRequested);
+            receiveBufferActual = channel.getOption(StandardSocketOptions.SO_RCVBUF);
+
+            if (receiveBufferActual < receiveBufferRequested) {
+                System.err.println("SO_RCVBUF da porta " + port + " limitado pelo sistema: solicitado "
+                        + receiveBufferRequested + " bytes, concedido " + receiveBufferActual
+                        + " bytes (verifique net.core.rmem_max)");
+            }
+        }
 
-                        // Recebe um pacote (este método bloqueia até receber ou timeout)
-                        socket.receive(packet);
+        /**
+         * Lê todos os pacotes disponíveis no canal (até o limite por rodada) e os
+         * enfileira na fila do PDV de origem. Executado somente na thread do seletor,
+         * que nunca executa os assinantes.
+         */
+        private void read() {
+            for (int i = 0; i < MAX_READS_PER_SELECT; i++) {
+                SocketAddress sender;
+                try {
+                    receiveBuffer.clear();
+                    sender = channel.receive(receiveBuffer);
+                } catch (IOException e) {
+                    System.err.println("Erro ao receber pacote na porta " + port + ": " + e.getMessage());
+                    return;
+                }
 
-                        // Obtém o IP de origem
-                        String senderIp = packet.getAddress().getHostAddress();
+                if (sender == null) {
+                    return; // Nada mais a ler nesta porta
+                }
 
-                        // Converte os dados para string
-                        String message = new String(
-                                packet.getData(),
-                                packet.getOffset(),
-                                packet.getLength(),
-                                StandardCharsets.UTF_8
-                        );
+                long receiveNanos = System.nanoTime();
+                receiveBuffer.flip();
+                countReceived();
 
-                        // Processa a mensagem somente se não for vazia
-                        if (!message.trim().isEmpty()) {
-                            // Encaminha a mensagem para os listeners interessados neste IP
-                            deliverMessageToListeners(senderIp, message);
-                        }
+                InetSocketAddress senderSocket = (InetSocketAddress) sender;
+                PdvQueue queue = queueFor(senderSocket.getAddress(), receiveNanos);
+                if (queue == null) {
+                    continue; // Ninguém interessado neste remetente
+                }
 
-                        // Reinicia o packet para o próximo recebimento
-                        packet.setLength(buffer.length);
-                    } catch (java.net.SocketTimeoutException e) {
-                        // Timeout de recepção - apenas continua o loop
-                        continue;
-                    } catch (IOException e) {
-                        if (running) { // Só loga se ainda estiver rodando
-                            System.err.println("Erro ao receber pacote na porta " + port + ": " + e.getMessage());
-                            // Espera um pouco antes de tentar novamente
-                            try {
-                                Thread.sleep(1000);
-                            } catch (InterruptedException ie) {
-                                Thread.currentThread().interrupt();
-                                break;
-                            }
-                        }
-                    }
+                DatagramSequence sequence = sequenceExtractor;
+                if (sequence != null) {
+                    queue.trackSequence(sequence.sequenceOf(receiveBuffer));
                 }
-            } finally {
-                // Fecha o socket se a thread terminar
-                if (socket != null && !socket.isClosed()) {
-                    socket.close();
+                queue.offer(receiveBuffer, receiveNanos, senderSocket.getPort());
+            }
+        }
+
+        /**
+         * Contabiliza o datagrama recém-recebido; um datagrama que ocupou o byte
+         * extra do buffer foi truncado pelo socket e é limitado a MAX_PACKET_SIZE
+         */
+        private void countReceived() {
+            if (receiveBuffer.remaining() > MAX_PACKET_SIZE) {
+                receiveBuffer.limit(MAX_PACKET_SIZE);
+                long count = ++truncated;
+                // Avisa no 1º, 2º, 4º, 8º... truncamento para não inundar o console
+                if ((count & (count - 1)) == 0) {
+                    System.err.println("Datagrama maior que " + MAX_PACKET_SIZE + " bytes truncado na porta "
+                            + port + " (" + count + " no total)");
                 }
-                System.out.println("Socket UDP compartilhado encerrado na porta " + port);
             }
+            datagrams++;
+            bytes += receiveBuffer.remaining();
         }
 
-        private void deliverMessageToListeners(String senderIp, String message) {
-            // Verifica se há algum listener registrado para este IP
-            Consumer<String> listener = ipListeners.get(senderIp);
-            if (listener != null) {
-                listener.accept("Recebido de " + senderIp + ": " + message);
+        /**
+         * Consulta O(1) da fila do remetente; cria uma fila sob demanda se o
+         * remetente só for atendido pelo curinga, até o limite de filas da porta
+         */
+        private PdvQueue queueFor(InetAddress senderAddress, long receiveNanos) {
+            List<PdvQueue> queues = routes.lookup(senderAddress);
+            if (!queues.isEmpty()) {
+                return queues.get(0);
             }
 
-            // Verifica se há algum listener "curinga" (0.0.0.0) que recebe mensagens de qualquer IP
-            listener = ipListeners.get("0.0.0.0");
-            if (listener != null) {
-                listener.accept("Recebido de " + senderIp + ": " + message);
+            if (wildcardSubscribers.isEmpty()) {
+                return null;
             }
+
+            PdvQueue queue = wildcardQueues.get(senderAddress);
+            if (queue == null) {
+                if (wildcardQueues.size() >= MAX_WILDCARD_QUEUES && !evictIdleWildcardQueues(receiveNanos)) {
+                    long rejects = ++wildcardRejects;
+                    // Avisa no 1º, 2º, 4º, 8º... descarte para não inundar o console
+                    if ((rejects & (rejects - 1)) == 0) {
+                        System.err.println("Limite de " + MAX_WILDCARD_QUEUES + " PDVs do curinga na porta " + port
+                                + " atingido: datagrama de " + senderAddress.getHostAddress() + " descartado ("
+                                + rejects + " no total)");
+                    }
+                    return null;
+                }
+                queue = newQueue(senderAddress);
+                wildcardQueues.put(senderAddress, queue);
+            }
+            return queue;
         }
 
-        public synchronized void stop() {
-            if (!running) {
-                return;
+        /**
+         * Encerra as filas do curinga sem datagramas há mais que o tempo de
+         * inatividade. Varre no máximo uma vez por intervalo, para que uma
+         * rajada de remetentes novos não percorra as filas a cada datagrama.
+         * @return true se alguma fila foi liberada
+         */
+        private boolean evictIdleWildcardQueues(long nowNanos) {
+            if (lastEvictionNanos != Long.MIN_VALUE
+                    && nowNanos - lastEvictionNanos < WILDCARD_EVICTION_INTERVAL_NANOS) {
+                return false;
             }
+            lastEvictionNanos = nowNanos;
+
+            boolean evicted = false;
+            Iterator<PdvQueue> queues = wildcardQueues.values().iterator();
+            while (queues.hasNext()) {
+                PdvQueue queue = queues.next();
+                if (nowNanos - queue.lastReceiveNanos() > WILDCARD_IDLE_NANOS) {
+                    queues.remove();
+                    queue.close();
+                    evicted = true;
+                }
+            }
+            return evicted;
+        }
 
-            running = false;
+        private PdvQueue newQueue(InetAddress address) {
+            String ip = address.getHostAddress();
+            ReceiptLaneFactory lanes = receiptLanes;
+            PdvQueue queue = new PdvQueue(ip, port, pdvQueueBytes, MAX_PACKET_SIZE,
+                    () -> wildcardSubscribers, () -> formatCache, lanes != null ? lanes.laneFor(ip, port) : null);
+            queue.start();
+            return queue;
+        }
 
-            if (socket != null) {
-                socket.close();
+        /**
+         * Cancela o registro no seletor, fecha o canal e encerra as filas.
+         * Aguarda a thread do seletor liberar o socket, para que a porta possa
+         * ser registrada novamente logo em seguida sem BindException.
+         */
+        public void close() {
+            CountDownLatch closed = new CountDownLatch(1);
+
+            runOnSelector(() -> {
+                if (selectionKey != null) {
+                    selectionKey.cancel();
+                }
+                closeQuietly();
+                try {
+                    // O socket de um canal registrado só é liberado quando o
+                    // seletor processa a chave cancelada
+                    selector.selectNow(key -> ((PortHandler) key.attachment()).read());
+                } catch (IOException | ClosedSelectorException ignored) {
+                    // O socket é liberado de qualquer forma ao fechar o seletor
+                }
+                routes.all().forEach(PdvQueue::close);
+                wildcardQueues.values().forEach(PdvQueue::close);
+                wildcardQueues.clear();
+                System.out.println("Socket UDP compartilhado encerrado na porta " + port);
+                closed.countDown();
+            });
+
+            try {
+                if (!closed.await(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    System.err.println("Tempo esgotado aguardando o fechamento da porta " + port);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
 
-            if (listenerThread != null) {
-                listenerThread.interrupt();
+        private void closeQuietly() {
+            if (channel != null && channel.isOpen()) {
                 try {
-                    listenerThread.join(1000); // Espera um segundo para a thread terminar
-                } catch (InterruptedException ignored) {
-                    Thread.currentThread().interrupt();
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Nada a fazer, o canal já está sendo descartado
                 }
             }
         }
 
-        public void registerListener(String ip, Consumer<String> callback) {
-            ipListeners.put(ip, callback);
+        public void registerListener(String ip, InetAddress address, Subscriber subscriber) {
+            if (address.isAnyLocalAddress()) {
+                List<Subscriber> updated = new ArrayList<>(wildcardSubscribers);
+                updated.add(subscriber);
+                wildcardSubscribers = List.copyOf(updated);
+            } else {
+                List<PdvQueue> queues = routes.lookup(address);
+                PdvQueue queue = queues.isEmpty() ? null : queues.get(0);
+                if (queue == null) {
+                    queue = newQueue(address);
+                    routes.add(address, queue);
+
+                    // Uma fila criada antes pelo curinga para este IP deixa de ser usada
+                    runOnSelector(() -> {
+                        PdvQueue previous = wildcardQueues.remove(address);
+                        if (previous != null) {
+                            previous.close();
+                        }
+                    });
+                }
+                queue.addSubscriber(subscriber);
+            }
             System.out.println("Registrado listener para IP " + ip + " na porta " + port);
         }
 
-        public void unregisterListener(String ip) {
-            ipListeners.remove(ip);
+        /**
+         * Remove os assinantes do IP que correspondem ao callback informado
+         * (ou todos, se o callback for nulo)
+         */
+        public void unregisterListener(String ip, InetAddress address, Object callback) {
+            if (address.isAnyLocalAddress()) {
+                List<Subscriber> updated = new ArrayList<>(wildcardSubscribers);
+                updated.removeIf(subscriber -> callback == null || subscriber.wraps(callback));
+                wildcardSubscribers = List.copyOf(updated);
+
+                if (updated.isEmpty()) {
+                    runOnSelector(() -> {
+                        wildcardQueues.values().forEach(PdvQueue::close);
+                        wildcardQueues.clear();
+                    });
+                }
+            } else {
+                for (PdvQueue queue : routes.lookup(address)) {
+                    queue.removeSubscribers(callback);
+                    if (!queue.hasSubscribers()) {
+                        routes.remove(address, queue);
+                        queue.close();
+                    }
+                }
+            }
             System.out.println("Removido listener para IP " + ip + " da porta " + port);
+        }
 
-            // Se não há mais listeners registrados, podemos parar este handler
-            if (ipListeners.isEmpty()) {
-                stop();
-                portHandlers.remove(port);
+        /**
+         * @return true se não há mais assinantes nesta porta
+         */
+        public boolean isEmpty() {
+            return routes.isEmpty() && wildcardSubscribers.isEmpty();
+        }
+
+        private void collectStats(List<PdvQueueStats> stats) {
+            routes.all().forEach(queue -> stats.add(queue.stats()));
+            wildcardQueues.values().forEach(queue -> stats.add(queue.stats()));
+        }
+
+        private PortMetrics metrics() {
+            long queueDrops = 0;
+            long sequenceGaps = 0;
+            for (PdvQueue queue : routes.all()) {
+                queueDrops += queue.droppedCount();
+                sequenceGaps += queue.sequenceGapCount();
             }
+            for (PdvQueue queue : wildcardQueues.values()) {
+                queueDrops += queue.droppedCount();
+                sequenceGaps += queue.sequenceGapCount();
+            }
+            return new PortMetrics(port, datagrams, bytes, truncated, queueDrops, wildcardRejects, sequenceGaps,
+                    KernelUdpStats.drops(port), receiveBufferRequested, receiveBufferActual);
         }
     }
 
@@ -191,42 +454,333 @@ public class SharedUdpListener {
     }
 
     /**
-     * Registra um listener para receber mensagens de um IP específico em uma porta específica
+     * Inicia a thread do seletor caso ainda não esteja rodando
+     */
+    private void ensureEventLoop() throws IOException {
+        if (running) {
+            return;
+        }
+
+        // Duas threads nunca atendem o mesmo seletor: a anterior precisa ter terminado
+        awaitPreviousSelectorThread();
+
+        selector = Selector.open();
+        running = true;
+
+        selectorThread = new Thread(this::runEventLoop, "UDP-Selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+
+        System.out.println("Thread do seletor UDP iniciada");
+    }
+
+    /**
+     * Loop principal: aguarda pacotes em qualquer porta registrada e os despacha.
+     * Bloqueia sem timeout; é acordado por pacotes ou por {@link Selector#wakeup()}.
+     */
+    private void runEventLoop() {
+        try {
+            while (running) {
+                try {
+                    selector.select(key -> ((PortHandler) key.attachment()).read());
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    System.err.println("Erro no seletor UDP: " + e.getMessage());
+                }
+
+                runPendingTasks();
+            }
+        } finally {
+            // Executa tarefas restantes (fechamento de canais) antes de encerrar
+            runPendingTasks();
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // Seletor já está sendo descartado
+            }
+            System.out.println("Thread do seletor UDP encerrada");
+        }
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Agenda uma tarefa para a thread do seletor e a acorda
+     */
+    private void runOnSelector(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Aguarda o término de uma thread do seletor que não encerrou dentro do
+     * tempo em {@link #stopEventLoop()}
+     * @throws IOException Se a thread anterior ainda está em execução
+     */
+    private void awaitPreviousSelectorThread() throws IOException {
+        Thread previous = selectorThread;
+        if (previous == null) {
+            return;
+        }
+
+        try {
+            previous.join(SELECTOR_STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompido aguardando o término da thread do seletor UDP anterior");
+        }
+        if (previous.isAlive()) {
+            throw new IOException("Thread do seletor UDP anterior ainda em execução");
+        }
+        selectorThread = null;
+    }
+
+    /**
+     * Encerra a thread do seletor quando não há mais portas abertas.
+     * Se ela não terminar dentro do tempo, a referência é mantida e o próximo
+     * {@link #ensureEventLoop()} aguarda o término antes de abrir outro seletor.
+     */
+    private void stopEventLoop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        selector.wakeup();
+
+        if (selectorThread != null && selectorThread != Thread.currentThread()) {
+            try {
+                selectorThread.join(SELECTOR_STOP_TIMEOUT_MS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            if (selectorThread.isAlive()) {
+                System.err.println("Thread do seletor UDP não encerrou em " + SELECTOR_STOP_TIMEOUT_MS + " ms");
+                return;
+            }
+        }
+        selectorThread = null;
+    }
+
+    /**
+     * Registra um callback para receber as mensagens formatadas de um IP em uma porta
      * @param ip O IP do PDV
      * @param port A porta do PDV
      * @param callback O callback para receber as mensagens
      * @return true se o registro foi bem sucedido, false caso contrário
      */
+    @Override
     public boolean registerListener(String ip, int port, Consumer<String> callback) {
+        return register(ip, port, Subscriber.formatted(callback));
+    }
+
+    /**
+     * Registra um consumidor que recebe as mensagens como CharSequence reutilizável,
+     * sem criação de String por pacote
+     * @param ip O IP do PDV
+     * @param port A porta do PDV
+     * @param handler O consumidor das mensagens
+     * @return true se o registro foi bem sucedido, false caso contrário
+     */
+    @Override
+    public boolean registerListener(String ip, int port, DatagramHandler handler) {
+        return register(ip, port, Subscriber.raw(handler));
+    }
+
+    /**
+     * Registra um consumidor dos eventos de cupom de um PDV, extraídos dos bytes
+     * do datagrama sem formatação em texto
+     * @param ip O IP do PDV
+     * @param port A porta do PDV
+     * @param handler O consumidor dos eventos
+     * @return true se o registro foi bem sucedido, false caso contrário
+     */
+    @Override
+    public boolean registerReceiptListener(String ip, int port, ReceiptEventHandler handler) {
+        return register(ip, port, Subscriber.receipt(handler));
+    }
+
+    private synchronized boolean register(String ip, int port, Subscriber subscriber) {
         try {
-            // Obtém ou cria o handler para esta porta
-            PortHandler handler = portHandlers.computeIfAbsent(port, k -> new PortHandler(port));
+            // Resolve o endereço uma única vez; o roteamento usa o endereço binário
+            InetAddress address = InetAddress.getByName(ip);
+
+            ensureEventLoop();
 
-            // Inicia o handler se ainda não foi iniciado
-            if (!handler.running) {
-                handler.start();
+            // Obtém ou cria o handler para esta porta
+            PortHandler portHandler = portHandlers.get(port);
+            if (portHandler == null) {
+                portHandler = new PortHandler(port);
+                portHandler.open();
+                portHandlers.put(port, portHandler);
             }
 
-            // Registra o callback para este IP
-            handler.registerListener(ip, callback);
+            // Registra o assinante para este IP
+            portHandler.registerListener(ip, address, subscriber);
 
             return true;
         } catch (IOException e) {
             System.err.println("Erro ao registrar listener para " + ip + ":" + port + ": " + e.getMessage());
             e.printStackTrace();
+            if (portHandlers.isEmpty()) {
+                stopEventLoop();
+            }
             return false;
         }
     }
 
     /**
-     * Remove um listener registrado
+     * Remove todos os listeners de um IP em uma porta
      * @param ip O IP do PDV
      * @param port A porta do PDV
      */
+    @Override
     public void unregisterListener(String ip, int port) {
+        unregister(ip, port, null);
+    }
+
+    @Override
+    public void unregisterListener(String ip, int port, Consumer<String> callback) {
+        unregister(ip, port, callback);
+    }
+
+    @Override
+    public void unregisterListener(String ip, int port, DatagramHandler handler) {
+        unregister(ip, port, handler);
+    }
+
+    @Override
+    public void unregisterReceiptListener(String ip, int port, ReceiptEventHandler handler) {
+        unregister(ip, port, handler);
+    }
+
+    private synchronized void unregister(String ip, int port, Object callback) {
         PortHandler handler = portHandlers.get(port);
-        if (handler != null) {
-            handler.unregisterListener(ip);
+        if (handler == null) {
+            return;
+        }
+
+        try {
+            handler.unregisterListener(ip, InetAddress.getByName(ip), callback);
+        } catch (UnknownHostException e) {
+            return; // Nunca poderia ter sido registrado
         }
+
+        // Se não há mais listeners registrados, podemos fechar esta porta
+        if (handler.isEmpty()) {
+            portHandlers.remove(port);
+            handler.close();
+
+            // Sem portas abertas, a thread do seletor também é encerrada
+            if (portHandlers.isEmpty()) {
+                stopEventLoop();
+            }
+        }
+    }
+
+    /**
+     * @return Número de portas atualmente abertas
+     */
+    public int getOpenPortCount() {
+        return portHandlers.size();
+    }
+
+    /**
+     * Define a memória reservada para a fila de cada PDV.
+     * Vale para as filas criadas a partir deste momento.
+     * @param bytes Capacidade em bytes de cada fila
+     */
+    public void setPdvQueueBudget(int bytes) {
+        this.pdvQueueBytes = bytes;
+    }
+
+    /**
+     * @return Memória reservada para a fila de cada PDV, em bytes
+     */
+    public int getPdvQueueBudget() {
+        return pdvQueueBytes;
+    }
+
+    /**
+     * @return Contadores de enfileiramento, descarte e ocupação máxima de cada PDV
+     */
+    public List<PdvQueueStats> getPdvQueueStats() {
+        List<PdvQueueStats> stats = new ArrayList<>();
+        for (PortHandler handler : portHandlers.values()) {
+            handler.collectStats(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Define o SO_RCVBUF solicitado para cada porta.
+     * Vale para as portas abertas a partir deste momento.
+     * @param bytes Tamanho do buffer de recepção do socket
+     */
+    public void setReceiveBufferSize(int bytes) {
+        this.receiveBufferBytes = bytes;
+    }
+
+    /**
+     * @return SO_RCVBUF solicitado para cada porta, em bytes
+     */
+    public int getReceiveBufferSize() {
+        return receiveBufferBytes;
+    }
+
+    /**
+     * Define os consumidores de eventos de cupom do motor (ex.: motor de regras).
+     * Cada fila de PDV é alimentada uma vez por datagrama, seja qual for o número
+     * de quadrantes que assinam aquele PDV. Vale para as filas criadas a partir
+     * deste momento.
+     * @param factory Fábrica do consumidor de cada PDV (IP e porta), ou null para nenhum
+     */
+    public void setReceiptLaneFactory(ReceiptLaneFactory factory) {
+        this.receiptLanes = factory;
+    }
+
+    /**
+     * Ativa a detecção de lacunas para PDVs que carimbam uma sequência nos datagramas
+     * @param extractor Extrator da sequência, ou null para desativar
+     */
+    public void setSequenceExtractor(DatagramSequence extractor) {
+        this.sequenceExtractor = extractor;
+    }
+
+    /**
+     * @return Métricas de recepção, truncamento e descarte (kernel e aplicação) de cada porta aberta
+     */
+    public List<PortMetrics> getPortMetrics() {
+        List<PortMetrics> metrics = new ArrayList<>();
+        for (PortHandler handler : portHandlers.values()) {
+            metrics.add(handler.metrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Define a memória do cache de mensagens formatadas, descartando as entradas atuais
+     * @param bytes Limite de memória do cache, ou 0 para desativá-lo
+     */
+    public void setFormatCacheBudget(long bytes) {
+        this.formatCache = newFormatCache(bytes);
+    }
+
+    /**
+     * @return Contadores do cache de mensagens formatadas, ou null se desativado
+     */
+    public FormatCacheStats getFormatCacheStats() {
+        FormattedMessageCache cache = formatCache;
+        return cache != null ? cache.stats() : null;
+    }
+
+    private static FormattedMessageCache newFormatCache(long bytes) {
+        return bytes > 0 ? new FormattedMessageCache(bytes, FORMAT_CACHE_MAX_ENTRY_BYTES) : null;
     }
-}
\ No newline at end of file
+}
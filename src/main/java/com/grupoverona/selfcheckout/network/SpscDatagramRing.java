@@ -0,0 +1,154 @@
+package com.grupoverona.selfcheckout.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Buffer circular de bytes para datagramas, com um único produtor e um único
+ * consumidor (SPSC), sem locks.
+ *
+ * Cada registro ocupa um cabeçalho fixo seguido do conteúdo, alinhado a 8 bytes:
+ * [tamanho:int][porta de origem:int][instante de recepção:long][bytes...].
+ * Quando um registro não cabe no espaço até o fim do buffer, o produtor grava
+ * um marcador de volta e continua do início. As posições de leitura e escrita
+ * crescem monotonicamente e são publicadas em campos volatile.
+ */
+class SpscDatagramRing {
+
+    private static final int HEADER_SIZE = 16;
+    private static final int WRAP_MARKER = -1;
+
+    private final byte[] data;
+    private final ByteBuffer buffer;
+    private final int capacity;
+
+    // Posição de leitura (escrita apenas pelo consumidor)
+    private volatile long head = 0;
+
+    // Posição de escrita (escrita apenas pelo produtor)
+    private volatile long tail = 0;
+
+    // Visão reutilizada pelo consumidor para entregar o conteúdo de um registro
+    private final ByteBuffer readView;
+
+    /**
+     * Consumidor de registros lidos do buffer
+     */
+    interface RecordHandler {
+        /**
+         * @param payload Conteúdo do datagrama (entre position e limit), válido apenas durante a chamada
+         * @param senderPort Porta de origem
+         * @param receiveNanos Instante de recepção (System.nanoTime)
+         */
+        void onRecord(ByteBuffer payload, int senderPort, long receiveNanos);
+    }
+
+    /**
+     * @param capacityBytes Capacidade em bytes (arredondada para múltiplo de 8)
+     */
+    SpscDatagramRing(int capacityBytes) {
+        this.capacity = align(Math.max(capacityBytes, HEADER_SIZE));
+        this.data = new byte[capacity];
+        this.buffer = ByteBuffer.wrap(data);
+        this.readView = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Copia um datagrama para o buffer. Chamado apenas pelo produtor.
+     * @param payload Conteúdo do datagrama (entre position e limit)
+     * @return false se não havia espaço (o datagrama é descartado)
+     */
+    boolean offer(ByteBuffer payload, int senderPort, long receiveNanos) {
+        int length = payload.remaining();
+        int recordSize = align(HEADER_SIZE + length);
+        if (recordSize > capacity) {
+            return false;
+        }
+
+        long writePosition = tail;
+        int offset = (int) (writePosition % capacity);
+        int untilEnd = capacity - offset;
+        int padding = recordSize > untilEnd ? untilEnd : 0;
+
+        if (writePosition + padding + recordSize - head > capacity) {
+            return false; // Buffer cheio
+        }
+
+        if (padding > 0) {
+            // Marca o restante do buffer como vazio e volta ao início
+            if (untilEnd >= Integer.BYTES) {
+                buffer.putInt(offset, WRAP_MARKER);
+            }
+            offset = 0;
+        }
+
+        buffer.putInt(offset, length);
+        buffer.putInt(offset + 4, senderPort);
+        buffer.putLong(offset + 8, receiveNanos);
+        buffer.put(offset + HEADER_SIZE, payload, payload.position(), length);
+
+        // Publica o registro para o consumidor
+        tail = writePosition + padding + recordSize;
+        return true;
+    }
+
+    /**
+     * Lê e entrega o próximo registro. Chamado apenas pelo consumidor.
+     * @return false se o buffer estava vazio
+     */
+    boolean poll(RecordHandler handler) {
+        long readPosition = head;
+
+        while (true) {
+            if (readPosition == tail) {
+                return false;
+            }
+
+            int offset = (int) (readPosition % capacity);
+            int untilEnd = capacity - offset;
+            if (untilEnd < HEADER_SIZE || buffer.getInt(offset) == WRAP_MARKER) {
+                // Espaço de volta: avança para o início do buffer
+                readPosition += untilEnd;
+                continue;
+            }
+
+            int length = buffer.getInt(offset);
+            int senderPort = buffer.getInt(offset + 4);
+            long receiveNanos = buffer.getLong(offset + 8);
+
+            readView.limit(offset + HEADER_SIZE + length);
+            readView.position(offset + HEADER_SIZE);
+            try {
+                handler.onRecord(readView, senderPort, receiveNanos);
+            } finally {
+                // Libera o espaço para o produtor
+                head = readPosition + align(HEADER_SIZE + length);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return true se não há registros pendentes
+     */
+    boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * @return Bytes ocupados no momento (aproximado se lido fora do produtor/consumidor)
+     */
+    int usedBytes() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * @return Capacidade total em bytes
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+}
@@ -0,0 +1,53 @@
+package com.grupoverona.selfcheckout.network;
+
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+
+import java.util.function.Consumer;
+
+/**
+ * Assinante registrado no motor UDP: consumidor bruto ({@link DatagramHandler}),
+ * callback de mensagens formatadas (String) ou consumidor de eventos de cupom.
+ */
+final class Subscriber {
+    private final DatagramHandler handler;
+    private final Consumer<String> callback;
+    private final ReceiptEventHandler receiptHandler;
+
+    private Subscriber(DatagramHandler handler, Consumer<String> callback, ReceiptEventHandler receiptHandler) {
+        this.handler = handler;
+        this.callback = callback;
+        this.receiptHandler = receiptHandler;
+    }
+
+    static Subscriber raw(DatagramHandler handler) {
+        return new Subscriber(handler, null, null);
+    }
+
+    static Subscriber formatted(Consumer<String> callback) {
+        return new Subscriber(null, callback, null);
+    }
+
+    static Subscriber receipt(ReceiptEventHandler receiptHandler) {
+        return new Subscriber(null, null, receiptHandler);
+    }
+
+    /**
+     * Entrega o datagrama; a mensagem formatada só é criada se este assinante a pedir
+     */
+    void deliver(PdvQueue.Delivery delivery) {
+        if (handler != null) {
+            handler.onDatagram(delivery.senderIp(), delivery.rawMessage());
+        } else if (receiptHandler != null) {
+            delivery.tokenize(receiptHandler);
+        } else {
+            callback.accept(delivery.processedMessage());
+        }
+    }
+
+    /**
+     * @return true se este assinante encapsula o callback ou consumidor informado
+     */
+    boolean wraps(Object target) {
+        return handler == target || callback == target || receiptHandler == target;
+    }
+}
@@ -1,47 +1,55 @@
 package com.grupoverona.selfcheckout.network;
 
-import com.grupoverona.selfcheckout.util.MessageProcessor;
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
 
-import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.function.Consumer;
 
 /**
  * Listener UDP para receber mensagens do PDV.
- * Implementação otimizada para reduzir consumo de CPU e energia
- * através de um socket compartilhado.
+ * Representa a assinatura de um PDV (IP e porta) no {@link UdpMessageEngine}:
+ * o socket da porta é compartilhado com os demais PDVs que enviam nela, e a
+ * mensagem chega já formatada pelo MessageProcessor.
  */
 public class UdpListener {
     // Porta padrão para comunicação PDV
     private static final int DEFAULT_PORT = 38800;
 
-    // Tamanho máximo do buffer para receber pacotes UDP
-    private static final int MAX_PACKET_SIZE = 4096;
-
     // Configuração do PDV
     private final String remoteIpAddress;
+    private final InetAddress remoteAddress;
     private final int port;
 
-    // Socket UDP compartilhado
-    private static DatagramSocket sharedSocket;
-    private static Thread listenerThread;
-    private static final AtomicBoolean threadRunning = new AtomicBoolean(false);
-    private static byte[] sharedBuffer;
+    // Motor de recepção compartilhado
+    private final UdpMessageEngine engine;
 
     // Estado deste listener
-    private boolean isActive = false;
+    private volatile boolean isActive = false;
 
     // Callback para processar mensagens recebidas
     private Consumer<String> messageCallback;
 
+    // Callback efetivamente registrado no motor
+    private final Consumer<String> engineCallback = this::onMessage;
+
+    // Consumidor opcional dos eventos de cupom deste PDV (ex.: motor de regras)
+    private ReceiptEventHandler receiptHandler;
+
     /**
      * Cria um listener para um PDV específico.
      * @param ipAddress Endereço no formato "IP:PORTA" ou apenas "IP" (usa porta padrão)
      */
     public UdpListener(String ipAddress) {
+        this(ipAddress, SharedUdpListener.getInstance());
+    }
+
+    /**
+     * Cria um listener para um PDV específico usando o motor informado.
+     * @param ipAddress Endereço no formato "IP:PORTA" ou apenas "IP" (usa porta padrão)
+     * @param engine Motor de recepção UDP
+     */
+    public UdpListener(String ipAddress, UdpMessageEngine engine) {
         // Separa o IP e a porta (formato esperado: IP:PORTA)
         if (ipAddress.contains(":")) {
             String[] parts = ipAddress.split(":");
@@ -52,6 +60,15 @@ public class UdpListener {
             this.port = DEFAULT_PORT;
         }
 
+        // Resolve o endereço uma única vez; o roteamento usa o endereço binário
+        try {
+            this.remoteAddress = InetAddress.getByName(remoteIpAddress);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Endereço IP inválido: " + remoteIpAddress, e);
+        }
+
+        this.engine = engine;
+
         // Registra no registro central de listeners
         UdpListenerRegistry.addListener(this);
     }
@@ -64,6 +81,15 @@ public class UdpListener {
         this.messageCallback = callback;
     }
 
+    /**
+     * Define o consumidor dos eventos de cupom deste PDV, registrado no motor
+     * junto com o callback de mensagens. Deve ser chamado antes de start().
+     * @param handler Consumidor dos eventos, ou null para nenhum
+     */
+    public void setReceiptEventHandler(ReceiptEventHandler handler) {
+        this.receiptHandler = handler;
+    }
+
     /**
      * Inicia o listener UDP
      */
@@ -72,150 +98,34 @@ public class UdpListener {
             return; // Evita iniciar múltiplas vezes
         }
 
-        isActive = true;
-
-        try {
-            // Inicia o socket compartilhado se necessário
-            if (sharedSocket == null) {
-                initializeSharedSocket();
+        // Assina as mensagens deste PDV na porta configurada
+        if (engine.registerListener(remoteIpAddress, port, engineCallback)) {
+            if (receiptHandler != null) {
+                engine.registerReceiptListener(remoteIpAddress, port, receiptHandler);
             }
-
-            // Notifica que está ativo
+            isActive = true;
             notifyClient("Ouvindo PDV: " + remoteIpAddress + " na porta " + port);
-        } catch (Exception e) {
-            notifyClient("Erro ao iniciar listener: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Envia mensagem para o cliente através do callback
-     */
-    private void notifyClient(String message) {
-        if (messageCallback != null) {
-            messageCallback.accept(message);
-        }
-    }
-
-    /**
-     * Inicializa o socket compartilhado usado por todos os listeners
-     */
-    private synchronized void initializeSharedSocket() throws IOException {
-        if (sharedSocket != null) {
-            return; // Já inicializado
-        }
-
-        try {
-            // Cria um novo socket com configurações otimizadas
-            sharedSocket = new DatagramSocket(DEFAULT_PORT);
-            sharedSocket.setSoTimeout(5000); // 5 segundos de timeout
-
-            // Inicializa buffer compartilhado
-            sharedBuffer = new byte[MAX_PACKET_SIZE];
-
-            // Inicia a thread de escuta
-            if (threadRunning.compareAndSet(false, true)) {
-                startListenerThread();
-            }
-        } catch (IOException e) {
-            notifyClient("Erro ao abrir socket: " + e.getMessage());
-            throw e;
+        } else {
+            notifyClient("Erro ao iniciar listener: não foi possível abrir a porta " + port);
         }
     }
 
     /**
-     * Inicia a thread de escuta compartilhada
-     */
-    private void startListenerThread() {
-        listenerThread = new Thread(() -> {
-            try {
-                System.out.println("Iniciando thread de escuta UDP na porta " + DEFAULT_PORT);
-                DatagramPacket packet = new DatagramPacket(sharedBuffer, sharedBuffer.length);
-
-                while (threadRunning.get()) {
-                    try {
-                        // Aguarda pacote (com timeout configurado)
-                        sharedSocket.receive(packet);
-
-                        // Obtém informações do remetente
-                        String senderIp = packet.getAddress().getHostAddress();
-                        int senderPort = packet.getPort();
-
-                        // Converte dados para string
-                        String message = new String(
-                                packet.getData(),
-                                packet.getOffset(),
-                                packet.getLength(),
-                                StandardCharsets.UTF_8
-                        ).trim();
-
-                        // Processa apenas se não estiver vazia
-                        if (!message.isEmpty()) {
-                            deliverMessage(senderIp, senderPort, message);
-                        }
-
-                        // Reinicia o packet para próximo recebimento
-                        packet.setLength(sharedBuffer.length);
-                    } catch (java.net.SocketTimeoutException e) {
-                        // Timeout normal, continua
-                        continue;
-                    } catch (IOException e) {
-                        if (threadRunning.get()) {
-                            System.err.println("Erro ao receber pacote: " + e.getMessage());
-                            try {
-                                Thread.sleep(1000); // Evita loop de erro intensivo
-                            } catch (InterruptedException ie) {
-                                Thread.currentThread().interrupt();
-                                break;
-                            }
-                        }
-                    }
-                }
-            } finally {
-                closeSocket();
-            }
-        }, "UDP-Listener-Thread");
-
-        // Configurações para otimização
-        listenerThread.setDaemon(true);
-        listenerThread.setPriority(Thread.MIN_PRIORITY);
-        listenerThread.start();
-    }
-
-    /**
-     * Fecha o socket compartilhado
+     * Recebe as mensagens já formatadas do motor
      */
-    private static synchronized void closeSocket() {
-        if (sharedSocket != null && !sharedSocket.isClosed()) {
-            sharedSocket.close();
-            sharedSocket = null;
-            System.out.println("Socket UDP encerrado");
+    private void onMessage(String message) {
+        if (isActive) {
+            notifyClient(message);
         }
     }
 
     /**
-     * Distribui mensagens recebidas para os listeners interessados
+     * Envia mensagem para o cliente através do callback
      */
-    private static void deliverMessage(String senderIp, int senderPort, String message) {
-        UdpListener[] listeners = UdpListenerRegistry.getActiveListeners();
-        boolean messageDelivered = false;
-        String processedMessage = null;
-
-        for (UdpListener listener : listeners) {
-            if (listener.isActive && listener.remoteIpAddress.equals(senderIp)) {
-                if (listener.messageCallback != null) {
-                    // Processa a mensagem apenas uma vez para economizar processamento
-                    if (!messageDelivered) {
-                        String senderInfo = senderIp + ":" + senderPort;
-                        processedMessage = MessageProcessor.processUdpMessage(senderInfo, message);
-                        listener.messageCallback.accept(processedMessage);
-                        messageDelivered = true;
-                    } else {
-                        // Reutiliza a mensagem já processada
-                        listener.messageCallback.accept(processedMessage);
-                    }
-                }
-            }
+    private void notifyClient(String message) {
+        Consumer<String> callback = messageCallback;
+        if (callback != null) {
+            callback.accept(message);
         }
     }
 
@@ -223,18 +133,18 @@ public class UdpListener {
      * Para este listener UDP específico
      */
     public synchronized void stop() {
+        UdpListenerRegistry.removeListener(this);
+
         if (!isActive) {
             return;
         }
 
         isActive = false;
-        notifyClient("Listener para " + remoteIpAddress + " encerrado");
-        UdpListenerRegistry.removeListener(this);
-
-        // Verifica se ainda há listeners ativos
-        if (UdpListenerRegistry.getActiveListeners().length == 0) {
-            threadRunning.set(false);
+        engine.unregisterListener(remoteIpAddress, port, engineCallback);
+        if (receiptHandler != null) {
+            engine.unregisterReceiptListener(remoteIpAddress, port, receiptHandler);
         }
+        notifyClient("Listener para " + remoteIpAddress + " encerrado");
     }
 
     /**
@@ -244,6 +154,13 @@ public class UdpListener {
         return remoteIpAddress;
     }
 
+    /**
+     * @return O endereço IP remoto já resolvido
+     */
+    public InetAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
     /**
      * @return A porta deste listener
      */
@@ -257,4 +174,4 @@ public class UdpListener {
     public boolean isActive() {
         return isActive;
     }
-}
\ No newline at end of file
+}
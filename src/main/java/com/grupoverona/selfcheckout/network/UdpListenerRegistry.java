@@ -1,31 +1,27 @@
 package com.grupoverona.selfcheckout.network;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
- * Registro centralizado de listeners UDP ativos.
- * Esta classe permite que múltiplos listeners compartilhem
- * um único socket, otimizando recursos e consumo de energia.
+ * Registro centralizado dos listeners UDP criados pela aplicação,
+ * indexados pelo IP do PDV.
+ * O roteamento dos pacotes é feito pelo {@link UdpMessageEngine}; este registro
+ * serve para consulta e para encerrar todos os listeners de uma vez.
  */
 public class UdpListenerRegistry {
 
-    // Lista thread-safe de listeners ativos
-    private static final List<UdpListener> activeListeners =
-            Collections.synchronizedList(new ArrayList<>());
+    // Tabela de roteamento IP → listeners ativos
+    private static final UdpRoutingTable<UdpListener> routes = new UdpRoutingTable<>();
 
     /**
      * Adiciona um listener ao registro
      * @param listener O listener a ser adicionado
      */
     public static void addListener(UdpListener listener) {
-        synchronized (activeListeners) {
-            if (!activeListeners.contains(listener)) {
-                activeListeners.add(listener);
-                System.out.println("Listener registrado para " + listener.getRemoteIpAddress() +
-                        " na porta " + listener.getPort());
-            }
+        if (routes.add(listener.getRemoteAddress(), listener)) {
+            System.out.println("Listener registrado para " + listener.getRemoteIpAddress() +
+                    " na porta " + listener.getPort());
         }
     }
 
@@ -34,11 +30,9 @@ public class UdpListenerRegistry {
      * @param listener O listener a ser removido
      */
     public static void removeListener(UdpListener listener) {
-        synchronized (activeListeners) {
-            if (activeListeners.remove(listener)) {
-                System.out.println("Listener removido para " + listener.getRemoteIpAddress() +
-                        " na porta " + listener.getPort());
-            }
+        if (routes.remove(listener.getRemoteAddress(), listener)) {
+            System.out.println("Listener removido para " + listener.getRemoteIpAddress() +
+                    " na porta " + listener.getPort());
         }
     }
 
@@ -47,9 +41,7 @@ public class UdpListenerRegistry {
      * @return Array com os listeners ativos
      */
     public static UdpListener[] getActiveListeners() {
-        synchronized (activeListeners) {
-            return activeListeners.toArray(new UdpListener[0]);
-        }
+        return routes.all().toArray(new UdpListener[0]);
     }
 
     /**
@@ -60,11 +52,9 @@ public class UdpListenerRegistry {
     public static List<UdpListener> getListenersForIp(String ipAddress) {
         List<UdpListener> result = new ArrayList<>();
 
-        synchronized (activeListeners) {
-            for (UdpListener listener : activeListeners) {
-                if (listener.isActive() && listener.getRemoteIpAddress().equals(ipAddress)) {
-                    result.add(listener);
-                }
+        for (UdpListener listener : routes.all()) {
+            if (listener.isActive() && listener.getRemoteIpAddress().equals(ipAddress)) {
+                result.add(listener);
             }
         }
 
@@ -75,22 +65,17 @@ public class UdpListenerRegistry {
      * @return Número atual de listeners ativos
      */
     public static int getActiveListenerCount() {
-        synchronized (activeListeners) {
-            return activeListeners.size();
-        }
+        return routes.all().size();
     }
 
     /**
      * Libera todos os listeners e recursos
      */
     public static void disposeAll() {
-        synchronized (activeListeners) {
-            UdpListener[] listeners = getActiveListeners();
-            for (UdpListener listener : listeners) {
-                listener.stop();
-            }
-            activeListeners.clear();
+        for (UdpListener listener : getActiveListeners()) {
+            listener.stop();
         }
+        routes.clear();
         System.out.println("Todos os listeners UDP foram encerrados");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.grupoverona.selfcheckout.network;
+
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+
+import java.util.function.Consumer;
+
+/**
+ * Motor único de recepção UDP dos PDVs.
+ * Um socket é compartilhado por porta, e cada datagrama é roteado pelo IP de
+ * origem para os assinantes daquele IP (ou do curinga 0.0.0.0) na porta.
+ *
+ * Assinantes de String recebem a mensagem já formatada pelo
+ * {@link com.grupoverona.selfcheckout.util.MessageProcessor}, processada uma
+ * única vez por datagrama independentemente do número de assinantes.
+ * Assinantes de {@link DatagramHandler} recebem o conteúdo bruto sem cópia.
+ * Assinantes de {@link ReceiptEventHandler} recebem eventos de cupom tipados,
+ * extraídos dos bytes do datagrama sem passar pela formatação em texto.
+ */
+public interface UdpMessageEngine {
+
+    /**
+     * Registra um callback para as mensagens formatadas de um PDV
+     * @param ip O IP do PDV (0.0.0.0 para qualquer IP)
+     * @param port A porta em que o PDV envia
+     * @param callback O callback para receber as mensagens
+     * @return true se o registro foi bem sucedido, false caso contrário
+     */
+    boolean registerListener(String ip, int port, Consumer<String> callback);
+
+    /**
+     * Registra um consumidor do conteúdo bruto dos datagramas de um PDV
+     * @param ip O IP do PDV (0.0.0.0 para qualquer IP)
+     * @param port A porta em que o PDV envia
+     * @param handler O consumidor das mensagens
+     * @return true se o registro foi bem sucedido, false caso contrário
+     */
+    boolean registerListener(String ip, int port, DatagramHandler handler);
+
+    /**
+     * Registra um consumidor dos eventos de cupom (itens, totais, cancelamentos, pagamentos) de um PDV
+     * @param ip O IP do PDV (0.0.0.0 para qualquer IP)
+     * @param port A porta em que o PDV envia
+     * @param handler O consumidor dos eventos
+     * @return true se o registro foi bem sucedido, false caso contrário
+     */
+    boolean registerReceiptListener(String ip, int port, ReceiptEventHandler handler);
+
+    /**
+     * Remove todos os assinantes de um IP em uma porta
+     */
+    void unregisterListener(String ip, int port);
+
+    /**
+     * Remove um callback específico de um IP em uma porta
+     */
+    void unregisterListener(String ip, int port, Consumer<String> callback);
+
+    /**
+     * Remove um consumidor específico de um IP em uma porta
+     */
+    void unregisterListener(String ip, int port, DatagramHandler handler);
+
+    /**
+     * Remove um consumidor de eventos de cupom específico de um IP em uma porta
+     */
+    void unregisterReceiptListener(String ip, int port, ReceiptEventHandler handler);
+}
@@ -0,0 +1,203 @@
+package com.grupoverona.selfcheckout.network;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabela de roteamento IP de origem → destinatários, com publicação copy-on-write.
+ *
+ * Cada alteração (add/remove) monta um novo snapshot imutável e o publica em um
+ * campo volatile; a consulta na thread de recepção apenas lê o snapshot atual,
+ * sem locks e sem alocação. Endereços IPv4 são indexados por uma tabela hash de
+ * endereçamento aberto com chave int, obtida de {@link Inet4Address#hashCode()}
+ * (que é o próprio endereço de 32 bits, sem cópia de bytes). Endereços IPv6
+ * ficam em um mapa imutável à parte.
+ *
+ * O endereço curinga 0.0.0.0 é mantido separado e obtido via {@link #wildcard()}.
+ *
+ * @param <T> Tipo do destinatário
+ */
+public class UdpRoutingTable<T> {
+
+    private static final int WILDCARD_KEY = 0;
+
+    // Snapshot imutável publicado para os leitores
+    private volatile Snapshot<T> snapshot = Snapshot.empty();
+
+    // Estado mutável, acessado somente sob o lock deste objeto
+    private final Map<InetAddress, List<T>> routes = new HashMap<>();
+
+    /**
+     * Adiciona um destinatário para o IP informado
+     * @param address Endereço de origem (0.0.0.0 para receber de qualquer IP)
+     * @param target Destinatário
+     * @return true se o destinatário ainda não estava registrado
+     */
+    public synchronized boolean add(InetAddress address, T target) {
+        List<T> targets = routes.computeIfAbsent(address, k -> new ArrayList<>());
+        if (targets.contains(target)) {
+            return false;
+        }
+        targets.add(target);
+        publish();
+        return true;
+    }
+
+    /**
+     * Remove um destinatário do IP informado
+     * @return true se o destinatário estava registrado
+     */
+    public synchronized boolean remove(InetAddress address, T target) {
+        List<T> targets = routes.get(address);
+        if (targets == null || !targets.remove(target)) {
+            return false;
+        }
+        if (targets.isEmpty()) {
+            routes.remove(address);
+        }
+        publish();
+        return true;
+    }
+
+    /**
+     * Remove todos os destinatários
+     */
+    public synchronized void clear() {
+        routes.clear();
+        publish();
+    }
+
+    /**
+     * Consulta os destinatários de um IP de origem (sem lock e sem alocação)
+     * @return Lista imutável, vazia se não houver destinatários
+     */
+    public List<T> lookup(InetAddress address) {
+        return snapshot.lookup(address);
+    }
+
+    /**
+     * @return Destinatários registrados no endereço curinga 0.0.0.0
+     */
+    public List<T> wildcard() {
+        return snapshot.wildcard;
+    }
+
+    /**
+     * @return Todos os destinatários registrados, incluindo o curinga
+     */
+    public List<T> all() {
+        return snapshot.all;
+    }
+
+    /**
+     * @return true se não há nenhum destinatário registrado
+     */
+    public boolean isEmpty() {
+        return snapshot.all.isEmpty();
+    }
+
+    /**
+     * Monta e publica um novo snapshot a partir do estado mutável
+     */
+    private void publish() {
+        snapshot = Snapshot.build(routes);
+    }
+
+    /**
+     * Snapshot imutável da tabela
+     */
+    private static final class Snapshot<T> {
+        private final int[] keys;
+        // Listas de destinatários (List<T>) por slot; Object[] evita array genérico
+        private final Object[] values;
+        private final int mask;
+        private final Map<InetAddress, List<T>> ipv6Routes;
+        private final List<T> wildcard;
+        private final List<T> all;
+
+        private Snapshot(int[] keys, Object[] values, Map<InetAddress, List<T>> ipv6Routes,
+                         List<T> wildcard, List<T> all) {
+            this.keys = keys;
+            this.values = values;
+            this.mask = keys.length - 1;
+            this.ipv6Routes = ipv6Routes;
+            this.wildcard = wildcard;
+            this.all = all;
+        }
+
+        static <T> Snapshot<T> empty() {
+            return build(Map.of());
+        }
+
+        static <T> Snapshot<T> build(Map<InetAddress, List<T>> routes) {
+            // Capacidade potência de 2 com fator de carga máximo de 50%
+            int capacity = 2;
+            while (capacity < routes.size() * 2) {
+                capacity <<= 1;
+            }
+
+            int[] keys = new int[capacity];
+            Object[] values = new Object[capacity];
+            Map<InetAddress, List<T>> ipv6Routes = new HashMap<>();
+            List<T> wildcard = List.of();
+            List<T> all = new ArrayList<>();
+
+            for (Map.Entry<InetAddress, List<T>> entry : routes.entrySet()) {
+                List<T> targets = List.copyOf(entry.getValue());
+                all.addAll(targets);
+
+                if (entry.getKey() instanceof Inet4Address ipv4) {
+                    int key = ipv4.hashCode();
+                    if (key == WILDCARD_KEY) {
+                        wildcard = targets;
+                        continue;
+                    }
+                    int slot = slot(key, capacity - 1);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    keys[slot] = key;
+                    values[slot] = targets;
+                } else {
+                    ipv6Routes.put(entry.getKey(), targets);
+                }
+            }
+
+            return new Snapshot<>(keys, values, Map.copyOf(ipv6Routes), wildcard, List.copyOf(all));
+        }
+
+        List<T> lookup(InetAddress address) {
+            if (address instanceof Inet4Address) {
+                int key = address.hashCode();
+                int slot = slot(key, mask);
+                Object targets;
+                while ((targets = values[slot]) != null) {
+                    if (keys[slot] == key) {
+                        return targetsOf(targets);
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                return List.of();
+            }
+
+            List<T> targets = ipv6Routes.get(address);
+            return targets != null ? targets : List.of();
+        }
+
+        // Os slots só recebem listas List<T> em build()
+        @SuppressWarnings("unchecked")
+        private static <T> List<T> targetsOf(Object targets) {
+            return (List<T>) targets;
+        }
+
+        private static int slot(int key, int mask) {
+            // Espalha os bits: IPs de uma mesma loja diferem apenas no último octeto
+            int hash = key * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+    }
+}
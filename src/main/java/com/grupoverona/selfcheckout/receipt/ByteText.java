@@ -0,0 +1,73 @@
+package com.grupoverona.selfcheckout.receipt;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Visão reutilizável de um trecho de bytes UTF-8 como texto. Trechos só com
+ * ASCII (o caso comum) são lidos direto dos bytes, sem cópia; um trecho com
+ * acentos é decodificado uma única vez, no primeiro acesso. Válida enquanto o
+ * array de origem não for alterado.
+ */
+final class ByteText implements CharSequence {
+
+    // Trecho ainda não verificado, só ASCII, ou com bytes acima de 0x7F (decodificado)
+    private static final int UNCHECKED = 0;
+    private static final int ASCII = 1;
+    private static final int DECODED = 2;
+
+    private byte[] bytes = new byte[0];
+    private int start;
+    private int end;
+    private int state = UNCHECKED;
+    private String decoded;
+
+    ByteText set(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.start = start;
+        this.end = end;
+        this.state = UNCHECKED;
+        this.decoded = null;
+        return this;
+    }
+
+    ByteText clear() {
+        return set(bytes, 0, 0);
+    }
+
+    @Override
+    public int length() {
+        return isAscii() ? end - start : decoded.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return isAscii() ? (char) bytes[start + index] : decoded.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return toString().substring(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return isAscii() ? new String(bytes, start, end - start, StandardCharsets.US_ASCII) : decoded;
+    }
+
+    /**
+     * Verifica o trecho no primeiro acesso; com bytes não ASCII, decodifica como UTF-8
+     */
+    private boolean isAscii() {
+        if (state == UNCHECKED) {
+            state = ASCII;
+            for (int i = start; i < end; i++) {
+                if (bytes[i] < 0) {
+                    decoded = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+                    state = DECODED;
+                    break;
+                }
+            }
+        }
+        return state == ASCII;
+    }
+}
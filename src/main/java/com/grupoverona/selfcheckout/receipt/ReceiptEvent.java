@@ -0,0 +1,126 @@
+package com.grupoverona.selfcheckout.receipt;
+
+/**
+ * Evento de cupom extraído do texto do PDV. Instância reutilizada pelo
+ * {@link ReceiptTokenizer}: os dados só são válidos durante o callback, e
+ * quem precisar guardá-los deve copiar os valores (ou chamar toString() nos textos).
+ *
+ * Valores monetários são em centavos e quantidades em milésimos
+ * (1,500 KG = 1500); campos ausentes na linha valem -1.
+ */
+public final class ReceiptEvent {
+
+    private String senderIp;
+    private long receiveNanos;
+
+    private ReceiptEventType type;
+    private int itemNumber;
+    private long quantityMilli;
+    private long unitPriceCents;
+    private long amountCents;
+
+    private final ByteText label = new ByteText();
+    private final ByteText line = new ByteText();
+
+    void setSource(String senderIp, long receiveNanos) {
+        this.senderIp = senderIp;
+        this.receiveNanos = receiveNanos;
+    }
+
+    void reset(ReceiptEventType type, byte[] bytes, int lineStart, int lineEnd) {
+        this.type = type;
+        this.itemNumber = -1;
+        this.quantityMilli = -1;
+        this.unitPriceCents = -1;
+        this.amountCents = -1;
+        this.label.clear();
+        this.line.set(bytes, lineStart, lineEnd);
+    }
+
+    void setItemNumber(int itemNumber) {
+        this.itemNumber = itemNumber;
+    }
+
+    void setQuantityMilli(long quantityMilli) {
+        this.quantityMilli = quantityMilli;
+    }
+
+    void setUnitPriceCents(long unitPriceCents) {
+        this.unitPriceCents = unitPriceCents;
+    }
+
+    void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+    }
+
+    void setLabel(byte[] bytes, int start, int end) {
+        this.label.set(bytes, start, end);
+    }
+
+    /**
+     * @return IP do PDV que enviou a linha
+     */
+    public String senderIp() {
+        return senderIp;
+    }
+
+    /**
+     * @return System.nanoTime() da recepção do datagrama
+     */
+    public long receiveNanos() {
+        return receiveNanos;
+    }
+
+    public ReceiptEventType type() {
+        return type;
+    }
+
+    /**
+     * @return Número do item (ITEM, CANCEL e PRICE_OVERRIDE), ou -1
+     */
+    public int itemNumber() {
+        return itemNumber;
+    }
+
+    /**
+     * @return Quantidade em milésimos (QUANTITY_PRICE), ou -1 se a linha não a informa
+     */
+    public long quantityMilli() {
+        return quantityMilli;
+    }
+
+    /**
+     * @return Preço unitário em centavos (QUANTITY_PRICE), ou -1
+     */
+    public long unitPriceCents() {
+        return unitPriceCents;
+    }
+
+    /**
+     * @return Valor da linha em centavos: total do item, subtotal, total, valor
+     * cancelado, pago ou preço informado; -1 se a linha não traz valor
+     */
+    public long amountCents() {
+        return amountCents;
+    }
+
+    /**
+     * @return Descrição do item (ITEM) ou forma de pagamento (PAYMENT); vazio nos demais
+     */
+    public CharSequence label() {
+        return label;
+    }
+
+    /**
+     * @return Linha completa, sem caracteres de controle
+     */
+    public CharSequence line() {
+        return line;
+    }
+
+    @Override
+    public String toString() {
+        return type + "[item=" + itemNumber + ", quantidade=" + quantityMilli + ", unitario=" + unitPriceCents
+                + ", valor=" + amountCents + ", rotulo=" + label + ", linha=" + line + "]";
+    }
+}
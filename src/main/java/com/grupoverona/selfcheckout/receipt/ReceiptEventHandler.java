@@ -0,0 +1,11 @@
+package com.grupoverona.selfcheckout.receipt;
+
+/**
+ * Consumidor dos eventos de cupom de um PDV.
+ * O evento é reutilizado: seus dados só são válidos durante a chamada.
+ */
+@FunctionalInterface
+public interface ReceiptEventHandler {
+
+    void onReceiptEvent(ReceiptEvent event);
+}
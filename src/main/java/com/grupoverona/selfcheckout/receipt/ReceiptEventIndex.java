@@ -0,0 +1,211 @@
+package com.grupoverona.selfcheckout.receipt;
+
+/**
+ * Índice dos eventos de cupom de um quadrante, ordenado pelo instante de
+ * recepção (System.nanoTime() do datagrama), em arrays primitivos circulares.
+ *
+ * Guarda apenas tipo, item, valor e instante de cada evento (21 bytes por
+ * evento, sem objetos); o texto da linha continua no log do quadrante. Quando
+ * cheio, o evento mais antigo dá lugar ao novo.
+ *
+ * As buscas por instante são binárias sobre o anel. Para manter a ordem mesmo
+ * com vários PDVs no mesmo quadrante (curinga 0.0.0.0), um instante anterior
+ * ao último registrado é gravado como o último.
+ *
+ * Escrito pelas threads dos PDVs e lido pela thread do JavaFX; os métodos são
+ * sincronizados, com seções curtas e sem alocação.
+ */
+public final class ReceiptEventIndex implements ReceiptEventHandler {
+
+    private static final ReceiptEventType[] TYPES = ReceiptEventType.values();
+
+    private final long[] receiveNanos;
+    private final byte[] types;
+    private final int[] itemNumbers;
+    private final long[] amountsCents;
+
+    // Posição física do evento mais antigo e número de eventos no anel
+    private int head;
+    private int size;
+
+    /**
+     * Consumidor dos eventos de um intervalo de tempo
+     */
+    @FunctionalInterface
+    public interface EventVisitor {
+        void visit(long receiveNanos, ReceiptEventType type, int itemNumber, long amountCents);
+    }
+
+    /**
+     * @param capacity Número máximo de eventos mantidos
+     */
+    public ReceiptEventIndex(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        this.receiveNanos = new long[capacity];
+        this.types = new byte[capacity];
+        this.itemNumbers = new int[capacity];
+        this.amountsCents = new long[capacity];
+    }
+
+    @Override
+    public synchronized void onReceiptEvent(ReceiptEvent event) {
+        long nanos = event.receiveNanos();
+        if (size > 0) {
+            nanos = Math.max(nanos, receiveNanos[physical(size - 1)]);
+        }
+
+        int slot;
+        if (size < receiveNanos.length) {
+            slot = physical(size++);
+        } else {
+            // Cheio: sobrescreve o mais antigo
+            slot = head;
+            head = head + 1 == receiveNanos.length ? 0 : head + 1;
+        }
+
+        receiveNanos[slot] = nanos;
+        types[slot] = (byte) event.type().ordinal();
+        itemNumbers[slot] = event.itemNumber();
+        amountsCents[slot] = event.amountCents();
+    }
+
+    /**
+     * Percorre, em ordem, os eventos recebidos em [fromNanos, toNanos].
+     * O visitante roda com o índice travado e não deve bloquear.
+     * @return Número de eventos visitados
+     */
+    public synchronized int forEachInRange(long fromNanos, long toNanos, EventVisitor visitor) {
+        int count = 0;
+        for (int i = lowerBound(fromNanos); i < size; i++) {
+            int slot = physical(i);
+            if (receiveNanos[slot] > toNanos) {
+                break;
+            }
+            visitor.visit(receiveNanos[slot], TYPES[types[slot]], itemNumbers[slot], amountsCents[slot]);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return Número de eventos recebidos em [fromNanos, toNanos]
+     */
+    public synchronized int countInRange(long fromNanos, long toNanos) {
+        if (toNanos < fromNanos) {
+            return 0;
+        }
+        return upperBound(toNanos) - lowerBound(fromNanos);
+    }
+
+    /**
+     * Instante do primeiro evento da venda que contém o instante informado: o
+     * evento seguinte ao último pagamento (ou cupom cancelado) anterior a ele,
+     * ou o mais antigo do índice
+     * @return System.nanoTime() do início da venda, ou Long.MIN_VALUE se não há
+     * eventos até o instante
+     */
+    public synchronized long saleStartNanos(long nanos) {
+        int last = upperBound(nanos) - 1;
+        if (last < 0) {
+            return Long.MIN_VALUE;
+        }
+
+        // O próprio instante pode ser o evento que encerra a venda
+        int i = last;
+        if (endsSale(types[physical(i)])) {
+            i--;
+        }
+        while (i >= 0 && !endsSale(types[physical(i)])) {
+            i--;
+        }
+        return receiveNanos[physical(Math.min(i + 1, last))];
+    }
+
+    /**
+     * @return Instante do último evento do tipo até o instante informado, ou
+     * Long.MIN_VALUE se não há
+     */
+    public synchronized long lastOf(ReceiptEventType type, long beforeNanos) {
+        for (int i = upperBound(beforeNanos) - 1; i >= 0; i--) {
+            int slot = physical(i);
+            if (types[slot] == type.ordinal()) {
+                return receiveNanos[slot];
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * @return Instante do evento mais antigo mantido, ou Long.MIN_VALUE se vazio
+     */
+    public synchronized long oldestNanos() {
+        return size == 0 ? Long.MIN_VALUE : receiveNanos[head];
+    }
+
+    /**
+     * @return Número de eventos no índice
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Número máximo de eventos mantidos
+     */
+    public int capacity() {
+        return receiveNanos.length;
+    }
+
+    /**
+     * Descarta todos os eventos (ex.: quando o quadrante troca de PDV)
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Primeira posição lógica com instante >= nanos (size se nenhuma)
+     */
+    private int lowerBound(long nanos) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (receiveNanos[physical(mid)] < nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Primeira posição lógica com instante > nanos (size se nenhuma)
+     */
+    private int upperBound(long nanos) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (receiveNanos[physical(mid)] <= nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean endsSale(byte type) {
+        return type == ReceiptEventType.PAYMENT.ordinal() || type == ReceiptEventType.RECEIPT_VOID.ordinal();
+    }
+
+    private int physical(int logical) {
+        int slot = head + logical;
+        return slot >= receiveNanos.length ? slot - receiveNanos.length : slot;
+    }
+}
@@ -0,0 +1,23 @@
+package com.grupoverona.selfcheckout.receipt;
+
+/**
+ * Tipos de evento reconhecidos no texto enviado pelo PDV
+ */
+public enum ReceiptEventType {
+    /** Linha de item: "001 ARROZ TIPO 1 5KG" */
+    ITEM,
+    /** Quantidade × preço unitário: "2 UN X 12,50 = 25,00" ou apenas "12,50 = 25,00" */
+    QUANTITY_PRICE,
+    /** "SUBTOTAL" ou "SUBTOTAL 123,45" */
+    SUBTOTAL,
+    /** "TOTAL R$ 123,45" */
+    TOTAL,
+    /** "CANCELAMENTO ITEM 013 -12,50" (o valor pode vir na linha seguinte) */
+    CANCEL,
+    /** Cancelamento do cupom inteiro, que encerra a venda: "CANCELAMENTO DE CUPOM 123,45", "CUPOM CANCELADO" */
+    RECEIPT_VOID,
+    /** Preço informado manualmente: "ALTERACAO DE PRECO 003 9,90", "PRECO MANUAL 9,90" */
+    PRICE_OVERRIDE,
+    /** Forma de pagamento: "DINHEIRO 50,00", "CARTAO DEBITO 25,90", "PIX 10,00" */
+    PAYMENT
+}
@@ -0,0 +1,483 @@
+package com.grupoverona.selfcheckout.receipt;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tokenizador de cupom que trabalha direto nos bytes do datagrama do PDV e
+ * emite eventos tipados ({@link ReceiptEventType}) em um único {@link ReceiptEvent}
+ * reutilizado, sem alocação por datagrama.
+ *
+ * O texto é separado em linhas por ^, \n ou \r; caracteres de controle da
+ * impressora são descartados, como na formatação para exibição. Cada linha
+ * é dividida em palavras por espaços ('=' é sempre uma palavra própria) e
+ * classificada pela primeira palavra e pelos valores "1.234,56" que contém.
+ * Linhas não reconhecidas (cabeçalho, rodapé) não geram eventos.
+ *
+ * Não é thread-safe: cada thread consumidora deve ter a sua instância.
+ */
+public final class ReceiptTokenizer {
+
+    private static final int MAX_TOKENS = 64;
+
+    private static final byte[] SUBTOTAL = ascii("SUBTOTAL");
+    private static final byte[] TOTAL = ascii("TOTAL");
+    private static final byte[] CANCEL = ascii("CANCEL");
+    private static final byte[][] RECEIPTS = {ascii("CUPOM"), ascii("CUPON"), ascii("COO")};
+    private static final byte[] PRE = ascii("PRE");
+    private static final byte[][] PRICE_CHANGES = {ascii("ALTERA"), ascii("SOBREPOSI")};
+    private static final byte[][] PRICE_QUALIFIERS = {ascii("ALTERAD"), ascii("MANUAL"), ascii("DIGITAD")};
+    private static final byte[][] PAYMENT_METHODS = {
+            ascii("DINHEIRO"), ascii("CARTAO"), ascii("CREDITO"), ascii("DEBITO"),
+            ascii("PIX"), ascii("VALE"), ascii("CHEQUE")
+    };
+
+    // Texto do datagrama sem caracteres de controle, com separadores de linha trocados por \n
+    private byte[] text = new byte[4096];
+
+    // Palavras da linha atual
+    private final int[] tokenStart = new int[MAX_TOKENS];
+    private final int[] tokenEnd = new int[MAX_TOKENS];
+    private int tokenCount;
+
+    private final ReceiptEvent event = new ReceiptEvent();
+
+    // Cancelamento cujo valor pode vir na linha seguinte
+    private boolean pendingCancel;
+    private int pendingItem;
+    private int pendingStart;
+    private int pendingEnd;
+
+    /**
+     * Emite os eventos do datagrama, na ordem das linhas
+     * @param payload Bytes do datagrama (entre position e limit; não são alterados)
+     * @param senderIp IP do PDV
+     * @param receiveNanos Instante da recepção (System.nanoTime())
+     * @param handler Consumidor dos eventos
+     */
+    public void tokenize(ByteBuffer payload, String senderIp, long receiveNanos, ReceiptEventHandler handler) {
+        int length = clean(payload);
+        event.setSource(senderIp, receiveNanos);
+        pendingCancel = false;
+
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || text[i] == '\n') {
+                line(lineStart, i, handler);
+                lineStart = i + 1;
+            }
+        }
+
+        flushPendingCancel(handler);
+    }
+
+    /**
+     * Copia o datagrama para o buffer interno descartando caracteres de controle
+     * @return Número de bytes copiados
+     */
+    private int clean(ByteBuffer payload) {
+        int start = payload.position();
+        int end = payload.limit();
+        if (text.length < end - start) {
+            text = new byte[end - start];
+        }
+
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = payload.get(i);
+            if (b == '^' || b == '\n' || b == '\r') {
+                text[length++] = '\n';
+            } else if ((b >= 0 && b < 0x20) || b == 0x7F) {
+                continue;
+            } else {
+                text[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    private void line(int start, int end, ReceiptEventHandler handler) {
+        while (start < end && text[start] == ' ') {
+            start++;
+        }
+        while (end > start && text[end - 1] == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        splitTokens(start, end);
+
+        if (pendingCancel) {
+            // Linha apenas com o valor completa o cancelamento anterior
+            if (tokenCount == 1 && amountCents(0) >= 0) {
+                emitCancel(pendingItem, amountCents(0), pendingStart, end, handler);
+                pendingCancel = false;
+                return;
+            }
+            flushPendingCancel(handler);
+        }
+
+        if (startsWith(0, SUBTOTAL)) {
+            event.reset(ReceiptEventType.SUBTOTAL, text, start, end);
+            event.setAmountCents(lastAmountCents());
+            handler.onReceiptEvent(event);
+        } else if (startsWith(0, TOTAL)) {
+            event.reset(ReceiptEventType.TOTAL, text, start, end);
+            event.setAmountCents(lastAmountCents());
+            handler.onReceiptEvent(event);
+        } else if (isReceiptVoid()) {
+            event.reset(ReceiptEventType.RECEIPT_VOID, text, start, end);
+            event.setAmountCents(lastAmountCents());
+            handler.onReceiptEvent(event);
+        } else if (startsWith(0, CANCEL)) {
+            int item = firstIntegerToken(1);
+            long amount = lastAmountCents();
+            if (amount < 0) {
+                pendingCancel = true;
+                pendingItem = item;
+                pendingStart = start;
+                pendingEnd = end;
+            } else {
+                emitCancel(item, amount, start, end, handler);
+            }
+        } else if (isPriceOverride()) {
+            event.reset(ReceiptEventType.PRICE_OVERRIDE, text, start, end);
+            event.setItemNumber(firstIntegerToken(1));
+            event.setAmountCents(lastAmountCents());
+            handler.onReceiptEvent(event);
+        } else if (isPayment()) {
+            emitPayment(start, end, handler);
+        } else if (!emitQuantityPrice(start, end, handler)) {
+            emitItem(start, end, handler);
+        }
+    }
+
+    private void splitTokens(int start, int end) {
+        tokenCount = 0;
+        int i = start;
+        while (i < end && tokenCount < MAX_TOKENS) {
+            if (text[i] == ' ') {
+                i++;
+                continue;
+            }
+
+            tokenStart[tokenCount] = i;
+            if (text[i] == '=') {
+                i++;
+            } else {
+                while (i < end && text[i] != ' ' && text[i] != '=') {
+                    i++;
+                }
+            }
+            tokenEnd[tokenCount++] = i;
+        }
+    }
+
+    private void flushPendingCancel(ReceiptEventHandler handler) {
+        if (pendingCancel) {
+            pendingCancel = false;
+            emitCancel(pendingItem, -1, pendingStart, pendingEnd, handler);
+        }
+    }
+
+    private void emitCancel(int item, long amount, int start, int end, ReceiptEventHandler handler) {
+        event.reset(ReceiptEventType.CANCEL, text, start, end);
+        event.setItemNumber(item);
+        event.setAmountCents(amount);
+        handler.onReceiptEvent(event);
+    }
+
+    /**
+     * "CANCELAMENTO DE CUPOM ...", "CANCELAMENTO CUPOM ..." ou "CUPOM CANCELADO ..."
+     */
+    private boolean isReceiptVoid() {
+        if (startsWith(0, CANCEL)) {
+            for (int t = 1; t < tokenCount && t <= 2; t++) {
+                if (isReceiptWord(t)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return isReceiptWord(0) && startsWith(1, CANCEL);
+    }
+
+    private boolean isReceiptWord(int token) {
+        for (byte[] receipt : RECEIPTS) {
+            if (startsWith(token, receipt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "ALTERACAO DE PRECO ...", "SOBREPOSICAO DE PRECO ...", "PRECO ALTERADO/MANUAL/DIGITADO ..."
+     */
+    private boolean isPriceOverride() {
+        if (isPriceWord(0)) {
+            for (byte[] qualifier : PRICE_QUALIFIERS) {
+                if (startsWith(1, qualifier)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (byte[] change : PRICE_CHANGES) {
+            if (startsWith(0, change)) {
+                for (int t = 1; t < tokenCount && t <= 3; t++) {
+                    if (isPriceWord(t)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "PRECO" ou "PREÇO" (Ç em UTF-8), sem diferenciar maiúsculas
+     */
+    private boolean isPriceWord(int token) {
+        if (!startsWith(token, PRE)) {
+            return false;
+        }
+        int i = tokenStart[token] + PRE.length;
+        int end = tokenEnd[token];
+        if (i + 2 == end && (text[i] | 0x20) == 'c' && (text[i + 1] | 0x20) == 'o') {
+            return true;
+        }
+        return i + 3 == end && text[i] == (byte) 0xC3 && (text[i + 1] == (byte) 0x87 || text[i + 1] == (byte) 0xA7)
+                && (text[i + 2] | 0x20) == 'o';
+    }
+
+    private boolean isPayment() {
+        for (byte[] method : PAYMENT_METHODS) {
+            if (startsWith(0, method)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "CARTAO DEBITO 25,90": rótulo são as palavras antes do primeiro valor
+     */
+    private void emitPayment(int start, int end, ReceiptEventHandler handler) {
+        int labelEnd = tokenEnd[0];
+        for (int t = 1; t < tokenCount && amountCents(t) < 0; t++) {
+            labelEnd = tokenEnd[t];
+        }
+
+        event.reset(ReceiptEventType.PAYMENT, text, start, end);
+        event.setLabel(text, start, labelEnd);
+        event.setAmountCents(lastAmountCents());
+        handler.onReceiptEvent(event);
+    }
+
+    /**
+     * "2 UN X 12,50 = 25,00" ou "12,50 = 25,00"
+     * @return false se a linha não é de quantidade × preço
+     */
+    private boolean emitQuantityPrice(int start, int end, ReceiptEventHandler handler) {
+        int equals = -1;
+        for (int t = 1; t < tokenCount - 1; t++) {
+            if (tokenEnd[t] - tokenStart[t] == 1 && text[tokenStart[t]] == '=') {
+                equals = t;
+                break;
+            }
+        }
+        if (equals < 0) {
+            return false;
+        }
+
+        long unitPrice = amountCents(equals - 1);
+        long total = amountCents(equals + 1);
+        if (unitPrice < 0 || total < 0) {
+            return false;
+        }
+
+        long quantity = -1;
+        if (equals >= 3 && isMultiplier(equals - 2)) {
+            quantity = quantityMilli(0);
+        }
+
+        event.reset(ReceiptEventType.QUANTITY_PRICE, text, start, end);
+        event.setQuantityMilli(quantity);
+        event.setUnitPriceCents(unitPrice);
+        event.setAmountCents(total);
+        handler.onReceiptEvent(event);
+        return true;
+    }
+
+    /**
+     * "001 ARROZ TIPO 1 5KG": número do item seguido da descrição
+     */
+    private void emitItem(int start, int end, ReceiptEventHandler handler) {
+        if (tokenCount < 2 || !isLetter(text[tokenStart[1]])) {
+            return;
+        }
+        int item = integer(0);
+        if (item < 0) {
+            return;
+        }
+
+        event.reset(ReceiptEventType.ITEM, text, start, end);
+        event.setItemNumber(item);
+        event.setLabel(text, tokenStart[1], end);
+        handler.onReceiptEvent(event);
+    }
+
+    private boolean isMultiplier(int token) {
+        if (tokenEnd[token] - tokenStart[token] != 1) {
+            return false;
+        }
+        byte b = text[tokenStart[token]];
+        return b == 'X' || b == 'x' || b == '*';
+    }
+
+    private long lastAmountCents() {
+        for (int t = tokenCount - 1; t >= 0; t--) {
+            long amount = amountCents(t);
+            if (amount >= 0) {
+                return amount;
+            }
+        }
+        return -1;
+    }
+
+    private int firstIntegerToken(int from) {
+        for (int t = from; t < tokenCount; t++) {
+            int value = integer(t);
+            if (value >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Valor "1.234,56", "-12,50" ou "R$25,90" em centavos (sempre positivo)
+     * @return Centavos, ou -1 se a palavra não é um valor
+     */
+    private long amountCents(int token) {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+
+        if (i < end && text[i] == '-') {
+            i++;
+        }
+        if (end - i > 2 && text[i] == 'R' && text[i + 1] == '$') {
+            i += 2;
+        }
+
+        long units = 0;
+        int digits = 0;
+        while (i < end && (isDigit(text[i]) || (text[i] == '.' && digits > 0))) {
+            if (text[i] != '.') {
+                units = units * 10 + (text[i] - '0');
+                digits++;
+            }
+            i++;
+        }
+
+        if (digits == 0 || digits > 15 || end - i != 3 || text[i] != ','
+                || !isDigit(text[i + 1]) || !isDigit(text[i + 2])) {
+            return -1;
+        }
+        return units * 100 + (text[i + 1] - '0') * 10 + (text[i + 2] - '0');
+    }
+
+    /**
+     * Quantidade "2", "0,75" ou "1,500" em milésimos
+     * @return Milésimos, ou -1 se a palavra não é uma quantidade
+     */
+    private long quantityMilli(int token) {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+
+        long units = 0;
+        int digits = 0;
+        while (i < end && isDigit(text[i])) {
+            units = units * 10 + (text[i++] - '0');
+            digits++;
+        }
+        if (digits == 0 || digits > 12) {
+            return -1;
+        }
+        if (i == end) {
+            return units * 1000;
+        }
+
+        if (text[i++] != ',' || end - i < 1 || end - i > 3) {
+            return -1;
+        }
+        long fraction = 0;
+        int scale = 1000;
+        while (i < end) {
+            if (!isDigit(text[i])) {
+                return -1;
+            }
+            scale /= 10;
+            fraction += (text[i++] - '0') * scale;
+        }
+        return units * 1000 + fraction;
+    }
+
+    /**
+     * @return Valor da palavra composta só de dígitos (até 9), ou -1
+     */
+    private int integer(int token) {
+        int length = tokenEnd[token] - tokenStart[token];
+        if (length == 0 || length > 9) {
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = tokenStart[token]; i < tokenEnd[token]; i++) {
+            if (!isDigit(text[i])) {
+                return -1;
+            }
+            value = value * 10 + (text[i] - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @return true se a palavra começa com o prefixo (sem diferenciar maiúsculas)
+     */
+    private boolean startsWith(int token, byte[] prefix) {
+        if (token >= tokenCount || tokenEnd[token] - tokenStart[token] < prefix.length) {
+            return false;
+        }
+        int start = tokenStart[token];
+        for (int i = 0; i < prefix.length; i++) {
+            byte b = text[start + i];
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || b < 0;
+    }
+
+    private static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,27 @@
+package com.grupoverona.selfcheckout.rules;
+
+/**
+ * Disparo de uma regra para um PDV.
+ *
+ * @param senderIp IP do PDV
+ * @param port Porta local em que o PDV envia
+ * @param rule Regra disparada
+ * @param count Ocorrências na janela (CANCELLATIONS, PRICE_OVERRIDES), segundos
+ *              parados (IDLE_GAP) ou número do item cancelado (VOID_AFTER_TOTAL, -1 se ausente)
+ * @param eventNanos Instante do evento que disparou a regra (System.nanoTime())
+ * @param line Linha do cupom que disparou a regra (vazia em IDLE_GAP)
+ */
+public record AnomalyAlert(String senderIp, int port, AnomalyRule rule, long count, long eventNanos, String line) {
+
+    /**
+     * @return Texto do alerta para o log do quadrante
+     */
+    public String describe() {
+        String text = "ALERTA " + rule.description() + " no PDV " + senderIp + ":" + port;
+        return switch (rule) {
+            case CANCELLATIONS, PRICE_OVERRIDES -> text + ": " + count + " na janela - " + line;
+            case VOID_AFTER_TOTAL -> text + ": " + line;
+            case IDLE_GAP -> text + ": " + count + " s sem movimento";
+        };
+    }
+}
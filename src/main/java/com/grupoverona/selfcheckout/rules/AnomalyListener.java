@@ -0,0 +1,12 @@
+package com.grupoverona.selfcheckout.rules;
+
+/**
+ * Recebe os alertas do {@link RuleEngine}. Chamado na thread do PDV (ou na
+ * thread de verificação de ociosidade): implementações que tocam a UI devem
+ * repassar para a thread do JavaFX.
+ */
+@FunctionalInterface
+public interface AnomalyListener {
+
+    void onAnomaly(AnomalyAlert alert);
+}
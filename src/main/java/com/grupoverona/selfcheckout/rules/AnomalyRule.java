@@ -0,0 +1,28 @@
+package com.grupoverona.selfcheckout.rules;
+
+/**
+ * Regras avaliadas pelo {@link RuleEngine} sobre os eventos de cupom de cada PDV
+ */
+public enum AnomalyRule {
+    /** Cancelamentos demais dentro da janela (padrão: 3 em 5 minutos) */
+    CANCELLATIONS("Cancelamentos em excesso"),
+    /** Preços informados manualmente demais dentro da janela (padrão: 2 em 5 minutos) */
+    PRICE_OVERRIDES("Alterações de preço em excesso"),
+    /** Cancelamento depois do TOTAL e antes do pagamento */
+    VOID_AFTER_TOTAL("Cancelamento após o total"),
+    /** Venda aberta sem nenhum evento por tempo demais (padrão: 2 minutos) */
+    IDLE_GAP("Venda parada");
+
+    private final String description;
+
+    AnomalyRule(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return Descrição para exibição ao operador
+     */
+    public String description() {
+        return description;
+    }
+}
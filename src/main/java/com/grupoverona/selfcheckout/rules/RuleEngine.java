@@ -0,0 +1,252 @@
+package com.grupoverona.selfcheckout.rules;
+
+import com.grupoverona.selfcheckout.receipt.ReceiptEvent;
+import com.grupoverona.selfcheckout.receipt.ReceiptEventHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de regras de anomalia sobre os eventos de cupom dos PDVs.
+ *
+ * Mantém, por PDV (IP e porta), janelas deslizantes em arrays primitivos e o
+ * estado da venda em curso. O estado de cada PDV é um consumidor de
+ * {@link ReceiptEvent} obtido por {@link #laneFor}, registrado no motor UDP
+ * como fábrica de consumidores: cada fila de PDV o alimenta uma única vez por
+ * datagrama, não importa quantos quadrantes assinem o PDV. Cada evento é avaliado em O(1), sem alocação;
+ * apenas o disparo de uma regra cria o {@link AnomalyAlert}.
+ *
+ * Regras:
+ * - CANCELLATIONS / PRICE_OVERRIDES: N ocorrências na janela (dispara ao atingir
+ *   o limite; volta a disparar depois que a contagem cair abaixo dele)
+ * - VOID_AFTER_TOTAL: cancelamento entre o TOTAL e o pagamento
+ * - IDLE_GAP: venda aberta sem eventos por mais que o limite, verificada por
+ *   uma virtual thread enquanto houver ouvintes
+ *
+ * O estado de cada PDV é escrito apenas pela thread da fila daquele IP e
+ * porta no motor UDP, então PDVs diferentes não disputam locks.
+ */
+public final class RuleEngine {
+
+    // Limites padrão (configuráveis por propriedade do sistema)
+    private static final long DEFAULT_CANCEL_WINDOW_MS = Long.getLong("selfcheckout.rules.cancelWindowMs", 5 * 60_000);
+    private static final int DEFAULT_CANCEL_THRESHOLD = Integer.getInteger("selfcheckout.rules.cancelThreshold", 3);
+    private static final long DEFAULT_OVERRIDE_WINDOW_MS = Long.getLong("selfcheckout.rules.overrideWindowMs", 5 * 60_000);
+    private static final int DEFAULT_OVERRIDE_THRESHOLD = Integer.getInteger("selfcheckout.rules.overrideThreshold", 2);
+    private static final long DEFAULT_IDLE_GAP_MS = Long.getLong("selfcheckout.rules.idleGapMs", 2 * 60_000);
+
+    // Resolução das janelas deslizantes
+    private static final int WINDOW_BUCKETS = 30;
+
+    // Intervalo da verificação de vendas paradas
+    private static final long IDLE_CHECK_INTERVAL_MS = 1000;
+
+    private static final RuleEngine INSTANCE = new RuleEngine(DEFAULT_CANCEL_WINDOW_MS, DEFAULT_CANCEL_THRESHOLD,
+            DEFAULT_OVERRIDE_WINDOW_MS, DEFAULT_OVERRIDE_THRESHOLD, DEFAULT_IDLE_GAP_MS);
+
+    private final long cancelWindowNanos;
+    private final int cancelThreshold;
+    private final long overrideWindowNanos;
+    private final int overrideThreshold;
+    private final long idleGapNanos;
+
+    // Estado de cada PDV, por "IP:porta"
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final List<AnomalyListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Verificação periódica de vendas paradas (ativa enquanto houver ouvintes)
+    private Thread idleChecker;
+
+    /**
+     * @return Motor compartilhado, com os limites padrão
+     */
+    public static RuleEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param cancelWindowMs Janela de contagem dos cancelamentos
+     * @param cancelThreshold Cancelamentos na janela que disparam CANCELLATIONS
+     * @param overrideWindowMs Janela de contagem das alterações de preço
+     * @param overrideThreshold Alterações na janela que disparam PRICE_OVERRIDES
+     * @param idleGapMs Tempo sem eventos em uma venda aberta que dispara IDLE_GAP
+     */
+    public RuleEngine(long cancelWindowMs, int cancelThreshold, long overrideWindowMs, int overrideThreshold,
+                      long idleGapMs) {
+        this.cancelWindowNanos = TimeUnit.MILLISECONDS.toNanos(cancelWindowMs);
+        this.cancelThreshold = cancelThreshold;
+        this.overrideWindowNanos = TimeUnit.MILLISECONDS.toNanos(overrideWindowMs);
+        this.overrideThreshold = overrideThreshold;
+        this.idleGapNanos = TimeUnit.MILLISECONDS.toNanos(idleGapMs);
+    }
+
+    /**
+     * Adiciona um ouvinte de alertas; o primeiro inicia a verificação de vendas paradas
+     */
+    public synchronized void addAnomalyListener(AnomalyListener listener) {
+        listeners.add(listener);
+        if (idleChecker == null) {
+            idleChecker = Thread.ofVirtual()
+                    .name("Regras-Ociosidade")
+                    .unstarted(this::runIdleChecker);
+            idleChecker.start();
+        }
+    }
+
+    /**
+     * Remove um ouvinte de alertas; o último encerra a verificação de vendas paradas
+     */
+    public synchronized void removeAnomalyListener(AnomalyListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && idleChecker != null) {
+            idleChecker.interrupt();
+            idleChecker = null;
+        }
+    }
+
+    /**
+     * Consumidor dos eventos de um PDV. Deve ser alimentado por uma única
+     * thread (a fila do PDV no motor UDP); usado como {@code ReceiptLaneFactory}.
+     * @param senderIp IP do PDV
+     * @param port Porta local em que o PDV envia
+     * @return Estado das regras do PDV, criado na primeira chamada
+     */
+    public ReceiptEventHandler laneFor(String senderIp, int port) {
+        return lanes.computeIfAbsent(senderIp + ":" + port, key -> new Lane(senderIp, port));
+    }
+
+    /**
+     * Dispara IDLE_GAP para as vendas abertas sem eventos há mais que o limite.
+     * Chamado periodicamente pela thread de verificação.
+     * @param nowNanos Instante atual (System.nanoTime())
+     */
+    public void checkIdle(long nowNanos) {
+        for (Lane lane : lanes.values()) {
+            lane.checkIdle(nowNanos);
+        }
+    }
+
+    /**
+     * Descarta o estado de um PDV. A fila que o alimentava continua com a
+     * instância antiga; use apenas com o PDV sem assinantes no motor.
+     */
+    public void resetLane(String senderIp, int port) {
+        lanes.remove(senderIp + ":" + port);
+    }
+
+    /**
+     * @return Número de PDVs com estado no motor
+     */
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    private void runIdleChecker() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(IDLE_CHECK_INTERVAL_MS);
+                checkIdle(System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            // Encerrada pelo removeAnomalyListener
+        }
+    }
+
+    private void fire(AnomalyAlert alert) {
+        for (AnomalyListener listener : listeners) {
+            try {
+                listener.onAnomaly(alert);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao notificar alerta de " + alert.senderIp() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Estado das regras de um PDV
+     */
+    private final class Lane implements ReceiptEventHandler {
+        private final String senderIp;
+        private final int port;
+        private final WindowCounter cancels = new WindowCounter(cancelWindowNanos, WINDOW_BUCKETS);
+        private final WindowCounter overrides = new WindowCounter(overrideWindowNanos, WINDOW_BUCKETS);
+
+        // Limite atingido e ainda não rearmado
+        private boolean cancelsAlerted;
+        private boolean overridesAlerted;
+
+        // Venda em curso (lidos também pela thread de verificação)
+        private volatile boolean inTransaction;
+        private volatile long lastEventNanos;
+        private boolean totalSeen;
+
+        // Último evento para o qual IDLE_GAP já disparou (apenas a thread de verificação)
+        private long idleAlertedFor = Long.MIN_VALUE;
+
+        Lane(String senderIp, int port) {
+            this.senderIp = senderIp;
+            this.port = port;
+        }
+
+        @Override
+        public void onReceiptEvent(ReceiptEvent event) {
+            long nanos = event.receiveNanos();
+            lastEventNanos = nanos;
+
+            switch (event.type()) {
+                case ITEM, QUANTITY_PRICE -> inTransaction = true;
+                case PRICE_OVERRIDE -> {
+                    inTransaction = true;
+                    int count = overrides.add(nanos);
+                    if (count >= overrideThreshold && !overridesAlerted) {
+                        overridesAlerted = true;
+                        fire(new AnomalyAlert(senderIp, port, AnomalyRule.PRICE_OVERRIDES, count, nanos,
+                                event.line().toString()));
+                    }
+                }
+                case CANCEL -> {
+                    if (totalSeen) {
+                        fire(new AnomalyAlert(senderIp, port, AnomalyRule.VOID_AFTER_TOTAL, event.itemNumber(), nanos,
+                                event.line().toString()));
+                    }
+                    int count = cancels.add(nanos);
+                    if (count >= cancelThreshold && !cancelsAlerted) {
+                        cancelsAlerted = true;
+                        fire(new AnomalyAlert(senderIp, port, AnomalyRule.CANCELLATIONS, count, nanos,
+                                event.line().toString()));
+                    }
+                }
+                case TOTAL -> totalSeen = true;
+                // Pagamento ou cupom cancelado encerram a venda; o cancelamento do
+                // cupom não conta como cancelamento de item
+                case PAYMENT, RECEIPT_VOID -> {
+                    inTransaction = false;
+                    totalSeen = false;
+                }
+                case SUBTOTAL -> {
+                }
+            }
+
+            // Rearma as regras de janela quando a contagem cai abaixo do limite
+            if (cancelsAlerted && cancels.count(nanos) < cancelThreshold) {
+                cancelsAlerted = false;
+            }
+            if (overridesAlerted && overrides.count(nanos) < overrideThreshold) {
+                overridesAlerted = false;
+            }
+        }
+
+        void checkIdle(long nowNanos) {
+            long last = lastEventNanos;
+            if (inTransaction && nowNanos - last > idleGapNanos && idleAlertedFor != last) {
+                idleAlertedFor = last;
+                fire(new AnomalyAlert(senderIp, port, AnomalyRule.IDLE_GAP,
+                        TimeUnit.NANOSECONDS.toSeconds(nowNanos - last), last, ""));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.grupoverona.selfcheckout.rules;
+
+import java.util.Arrays;
+
+/**
+ * Contador de ocorrências em janela deslizante, dividido em baldes de largura
+ * fixa em arrays primitivos. Cada registro custa O(1); a limpeza dos baldes
+ * vencidos percorre os baldes no máximo uma vez por largura de balde.
+ *
+ * A janela tem a resolução de um balde: uma ocorrência sai da contagem entre
+ * (janela - balde) e a janela depois de registrada.
+ *
+ * Não é thread-safe: usado apenas pela thread do PDV dono da janela.
+ */
+final class WindowCounter {
+
+    private final long bucketNanos;
+    private final long[] bucketIds;
+    private final int[] counts;
+    private int total;
+
+    /**
+     * @param windowNanos Largura da janela
+     * @param buckets Número de baldes (resolução da janela)
+     */
+    WindowCounter(long windowNanos, int buckets) {
+        this.bucketNanos = Math.max(1, windowNanos / buckets);
+        this.bucketIds = new long[buckets];
+        this.counts = new int[buckets];
+        Arrays.fill(bucketIds, Long.MIN_VALUE);
+    }
+
+    /**
+     * Registra uma ocorrência
+     * @param nanos Instante da ocorrência (System.nanoTime())
+     * @return Ocorrências dentro da janela, incluindo esta
+     */
+    int add(long nanos) {
+        int slot = advance(nanos);
+        counts[slot]++;
+        return ++total;
+    }
+
+    /**
+     * @return Ocorrências dentro da janela no instante informado
+     */
+    int count(long nanos) {
+        advance(nanos);
+        return total;
+    }
+
+    /**
+     * Zera os baldes que saíram da janela e devolve o balde do instante
+     */
+    private int advance(long nanos) {
+        long bucket = Math.floorDiv(nanos, bucketNanos);
+        int slot = (int) Math.floorMod(bucket, (long) counts.length);
+        if (bucketIds[slot] == bucket) {
+            return slot;
+        }
+
+        // Descarta os baldes mais antigos que a janela (no máximo todos, uma vez)
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0 && bucketIds[i] <= bucket - counts.length) {
+                total -= counts[i];
+                counts[i] = 0;
+            }
+        }
+        total -= counts[slot];
+        counts[slot] = 0;
+        bucketIds[slot] = bucket;
+        return slot;
+    }
+}
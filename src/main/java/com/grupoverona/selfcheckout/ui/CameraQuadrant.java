@@ -1,21 +1,62 @@
 package com.grupoverona.selfcheckout.ui;
 
+import com.grupoverona.selfcheckout.media.StreamUrls;
+import com.grupoverona.selfcheckout.media.VideoStreamStats;
 import com.grupoverona.selfcheckout.media.VlcjMediaHandler;
 import com.grupoverona.selfcheckout.network.UdpListener;
+import com.grupoverona.selfcheckout.receipt.ReceiptEventIndex;
+import com.grupoverona.selfcheckout.rules.AnomalyAlert;
+import com.grupoverona.selfcheckout.rules.AnomalyListener;
+import com.grupoverona.selfcheckout.rules.RuleEngine;
+import com.grupoverona.selfcheckout.util.MessageProcessor;
 
 import javafx.application.Platform;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.Tooltip;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.AnchorPane;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Componente UI que representa um quadrante da tela contendo:
  * - Uma visualização de câmera (stream RTSP)
  * - Um painel de log para mensagens do PDV (via UDP)
+ *
+ * Os eventos de cupom do PDV alimentam o {@link RuleEngine} (uma vez por PDV,
+ * no motor UDP); quando uma regra dispara para o PDV do quadrante, o quadrante
+ * fica destacado até um clique.
+ *
+ * Os eventos do PDV também entram em um {@link ReceiptEventIndex} pelo instante de
+ * recepção; cada alerta vira um marcador que leva o vídeo ao início da venda
+ * em que ocorreu, convertido pelo relógio de reprodução do {@link VlcjMediaHandler}.
+ *
+ * Parado sobre o vídeo, um tooltip mostra as estatísticas recentes do VLC por
+ * etapa (rede, decodificador, tela), para separar a causa de um vídeo travado.
  */
 public class CameraQuadrant {
-    // Tamanho máximo do log para evitar problemas de memória
-    private static final int MAX_LOG_SIZE = 10000;
+    // Número máximo de linhas mantidas no log; as mais antigas saem uma a uma
+    private static final int MAX_LOG_ENTRIES = 2000;
+
+    // Eventos de cupom indexados por quadrante (21 bytes cada)
+    private static final int EVENT_INDEX_CAPACITY = 8192;
+
+    // Marcador: volta no máximo até este tempo antes do alerta, mais uma margem
+    private static final long BOOKMARK_LOOKBACK_NANOS = TimeUnit.MINUTES.toNanos(2);
+    private static final long BOOKMARK_PREROLL_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    // Limite de quadros do vídeo na grade e em tela cheia (0 = taxa da câmera)
+    private static final int GRID_FPS = Integer.getInteger("selfcheckout.video.gridFps", 10);
+    private static final int FULLSCREEN_FPS = Integer.getInteger("selfcheckout.video.fullscreenFps", 0);
+
+    // Amostras de estatísticas resumidas no tooltip do vídeo (10 s no intervalo padrão)
+    private static final int STATS_TOOLTIP_SAMPLES = 10;
+
+    // Borda dos painéis enquanto houver alerta não reconhecido
+    private static final String ANOMALY_STYLE = "-fx-border-color: #ff3b30; -fx-border-width: 3;";
 
     // Identificador do quadrante (0-3)
     private final int id;
@@ -23,12 +64,42 @@ public class CameraQuadrant {
     // Componentes da UI
     private final AnchorPane videoPane;
     private final AnchorPane logPane;
-    private TextArea logTextArea;
+    private ListView<String> logListView;
+    private final Tooltip statsTooltip = new Tooltip();
+
+    // Entradas do log em buffer circular, exibidas pelo ListView virtualizado
+    private final LogRingBuffer logEntries = new LogRingBuffer(MAX_LOG_ENTRIES);
+
+    // Fila de mensagens do PDV, drenada uma vez por pulso da UI
+    private final LogInbox logInbox = new LogInbox(MAX_LOG_ENTRIES, this::appendLogBatch);
 
     // Componentes para streaming e comunicação
     private VlcjMediaHandler mediaHandler;
     private UdpListener udpListener;
 
+    // Quadrante exibido sozinho (tela cheia), com vídeo na taxa completa
+    private boolean expanded = false;
+
+    // Stream principal e substream da câmera
+    private StreamUrls streamUrls;
+
+    // Vídeo na tela (falso quando outro quadrante está em tela cheia ou a janela minimizada)
+    private boolean videoOnScreen = true;
+
+    // Eventos de cupom do PDV por instante de recepção, para os marcadores no vídeo
+    private final ReceiptEventIndex eventIndex = new ReceiptEventIndex(EVENT_INDEX_CAPACITY);
+
+    // Instante do evento do último alerta (Long.MIN_VALUE se nenhum)
+    private volatile long lastAlertNanos = Long.MIN_VALUE;
+
+    // Alertas do motor de regras para o PDV deste quadrante
+    private final AnomalyListener anomalyListener = this::onAnomaly;
+    private volatile String pdvIp;
+    private volatile int pdvPort;
+    private boolean anomalyFlagged = false;
+    private String videoPaneStyle;
+    private String logPaneStyle;
+
     // Interface para callback de evento de duplo clique
     public interface DoubleClickCallback {
         void onDoubleClick(CameraQuadrant quadrant);
@@ -49,7 +120,9 @@ public class CameraQuadrant {
         this.logPane = logPane;
 
         initializeLogArea();
+        initializeStatsTooltip();
         setupDoubleClickHandler();
+        logInbox.start();
     }
 
     /**
@@ -64,9 +137,11 @@ public class CameraQuadrant {
     }
 
     /**
-     * Processa evento de duplo clique
+     * Processa evento de duplo clique. Qualquer clique também reconhece o alerta pendente.
      */
     private void handleDoubleClick(MouseEvent event) {
+        clearAnomalyFlag();
+
         if (event.getClickCount() == 2 && doubleClickCallback != null) {
             doubleClickCallback.onDoubleClick(this);
             appendToLog("Duplo clique detectado no quadrante " + id);
@@ -82,28 +157,71 @@ public class CameraQuadrant {
     }
 
     /**
-     * Inicializa a área de log com estilo adequado
+     * Inicializa a área de log com estilo adequado.
+     * O ListView só cria células para as linhas visíveis.
      */
     private void initializeLogArea() {
-        logTextArea = new TextArea();
-        logTextArea.setEditable(false);
-        logTextArea.setWrapText(true);
-        logTextArea.setStyle("-fx-control-inner-background: #4a4a4a; -fx-text-fill: white;");
+        logListView = new ListView<>(logEntries);
+        logListView.setFocusTraversable(false);
+        logListView.setStyle("-fx-control-inner-background: #4a4a4a; " +
+                "-fx-control-inner-background-alt: #4a4a4a;");
+        logListView.setCellFactory(list -> new LogCell(list, logEntries));
+
+        // Marcador do último alerta no vídeo
+        MenuItem bookmarkItem = new MenuItem("Ver último alerta no vídeo");
+        bookmarkItem.setOnAction(event -> seekToLastAlert());
+        logListView.setContextMenu(new ContextMenu(bookmarkItem));
 
         // Preenche todo o espaço do pane
-        AnchorPane.setTopAnchor(logTextArea, 0.0);
-        AnchorPane.setBottomAnchor(logTextArea, 0.0);
-        AnchorPane.setLeftAnchor(logTextArea, 0.0);
-        AnchorPane.setRightAnchor(logTextArea, 0.0);
+        AnchorPane.setTopAnchor(logListView, 0.0);
+        AnchorPane.setBottomAnchor(logListView, 0.0);
+        AnchorPane.setLeftAnchor(logListView, 0.0);
+        AnchorPane.setRightAnchor(logListView, 0.0);
+
+        logPane.getChildren().add(logListView);
+    }
+
+    /**
+     * Instala o tooltip de estatísticas no vídeo; o texto é montado só ao exibi-lo
+     */
+    private void initializeStatsTooltip() {
+        statsTooltip.setOnShowing(event -> statsTooltip.setText(formatStreamStats(getStreamStats())));
+        Tooltip.install(videoPane, statsTooltip);
+    }
 
-        logPane.getChildren().add(logTextArea);
+    /**
+     * Texto compacto das estatísticas, uma linha por etapa do vídeo
+     */
+    private static String formatStreamStats(VideoStreamStats stats) {
+        if (stats == null || stats.url() == null) {
+            return "Sem stream de vídeo";
+        }
+        if (stats.windowMs() == 0) {
+            return "Aguardando estatísticas do stream";
+        }
+        return String.format(
+                "Rede: %.0f kbit/s (demux %.0f), %d corrompidos, %d descontinuidades%n"
+                        + "Decodificador: %.1f fps, %.1f perdidos/s%n"
+                        + "Tela: %.1f exibidos/s pelo VLC, %.1f publicados/s, %.1f não publicados/s%n"
+                        + "Perfil %s, últimos %d s",
+                stats.inputKbps(), stats.demuxKbps(), stats.demuxCorrupted(), stats.discontinuities(),
+                stats.decodedFps(), stats.lostFps(),
+                stats.displayedFps(), stats.publishedFps(), stats.skippedFps(),
+                stats.profile(), Math.round(stats.windowMs() / 1000.0));
     }
 
     /**
-     * Conecta à câmera via RTSP
-     * @param rtspUrl URL do stream RTSP da câmera
+     * Conecta à câmera via RTSP. Com duas URLs (principal e substream, separadas
+     * por espaço ou ';'), a grade exibe o substream e a tela cheia o principal.
+     * @param rtspUrl URL do stream RTSP da câmera, ou "principal substream"
      */
     public void connectToRtspStream(String rtspUrl) {
+        StreamUrls urls = StreamUrls.parse(rtspUrl);
+        if (urls == null) {
+            appendToLog("URL da câmera vazia");
+            return;
+        }
+
         if (mediaHandler == null) {
             mediaHandler = new VlcjMediaHandler();
 
@@ -111,11 +229,19 @@ public class CameraQuadrant {
             mediaHandler.setLogCallback(message ->
                     System.out.println("Stream Q" + id + ": " + message)
             );
+            mediaHandler.setMaxFps(expanded ? FULLSCREEN_FPS : GRID_FPS);
         }
 
         try {
-            appendToLog("Câmera conectada: " + rtspUrl);
-            mediaHandler.connectToStream(rtspUrl, videoPane);
+            streamUrls = urls;
+            appendToLog("Câmera conectada: " + urls.primary()
+                    + (urls.hasSecondary() ? " (substream na grade: " + urls.secondary() + ")" : ""));
+            mediaHandler.connectToStream(urls.forExpanded(expanded), videoPane);
+
+            // Conectado fora da tela: suspende logo após a conexão
+            if (!videoOnScreen) {
+                Platform.runLater(mediaHandler::suspend);
+            }
         } catch (Exception e) {
             appendToLog("Erro ao conectar a câmera: " + e.getMessage());
             e.printStackTrace();
@@ -135,11 +261,20 @@ public class CameraQuadrant {
 
         try {
             udpListener = new UdpListener(ipAddress);
+            pdvIp = udpListener.getRemoteAddress().getHostAddress();
+            pdvPort = udpListener.getPort();
+            eventIndex.clear();
+            lastAlertNanos = Long.MIN_VALUE;
 
-            // Configura callback para receber mensagens na UI
-            udpListener.setMessageCallback(message ->
-                    Platform.runLater(() -> appendToLog(message))
-            );
+            // Eventos de cupom vão para o índice; o motor de regras é alimentado pelo motor UDP
+            // e os alertas voltam por onAnomaly
+            udpListener.setReceiptEventHandler(eventIndex);
+            RuleEngine.getInstance().removeAnomalyListener(anomalyListener);
+            RuleEngine.getInstance().addAnomalyListener(anomalyListener);
+
+            // Configura callback para receber mensagens na UI (entregues em lote a cada pulso)
+            // Os destaques são calculados aqui, na thread do PDV, e não na thread do JavaFX
+            udpListener.setMessageCallback(message -> logInbox.offer(message, MessageProcessor.highlight(message)));
 
             udpListener.start();
             appendToLog("PDV configurado: " + ipAddress);
@@ -150,20 +285,121 @@ public class CameraQuadrant {
     }
 
     /**
-     * Adiciona texto ao log com controle de tamanho
+     * Adiciona texto ao log. Quando o buffer está cheio, a linha mais antiga é descartada.
      * @param message Mensagem a ser adicionada
      */
     private void appendToLog(String message) {
-        // Limita o tamanho do log para evitar problemas de memória
-        if (logTextArea.getText().length() > MAX_LOG_SIZE) {
-            logTextArea.clear();
-        }
+        logEntries.append(System.currentTimeMillis(), message);
+
+        // Rola para o final
+        logListView.scrollTo(logEntries.size() - 1);
+    }
 
-        // Adiciona a mensagem com timestamp
-        logTextArea.appendText(String.format("[%tT] %s%n", System.currentTimeMillis(), message));
+    /**
+     * Adiciona um lote de mensagens ao log com uma única notificação da lista
+     * @param messages Mensagens a serem adicionadas
+     */
+    private void appendLogBatch(List<LogLine> messages) {
+        // Todas as linhas do lote recebem o mesmo timestamp
+        logEntries.appendAll(System.currentTimeMillis(), messages);
 
         // Rola para o final
-        logTextArea.setScrollTop(Double.MAX_VALUE);
+        logListView.scrollTo(logEntries.size() - 1);
+    }
+
+    /**
+     * Recebe os alertas do motor de regras (thread do PDV ou de verificação)
+     */
+    private void onAnomaly(AnomalyAlert alert) {
+        // Quadrante ouvindo o curinga 0.0.0.0 recebe os alertas de qualquer PDV da porta
+        String ip = pdvIp;
+        if (ip == null || alert.port() != pdvPort || (!ip.equals(alert.senderIp()) && !ip.equals("0.0.0.0"))) {
+            return;
+        }
+
+        lastAlertNanos = alert.eventNanos();
+        String message = alert.describe();
+        logInbox.offer(message, MessageProcessor.highlight(message));
+        Platform.runLater(this::flagAnomaly);
+    }
+
+    /**
+     * Leva o vídeo ao marcador do último alerta
+     * @return true se a reprodução foi reposicionada
+     */
+    public boolean seekToLastAlert() {
+        long nanos = lastAlertNanos;
+        if (nanos == Long.MIN_VALUE) {
+            appendToLog("Nenhum alerta para exibir no vídeo");
+            return false;
+        }
+        return seekToEvent(nanos);
+    }
+
+    /**
+     * Leva o vídeo ao início da venda que contém o evento, com alguns segundos
+     * de margem (limitado a poucos minutos antes do evento)
+     * @param receiveNanos Instante de recepção do evento (System.nanoTime())
+     * @return true se a reprodução foi reposicionada
+     */
+    public boolean seekToEvent(long receiveNanos) {
+        if (mediaHandler == null) {
+            appendToLog("Sem câmera conectada para o marcador");
+            return false;
+        }
+
+        long saleStart = eventIndex.saleStartNanos(receiveNanos);
+        long target = saleStart == Long.MIN_VALUE
+                ? receiveNanos
+                : Math.max(saleStart, receiveNanos - BOOKMARK_LOOKBACK_NANOS);
+
+        // A margem não recua para antes do início do relógio de reprodução
+        long seekNanos = target - BOOKMARK_PREROLL_NANOS;
+        long clockStart = mediaHandler.getPlaybackClock().oldestNanos();
+        if (clockStart != Long.MIN_VALUE && target >= clockStart) {
+            seekNanos = Math.max(seekNanos, clockStart);
+        }
+        return mediaHandler.seekToReceiveTime(seekNanos);
+    }
+
+    /**
+     * @return Índice dos eventos de cupom deste quadrante
+     */
+    public ReceiptEventIndex getEventIndex() {
+        return eventIndex;
+    }
+
+    /**
+     * Destaca o quadrante até o operador reconhecer o alerta com um clique
+     */
+    private void flagAnomaly() {
+        if (anomalyFlagged) {
+            return;
+        }
+        anomalyFlagged = true;
+        videoPaneStyle = videoPane.getStyle();
+        logPaneStyle = logPane.getStyle();
+        videoPane.setStyle(videoPaneStyle + ANOMALY_STYLE);
+        logPane.setStyle(logPaneStyle + ANOMALY_STYLE);
+    }
+
+    /**
+     * Remove o destaque de alerta do quadrante
+     */
+    public void clearAnomalyFlag() {
+        if (!anomalyFlagged) {
+            return;
+        }
+        anomalyFlagged = false;
+        videoPane.setStyle(videoPaneStyle);
+        logPane.setStyle(logPaneStyle);
+    }
+
+    /**
+     * @return Se há alerta do motor de regras não reconhecido
+     */
+    public boolean isAnomalyFlagged() {
+        return anomalyFlagged;
     }
 
     /**
@@ -214,10 +450,74 @@ public class CameraQuadrant {
         }
     }
 
+    /**
+     * Informa se o quadrante está sozinho na tela; ajusta o limite de quadros do
+     * vídeo e, se configurado, alterna entre o substream e o stream principal
+     * @param expanded true em tela cheia, false na grade
+     */
+    public void setExpanded(boolean expanded) {
+        this.expanded = expanded;
+        if (mediaHandler != null) {
+            mediaHandler.setMaxFps(expanded ? FULLSCREEN_FPS : GRID_FPS);
+
+            // Com substream, troca de stream mantendo o quadro atual até o novo chegar
+            if (streamUrls != null && streamUrls.hasSecondary()) {
+                mediaHandler.switchStream(streamUrls.forExpanded(expanded));
+            }
+        }
+    }
+
+    /**
+     * Para a decodificação do vídeo enquanto o quadrante não está na tela
+     */
+    public void suspendVideo() {
+        videoOnScreen = false;
+        if (mediaHandler != null && !mediaHandler.isSuspended()) {
+            mediaHandler.suspend();
+            appendToLog("Vídeo suspenso (fora da tela)");
+        }
+    }
+
+    /**
+     * Retoma a decodificação do vídeo, no stream do modo atual
+     */
+    public void resumeVideo() {
+        videoOnScreen = true;
+        if (mediaHandler != null && streamUrls != null && mediaHandler.isSuspended()) {
+            mediaHandler.resume(streamUrls.forExpanded(expanded));
+            appendToLog("Vídeo retomado");
+        }
+    }
+
+    /**
+     * @return Quadros de vídeo publicados na cena desde a última conexão
+     */
+    public long getRenderedFrames() {
+        return mediaHandler == null ? 0 : mediaHandler.getRenderedFrames();
+    }
+
+    /**
+     * @return Quadros de vídeo decodificados e não publicados desde a última conexão
+     */
+    public long getSkippedFrames() {
+        return mediaHandler == null ? 0 : mediaHandler.getSkippedFrames();
+    }
+
+    /**
+     * @return Estatísticas recentes do VLC para este quadrante, ou null sem câmera conectada
+     */
+    public VideoStreamStats getStreamStats() {
+        VlcjMediaHandler handler = mediaHandler;
+        return handler == null ? null : handler.getStreamStats(STATS_TOOLTIP_SAMPLES);
+    }
+
     /**
      * Libera todos os recursos utilizados pelo quadrante
      */
     public void dispose() {
+        logInbox.stop();
+        RuleEngine.getInstance().removeAnomalyListener(anomalyListener);
+
         if (mediaHandler != null) {
             mediaHandler.dispose();
             mediaHandler = null;
@@ -243,6 +543,13 @@ public class CameraQuadrant {
         return videoPane;
     }
 
+    /**
+     * @return A fila de mensagens do log, com contadores de lote e profundidade
+     */
+    public LogInbox getLogInbox() {
+        return logInbox;
+    }
+
     /**
      * @return O painel de log deste quadrante
      */
@@ -0,0 +1,112 @@
+package com.grupoverona.selfcheckout.ui;
+
+import com.grupoverona.selfcheckout.util.HighlightCategory;
+import com.grupoverona.selfcheckout.util.HighlightSpans;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Célula do log de um quadrante. O timestamp é lido do {@link LogRingBuffer}
+ * e formatado apenas quando a linha fica visível.
+ *
+ * Linhas com destaques são desenhadas em um TextFlow, com um Text por trecho
+ * na cor da categoria; as demais usam o texto simples da célula.
+ */
+class LogCell extends ListCell<String> {
+
+    // Mesmo formato de %tT (HH:mm:ss), compartilhado por todas as células
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    // Cores das categorias, convertidas uma vez (apenas na thread do JavaFX)
+    private static final Map<HighlightCategory, Color> COLORS = new HashMap<>();
+
+    private final LogRingBuffer entries;
+
+    // Conteúdo das linhas destacadas, reutilizado pela célula
+    private final TextFlow highlightedText = new TextFlow();
+
+    LogCell(ListView<String> listView, LogRingBuffer entries) {
+        this.entries = entries;
+
+        setWrapText(true);
+        setStyle("-fx-text-fill: white;");
+
+        // Limita a largura para que o texto quebre dentro do painel
+        prefWidthProperty().bind(listView.widthProperty().subtract(20));
+        setMaxWidth(USE_PREF_SIZE);
+        // O TextFlow das linhas destacadas quebra na mesma largura do texto simples
+        highlightedText.prefWidthProperty().bind(prefWidthProperty().subtract(10));
+        highlightedText.maxWidthProperty().bind(highlightedText.prefWidthProperty());
+    }
+
+    @Override
+    protected void updateItem(String message, boolean empty) {
+        super.updateItem(message, empty);
+
+        int index = getIndex();
+        if (empty || message == null || index < 0 || index >= entries.size()) {
+            setText(null);
+            setGraphic(null);
+            return;
+        }
+
+        String time = "[" + TIME_FORMAT.format(Instant.ofEpochMilli(entries.getTimestamp(index))) + "] ";
+        HighlightSpans spans = entries.getHighlights(index);
+        if (spans == null || spans.isEmpty()) {
+            setGraphic(null);
+            setText(time + message);
+            return;
+        }
+
+        setText(null);
+        highlightedText.getChildren().setAll(plain(time));
+        int position = 0;
+        for (int i = 0; i < spans.size(); i++) {
+            if (spans.start(i) > position) {
+                highlightedText.getChildren().add(plain(message.substring(position, spans.start(i))));
+            }
+            highlightedText.getChildren().add(highlighted(message.substring(spans.start(i), spans.end(i)), spans.category(i)));
+            position = spans.end(i);
+        }
+        if (position < message.length()) {
+            highlightedText.getChildren().add(plain(message.substring(position)));
+        }
+        setGraphic(highlightedText);
+    }
+
+    private Text plain(String text) {
+        Text node = new Text(text);
+        node.setFill(Color.WHITE);
+        node.setFont(getFont());
+        return node;
+    }
+
+    private Text highlighted(String text, HighlightCategory category) {
+        Text node = new Text(text);
+        node.setFill(COLORS.computeIfAbsent(category, LogCell::parseColor));
+        node.setFont(Font.font(getFont().getFamily(), FontWeight.BOLD, getFont().getSize()));
+        return node;
+    }
+
+    private static Color parseColor(HighlightCategory category) {
+        try {
+            return Color.web(category.color());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Cor inválida na categoria de destaque " + category.name() + ": " + category.color());
+            return Color.YELLOW;
+        }
+    }
+}
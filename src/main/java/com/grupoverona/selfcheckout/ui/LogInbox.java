@@ -0,0 +1,205 @@
+package com.grupoverona.selfcheckout.ui;
+
+import com.grupoverona.selfcheckout.util.HighlightSpans;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Caixa de entrada de mensagens de log de um quadrante.
+ * As threads de rede apenas enfileiram (sem locks); quando a fila passa de
+ * vazia a não vazia, um único Platform.runLater agenda a drenagem, que entrega
+ * todas as mensagens pendentes em um único lote na thread do JavaFX. Isso evita
+ * um Platform.runLater por mensagem durante rajadas de cupons, sem manter um
+ * timer ativo a cada pulso com o quadrante ocioso.
+ * A fila guarda no máximo a capacidade do log exibido: além dela, as mensagens
+ * mais antigas seriam descartadas pelo próprio log, então são descartadas já na
+ * fila e contadas.
+ * Os destaques de cada mensagem chegam prontos da thread de origem, para que a
+ * thread do JavaFX apenas os desenhe.
+ */
+public class LogInbox {
+
+    private final int capacity;
+    private final Queue<LogLine> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Consumer<List<LogLine>> batchConsumer;
+    private final List<LogLine> batch = new ArrayList<>();
+
+    // Drenagem já agendada na thread do JavaFX
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean running = false;
+
+    // Contadores de lotes (escritos apenas na thread do JavaFX)
+    private volatile int lastBatchSize = 0;
+    private volatile int maxBatchSize = 0;
+    private volatile long batchCount = 0;
+    private volatile long messageCount = 0;
+
+    /**
+     * @param capacity Máximo de mensagens pendentes (a capacidade do log exibido)
+     * @param batchConsumer Recebe os lotes na thread do JavaFX; a lista é reutilizada
+     *                      e só é válida durante a chamada
+     */
+    public LogInbox(int capacity, Consumer<List<LogLine>> batchConsumer) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        this.batchConsumer = batchConsumer;
+    }
+
+    /**
+     * Enfileira uma mensagem sem destaques. Pode ser chamado de qualquer thread.
+     */
+    public void offer(String message) {
+        offer(message, HighlightSpans.EMPTY);
+    }
+
+    /**
+     * Enfileira uma mensagem com os trechos a destacar. Pode ser chamado de qualquer thread.
+     */
+    public void offer(String message, HighlightSpans highlights) {
+        queue.offer(new LogLine(message, highlights));
+        int depth = queueDepth.incrementAndGet();
+
+        // Fila cheia: descarta as mais antigas
+        while (depth > capacity && queue.poll() != null) {
+            depth = queueDepth.decrementAndGet();
+            droppedCount.incrementAndGet();
+        }
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+
+        scheduleDrain();
+    }
+
+    /**
+     * Passa a entregar as mensagens (chamar na thread do JavaFX)
+     */
+    public void start() {
+        running = true;
+        scheduleDrain();
+    }
+
+    /**
+     * Para a entrega e descarta mensagens pendentes
+     */
+    public void stop() {
+        running = false;
+        queue.clear();
+        queueDepth.set(0);
+    }
+
+    /**
+     * Agenda uma drenagem, se houver mensagens e nenhuma já estiver agendada
+     */
+    private void scheduleDrain() {
+        if (running && !queue.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    /**
+     * Entrega as mensagens pendentes em um único lote
+     */
+    private void drain() {
+        // Liberado antes de drenar: uma mensagem que chegue durante a entrega
+        // agenda a próxima drenagem
+        drainScheduled.set(false);
+        if (!running) {
+            return;
+        }
+
+        LogLine line;
+        while ((line = queue.poll()) != null) {
+            batch.add(line);
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        int size = batch.size();
+        queueDepth.addAndGet(-size);
+
+        try {
+            batchConsumer.accept(batch);
+        } finally {
+            batch.clear();
+        }
+
+        lastBatchSize = size;
+        if (size > maxBatchSize) {
+            maxBatchSize = size;
+        }
+        batchCount++;
+        messageCount += size;
+    }
+
+    /**
+     * @return Mensagens aguardando entrega
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return Maior profundidade de fila observada
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return Mensagens descartadas com a fila cheia
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return Tamanho do último lote entregue
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * @return Maior lote entregue de uma vez
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return Número de lotes entregues
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return Número total de mensagens entregues
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * @return Tamanho médio dos lotes entregues
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount;
+        return batches == 0 ? 0.0 : (double) messageCount / batches;
+    }
+}
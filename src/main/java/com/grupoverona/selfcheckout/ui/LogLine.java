@@ -0,0 +1,13 @@
+package com.grupoverona.selfcheckout.ui;
+
+import com.grupoverona.selfcheckout.util.HighlightSpans;
+
+/**
+ * Linha de log a caminho da UI: a mensagem e os trechos a destacar,
+ * calculados na thread de origem.
+ *
+ * @param message Texto da linha
+ * @param highlights Trechos destacados ({@link HighlightSpans#EMPTY} se nenhum)
+ */
+public record LogLine(String message, HighlightSpans highlights) {
+}
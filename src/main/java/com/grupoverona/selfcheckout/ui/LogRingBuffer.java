@@ -0,0 +1,163 @@
+package com.grupoverona.selfcheckout.ui;
+
+import com.grupoverona.selfcheckout.util.HighlightSpans;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffer circular de capacidade fixa com as entradas de log de um quadrante.
+ * Cada entrada guarda um timestamp primitivo, a referência da mensagem e os
+ * trechos a destacar.
+ *
+ * É exposto como ObservableList de mensagens para ser exibido em um ListView,
+ * que só cria e posiciona células para as linhas visíveis. Quando cheio, as
+ * entradas mais antigas saem uma a uma; o custo de inserção é O(1)
+ * independentemente de quanto tempo o turno dure.
+ *
+ * Deve ser usado apenas na thread do JavaFX.
+ */
+public class LogRingBuffer extends ObservableListBase<String> {
+
+    private final long[] timestamps;
+    private final String[] messages;
+    private final HighlightSpans[] highlights;
+
+    // Índice físico da entrada mais antiga e número de entradas
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * @param capacity Número máximo de entradas mantidas
+     */
+    public LogRingBuffer(int capacity) {
+        this.timestamps = new long[capacity];
+        this.messages = new String[capacity];
+        this.highlights = new HighlightSpans[capacity];
+    }
+
+    /**
+     * Adiciona uma entrada, descartando a mais antiga se o buffer estiver cheio
+     */
+    public void append(long timestamp, String message) {
+        append(timestamp, message, HighlightSpans.EMPTY);
+    }
+
+    /**
+     * Adiciona uma entrada com trechos destacados, descartando a mais antiga se o buffer estiver cheio
+     */
+    public void append(long timestamp, String message, HighlightSpans spans) {
+        beginChange();
+        try {
+            write(timestamp, message, spans);
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Adiciona um lote de entradas com o mesmo timestamp, notificando a lista
+     * uma única vez
+     */
+    public void appendAll(long timestamp, List<LogLine> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        beginChange();
+        try {
+            // Se o lote for maior que o buffer, apenas o final dele é mantido
+            int start = Math.max(0, batch.size() - messages.length);
+            for (int i = start; i < batch.size(); i++) {
+                LogLine line = batch.get(i);
+                write(timestamp, line.message(), line.highlights());
+            }
+        } finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Grava uma entrada na próxima posição e registra a alteração
+     */
+    private void write(long timestamp, String message, HighlightSpans spans) {
+        int capacity = messages.length;
+
+        if (size == capacity) {
+            // Buffer cheio: a entrada mais antiga sai da lista
+            String removed = messages[head];
+            head = (head + 1) % capacity;
+            size--;
+            nextRemove(0, removed);
+        }
+
+        int slot = (head + size) % capacity;
+        timestamps[slot] = timestamp;
+        messages[slot] = message;
+        highlights[slot] = spans;
+        size++;
+        nextAdd(size - 1, size);
+    }
+
+    /**
+     * Remove todas as entradas
+     */
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+
+        List<String> removed = new ArrayList<>(this);
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = null;
+            highlights[i] = null;
+        }
+        head = 0;
+        size = 0;
+
+        beginChange();
+        nextRemove(0, removed);
+        endChange();
+    }
+
+    @Override
+    public String get(int index) {
+        return messages[physicalIndex(index)];
+    }
+
+    /**
+     * @return Timestamp (epoch em ms) da entrada na posição lógica informada
+     */
+    public long getTimestamp(int index) {
+        return timestamps[physicalIndex(index)];
+    }
+
+    /**
+     * @return Trechos destacados da entrada na posição lógica informada
+     */
+    public HighlightSpans getHighlights(int index) {
+        return highlights[physicalIndex(index)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Capacidade máxima do buffer
+     */
+    public int capacity() {
+        return messages.length;
+    }
+
+    private int physicalIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + " fora do intervalo [0, " + size + ")");
+        }
+        return (head + index) % messages.length;
+    }
+}
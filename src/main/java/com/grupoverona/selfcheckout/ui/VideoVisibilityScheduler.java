@@ -0,0 +1,98 @@
+package com.grupoverona.selfcheckout.ui;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decide quais quadrantes decodificam vídeo conforme o que está na tela.
+ *
+ * Um quadrante fora da tela (outro em tela cheia, ou a janela minimizada) é
+ * suspenso depois de um pequeno atraso, para que alternâncias rápidas não
+ * derrubem e reabram os streams; ao voltar à tela, é retomado na hora.
+ *
+ * Usado apenas na thread do JavaFX.
+ */
+public class VideoVisibilityScheduler {
+
+    // Tempo fora da tela antes de suspender a decodificação
+    private static final long SUSPEND_DELAY_MS = Long.getLong("selfcheckout.video.suspendDelayMs", 2000);
+
+    private final List<CameraQuadrant> quadrants;
+
+    // Quadrantes exibidos no layout atual
+    private final boolean[] onScreen;
+
+    // Suspensões agendadas, canceladas se o quadrante voltar antes do atraso
+    private final PauseTransition[] pendingSuspends;
+
+    private boolean iconified = false;
+
+    /**
+     * @param quadrants Quadrantes da tela, todos inicialmente visíveis
+     */
+    public VideoVisibilityScheduler(List<CameraQuadrant> quadrants) {
+        this.quadrants = List.copyOf(quadrants);
+        this.onScreen = new boolean[quadrants.size()];
+        this.pendingSuspends = new PauseTransition[quadrants.size()];
+        Arrays.fill(onScreen, true);
+    }
+
+    /**
+     * Apenas o quadrante informado fica na tela (modo tela cheia)
+     */
+    public void showOnly(int index) {
+        for (int i = 0; i < onScreen.length; i++) {
+            onScreen[i] = i == index;
+        }
+        apply();
+    }
+
+    /**
+     * Todos os quadrantes na tela (grade)
+     */
+    public void showAll() {
+        Arrays.fill(onScreen, true);
+        apply();
+    }
+
+    /**
+     * Janela minimizada: nenhum quadrante na tela
+     */
+    public void setIconified(boolean iconified) {
+        this.iconified = iconified;
+        apply();
+    }
+
+    private void apply() {
+        for (int i = 0; i < onScreen.length; i++) {
+            CameraQuadrant quadrant = quadrants.get(i);
+            if (onScreen[i] && !iconified) {
+                cancelSuspend(i);
+                quadrant.resumeVideo();
+            } else if (pendingSuspends[i] == null) {
+                scheduleSuspend(i, quadrant);
+            }
+        }
+    }
+
+    private void scheduleSuspend(int index, CameraQuadrant quadrant) {
+        PauseTransition delay = new PauseTransition(Duration.millis(SUSPEND_DELAY_MS));
+        delay.setOnFinished(event -> {
+            pendingSuspends[index] = null;
+            quadrant.suspendVideo();
+        });
+        pendingSuspends[index] = delay;
+        delay.play();
+    }
+
+    private void cancelSuspend(int index) {
+        PauseTransition pending = pendingSuspends[index];
+        if (pending != null) {
+            pending.stop();
+            pendingSuspends[index] = null;
+        }
+    }
+}
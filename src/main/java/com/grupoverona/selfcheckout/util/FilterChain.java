@@ -0,0 +1,68 @@
+package com.grupoverona.selfcheckout.util;
+
+import com.grupoverona.selfcheckout.util.MessageProcessor.MessageFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cadeia imutável de filtros de mensagem. Alterações criam uma nova cadeia,
+ * que o {@link MessageProcessor} publica por troca atômica de referência;
+ * as threads de recepção leem a cadeia sem locks e nunca a veem pela metade.
+ *
+ * Os filtros podem ser executados em paralelo por PDVs diferentes, portanto
+ * não devem guardar estado mutável compartilhado.
+ */
+public final class FilterChain {
+
+    /**
+     * Cadeia sem filtros: a mensagem é exibida como recebida
+     */
+    public static final FilterChain EMPTY = new FilterChain(List.of());
+
+    private final List<MessageFilter> filters;
+
+    private FilterChain(List<MessageFilter> filters) {
+        this.filters = filters;
+    }
+
+    /**
+     * @param filters Filtros na ordem de aplicação
+     */
+    public static FilterChain of(MessageFilter... filters) {
+        return new FilterChain(List.of(filters));
+    }
+
+    /**
+     * @return Nova cadeia com o filtro acrescentado ao final
+     */
+    public FilterChain with(MessageFilter filter) {
+        List<MessageFilter> updated = new ArrayList<>(filters);
+        updated.add(filter);
+        return new FilterChain(List.copyOf(updated));
+    }
+
+    /**
+     * @return Filtros na ordem de aplicação (lista imutável)
+     */
+    public List<MessageFilter> filters() {
+        return filters;
+    }
+
+    /**
+     * Aplica todos os filtros em sequência
+     */
+    public String apply(String message) {
+        for (int i = 0; i < filters.size(); i++) {
+            message = filters.get(i).process(message);
+        }
+        return message;
+    }
+
+    /**
+     * @return true se a cadeia é composta apenas pelo filtro informado
+     */
+    boolean isOnly(MessageFilter filter) {
+        return filters.size() == 1 && filters.get(0) == filter;
+    }
+}
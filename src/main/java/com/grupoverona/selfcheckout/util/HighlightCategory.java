@@ -0,0 +1,10 @@
+package com.grupoverona.selfcheckout.util;
+
+/**
+ * Categoria de destaque do dicionário de palavras-chave.
+ *
+ * @param name Nome da categoria (ex.: "cancelamento")
+ * @param color Cor CSS usada no log (ex.: "#ff6b6b")
+ */
+public record HighlightCategory(String name, String color) {
+}
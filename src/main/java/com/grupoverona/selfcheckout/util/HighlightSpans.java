@@ -0,0 +1,63 @@
+package com.grupoverona.selfcheckout.util;
+
+/**
+ * Trechos de uma mensagem a destacar no log, sem sobreposição e em ordem de
+ * posição. Imutável: calculado na thread do PDV e lido pela thread do JavaFX.
+ */
+public final class HighlightSpans {
+
+    /**
+     * Mensagem sem destaques (a maioria das linhas)
+     */
+    public static final HighlightSpans EMPTY = new HighlightSpans(new int[0], new HighlightCategory[0]);
+
+    // Pares (início, fim) e categoria de cada trecho
+    private final int[] bounds;
+    private final HighlightCategory[] categories;
+
+    HighlightSpans(int[] bounds, HighlightCategory[] categories) {
+        this.bounds = bounds;
+        this.categories = categories;
+    }
+
+    /**
+     * @return Número de trechos
+     */
+    public int size() {
+        return categories.length;
+    }
+
+    public boolean isEmpty() {
+        return categories.length == 0;
+    }
+
+    /**
+     * @return Índice do primeiro caractere do trecho
+     */
+    public int start(int span) {
+        return bounds[span * 2];
+    }
+
+    /**
+     * @return Índice seguinte ao último caractere do trecho
+     */
+    public int end(int span) {
+        return bounds[span * 2 + 1];
+    }
+
+    public HighlightCategory category(int span) {
+        return categories[span];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(start(i)).append('-').append(end(i)).append(' ').append(category(i).name());
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,374 @@
+package com.grupoverona.selfcheckout.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Localizador de palavras-chave do log dos PDVs (cancelamentos, estornos,
+ * códigos de supervisor...) em uma única passada pela mensagem,
+ * independentemente do tamanho do dicionário.
+ *
+ * O dicionário é compilado em um autômato de Aho–Corasick determinístico:
+ * as transições de falha já ficam resolvidas em uma tabela plana
+ * estado × classe de caractere, então cada caractere da mensagem custa uma
+ * leitura na tabela. A comparação ignora maiúsculas/minúsculas, e palavras-chave
+ * só casam com palavras inteiras ("PIX" não destaca "PIXEL").
+ *
+ * Imutável e thread-safe: a mesma instância atende as threads de todos os PDVs.
+ */
+public final class KeywordMatcher {
+
+    /**
+     * Dicionário vazio: não destaca nada
+     */
+    public static final KeywordMatcher EMPTY = new Builder().build();
+
+    /**
+     * Recebe as ocorrências encontradas, em ordem de posição final
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+        /**
+         * @param start Índice do primeiro caractere da ocorrência
+         * @param end Índice seguinte ao último caractere
+         * @param category Categoria da palavra-chave
+         */
+        void onMatch(int start, int end, HighlightCategory category);
+    }
+
+    private final HighlightCategory[] categories;
+    private final int[] keywordLength;
+    private final HighlightCategory[] keywordCategory;
+
+    // Caracteres do dicionário (já em maiúsculas); a classe de um caractere é o
+    // índice + 1, e a classe 0 reúne os caracteres fora do dicionário
+    private final char[] alphabet;
+    private final int[] asciiClass = new int[128];
+    private final int classes;
+
+    // Próximo estado: transitions[estado * classes + classe]
+    private final int[] transitions;
+
+    // Palavra-chave que termina no estado (-1 se nenhuma) e próximo estado da
+    // cadeia de falhas onde termina outra palavra-chave (-1 se nenhum)
+    private final int[] stateKeyword;
+    private final int[] outputLink;
+
+    // Ocorrências da mensagem em análise, por thread (evita alocação em highlight)
+    private final ThreadLocal<Matches> scratch = ThreadLocal.withInitial(Matches::new);
+
+    private KeywordMatcher(List<HighlightCategory> categories, Map<String, Integer> keywords) {
+        this.categories = categories.toArray(new HighlightCategory[0]);
+        this.keywordLength = new int[keywords.size()];
+        this.keywordCategory = new HighlightCategory[keywords.size()];
+
+        TreeSet<Character> chars = new TreeSet<>();
+        int totalLength = 0;
+        for (String keyword : keywords.keySet()) {
+            for (int i = 0; i < keyword.length(); i++) {
+                chars.add(keyword.charAt(i));
+            }
+            totalLength += keyword.length();
+        }
+        this.alphabet = new char[chars.size()];
+        int index = 0;
+        for (char c : chars) {
+            alphabet[index] = c;
+            if (c < 128) {
+                asciiClass[c] = index + 1;
+            }
+            index++;
+        }
+        this.classes = alphabet.length + 1;
+
+        // Trie: 0 é a raiz e também indica "sem filho"
+        int[] table = new int[(totalLength + 1) * classes];
+        int[] terminal = new int[totalLength + 1];
+        Arrays.fill(terminal, -1);
+        int states = 1;
+
+        int keywordIndex = 0;
+        for (Map.Entry<String, Integer> entry : keywords.entrySet()) {
+            String keyword = entry.getKey();
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int slot = state * classes + classOf(keyword.charAt(i));
+                if (table[slot] == 0) {
+                    table[slot] = states++;
+                }
+                state = table[slot];
+            }
+            terminal[state] = keywordIndex;
+            keywordLength[keywordIndex] = keyword.length();
+            keywordCategory[keywordIndex] = this.categories[entry.getValue()];
+            keywordIndex++;
+        }
+
+        // Busca em largura: resolve as falhas e completa as transições ausentes
+        // com as do estado de falha (já completo, por ter profundidade menor)
+        int[] fail = new int[states];
+        int[] links = new int[states];
+        Arrays.fill(links, -1);
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < classes; c++) {
+            if (table[c] != 0) {
+                queue[tail++] = table[c];
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            for (int c = 0; c < classes; c++) {
+                int slot = state * classes + c;
+                int target = table[fail[state] * classes + c];
+                if (table[slot] == 0) {
+                    table[slot] = target;
+                } else {
+                    int child = table[slot];
+                    fail[child] = target;
+                    links[child] = terminal[target] >= 0 ? target : links[target];
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        this.transitions = Arrays.copyOf(table, states * classes);
+        this.stateKeyword = Arrays.copyOf(terminal, states);
+        this.outputLink = links;
+    }
+
+    /**
+     * @return Número de palavras-chave do dicionário
+     */
+    public int keywordCount() {
+        return keywordLength.length;
+    }
+
+    /**
+     * @return Categorias do dicionário, na ordem de declaração
+     */
+    public List<HighlightCategory> categories() {
+        return List.of(categories);
+    }
+
+    /**
+     * Reporta todas as ocorrências, inclusive sobrepostas, em uma passada
+     */
+    public void findAll(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * classes + classOf(text.charAt(i))];
+
+            int output = stateKeyword[state] >= 0 ? state : outputLink[state];
+            while (output >= 0) {
+                int keyword = stateKeyword[output];
+                int start = i + 1 - keywordLength[keyword];
+                if (isWholeWord(text, start, i + 1)) {
+                    handler.onMatch(start, i + 1, keywordCategory[keyword]);
+                }
+                output = outputLink[output];
+            }
+        }
+    }
+
+    /**
+     * Trechos a destacar: entre ocorrências sobrepostas, vale a que começa
+     * antes e, empatadas, a mais longa ("CANCELAMENTO DE ITEM" antes de "CANCELAMENTO")
+     * @return Trechos sem sobreposição, ou {@link HighlightSpans#EMPTY}
+     */
+    public HighlightSpans highlight(CharSequence text) {
+        if (keywordLength.length == 0) {
+            return HighlightSpans.EMPTY;
+        }
+
+        Matches matches = scratch.get();
+        matches.count = 0;
+        findAll(text, matches);
+        if (matches.count == 0) {
+            return HighlightSpans.EMPTY;
+        }
+        return matches.select();
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            return asciiClass[c];
+        }
+        int index = Arrays.binarySearch(alphabet, Character.toUpperCase(c));
+        return index >= 0 ? index + 1 : 0;
+    }
+
+    private static boolean isWholeWord(CharSequence text, int start, int end) {
+        boolean startOk = start == 0
+                || !Character.isLetterOrDigit(text.charAt(start - 1))
+                || !Character.isLetterOrDigit(text.charAt(start));
+        boolean endOk = end == text.length()
+                || !Character.isLetterOrDigit(text.charAt(end))
+                || !Character.isLetterOrDigit(text.charAt(end - 1));
+        return startOk && endOk;
+    }
+
+    /**
+     * Ocorrências acumuladas de uma mensagem (reutilizado pela thread)
+     */
+    private static final class Matches implements MatchHandler {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private HighlightCategory[] categories = new HighlightCategory[16];
+        private int count;
+
+        @Override
+        public void onMatch(int start, int end, HighlightCategory category) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                categories = Arrays.copyOf(categories, count * 2);
+            }
+
+            // Inserção ordenada por início e, no mesmo início, da mais longa para a mais curta
+            int i = count++;
+            while (i > 0 && (starts[i - 1] > start || (starts[i - 1] == start && ends[i - 1] < end))) {
+                starts[i] = starts[i - 1];
+                ends[i] = ends[i - 1];
+                categories[i] = categories[i - 1];
+                i--;
+            }
+            starts[i] = start;
+            ends[i] = end;
+            categories[i] = category;
+        }
+
+        HighlightSpans select() {
+            int selected = 0;
+            int lastEnd = -1;
+            for (int i = 0; i < count; i++) {
+                if (starts[i] >= lastEnd) {
+                    starts[selected] = starts[i];
+                    ends[selected] = ends[i];
+                    categories[selected] = categories[i];
+                    lastEnd = ends[i];
+                    selected++;
+                }
+            }
+
+            int[] bounds = new int[selected * 2];
+            for (int i = 0; i < selected; i++) {
+                bounds[i * 2] = starts[i];
+                bounds[i * 2 + 1] = ends[i];
+            }
+            HighlightSpans spans = new HighlightSpans(bounds, Arrays.copyOf(categories, selected));
+            Arrays.fill(categories, 0, count, null);
+            return spans;
+        }
+    }
+
+    /**
+     * Lê um dicionário no formato:
+     * <pre>
+     * # comentário
+     * [cancelamento] #ff6b6b
+     * CANCELAMENTO
+     * ESTORNO
+     * </pre>
+     * Cada palavra-chave (uma por linha, podendo conter espaços) pertence à
+     * última categoria declarada.
+     */
+    public static KeywordMatcher parse(Reader reader) throws IOException {
+        Builder builder = new Builder();
+        String category = null;
+
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.startsWith("[")) {
+                int close = line.indexOf(']');
+                if (close < 0) {
+                    throw new IllegalArgumentException("Linha " + lineNumber + " do dicionário: categoria sem ']': " + line);
+                }
+                category = line.substring(1, close).strip();
+                builder.category(category, line.substring(close + 1).strip());
+            } else if (category == null) {
+                throw new IllegalArgumentException("Linha " + lineNumber + " do dicionário: palavra-chave sem categoria: " + line);
+            } else {
+                builder.add(line, category);
+            }
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Monta um dicionário em código. Uma palavra-chave repetida fica com a última categoria.
+     */
+    public static final class Builder {
+        private final List<HighlightCategory> categories = new ArrayList<>();
+        private final Map<String, Integer> keywords = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Declara (ou redefine a cor de) uma categoria
+         */
+        public Builder category(String name, String color) {
+            for (int i = 0; i < categories.size(); i++) {
+                if (categories.get(i).name().equals(name)) {
+                    categories.set(i, new HighlightCategory(name, color));
+                    return this;
+                }
+            }
+            categories.add(new HighlightCategory(name, color));
+            return this;
+        }
+
+        /**
+         * Adiciona uma palavra-chave a uma categoria já declarada
+         */
+        public Builder add(String keyword, String category) {
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Palavra-chave vazia");
+            }
+            for (int i = 0; i < categories.size(); i++) {
+                if (categories.get(i).name().equals(category)) {
+                    keywords.put(fold(keyword), i);
+                    return this;
+                }
+            }
+            throw new IllegalArgumentException("Categoria não declarada: " + category);
+        }
+
+        public KeywordMatcher build() {
+            return new KeywordMatcher(categories, keywords);
+        }
+
+        private static String fold(String keyword) {
+            StringBuilder folded = new StringBuilder(keyword.length());
+            for (int i = 0; i < keyword.length(); i++) {
+                folded.append(Character.toUpperCase(keyword.charAt(i)));
+            }
+            return folded.toString();
+        }
+    }
+}
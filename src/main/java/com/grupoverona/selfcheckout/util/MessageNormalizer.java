@@ -0,0 +1,197 @@
+package com.grupoverona.selfcheckout.util;
+
+/**
+ * Filtro padrão do MessageProcessor: remove caracteres de controle, troca ^ por
+ * quebra de linha e alinha os valores monetários, em uma única passada sobre a
+ * mensagem, sem Strings intermediárias nem expressões regulares.
+ *
+ * Equivale, caractere a caractere, à cadeia original de três filtros:
+ * 1. replaceAll("[\\p{Cntrl}&&[^\r\n]]", "") — remove 0x00–0x1F e 0x7F, exceto \r e \n
+ * 2. replace("^", "\n")
+ * 3. "(\\d+,\\d{2}) ?= ?(\\d+,\\d{2})" substituído por String.format("%-10s = %10s", $1, $2)
+ *
+ * Como a busca de preços da cadeia original enxergava a mensagem já sem os
+ * caracteres de controle, a varredura aqui os salta também durante a busca.
+ */
+final class MessageNormalizer implements MessageProcessor.MessageFilter {
+
+    // Largura das colunas de valores ("%-10s = %10s")
+    private static final int PRICE_COLUMN_WIDTH = 10;
+
+    // Buffer de saída reutilizado por thread (cada PDV tem a sua thread consumidora)
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    @Override
+    public String process(String message) {
+        StringBuilder out = buffer();
+        normalize(message, out);
+        return out.toString();
+    }
+
+    /**
+     * @return Buffer da thread atual, vazio
+     */
+    static StringBuilder buffer() {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        return out;
+    }
+
+    /**
+     * Normaliza a mensagem acrescentando o resultado em out
+     * @return true se o resultado contém quebra de linha
+     */
+    boolean normalize(CharSequence in, StringBuilder out) {
+        int length = in.length();
+        boolean newline = false;
+        int i = 0;
+
+        while (i < length) {
+            char c = in.charAt(i);
+
+            if (isDigit(c)) {
+                i = appendDigitsOrPrice(in, i, out);
+                continue;
+            }
+
+            i++;
+            if (isStripped(c)) {
+                continue;
+            }
+            if (c == '^' || c == '\n') {
+                out.append('\n');
+                newline = true;
+            } else {
+                out.append(c);
+            }
+        }
+
+        return newline;
+    }
+
+    /**
+     * Tenta casar um preço "123,45 = 678,90" a partir do dígito em start.
+     * Se casar, acrescenta os valores alinhados; se não, acrescenta a sequência
+     * de dígitos inteira, pois nenhuma posição no meio dela casaria (o \d+ guloso
+     * chegaria ao mesmo fim e falharia no mesmo ponto).
+     * @return Índice seguinte ao trecho consumido
+     */
+    private static int appendDigitsOrPrice(CharSequence in, int start, StringBuilder out) {
+        int length = in.length();
+        int digitsEnd = skipDigits(in, start);
+
+        int firstEnd = skipDecimals(in, digitsEnd);
+        if (firstEnd >= 0) {
+            // Espaço opcional, '=', espaço opcional
+            int p = skipOptionalSpace(in, firstEnd);
+            int q = next(in, p);
+            if (q < length && in.charAt(q) == '=') {
+                int secondStart = next(in, skipOptionalSpace(in, q + 1));
+                if (secondStart < length && isDigit(in.charAt(secondStart))) {
+                    int secondEnd = skipDecimals(in, skipDigits(in, secondStart));
+                    if (secondEnd >= 0) {
+                        appendPadded(in, start, firstEnd, out, false);
+                        out.append(" = ");
+                        appendPadded(in, secondStart, secondEnd, out, true);
+                        return secondEnd;
+                    }
+                }
+            }
+        }
+
+        appendClean(in, start, digitsEnd, out);
+        return digitsEnd;
+    }
+
+    /**
+     * @return Índice seguinte ao último dígito da sequência iniciada em start
+     */
+    private static int skipDigits(CharSequence in, int start) {
+        int p = start + 1;
+        int q;
+        while ((q = next(in, p)) < in.length() && isDigit(in.charAt(q))) {
+            p = q + 1;
+        }
+        return p;
+    }
+
+    /**
+     * Casa ",\d{2}" a partir de p
+     * @return Índice seguinte aos centavos, ou -1 se não casar
+     */
+    private static int skipDecimals(CharSequence in, int p) {
+        int q = next(in, p);
+        if (q >= in.length() || in.charAt(q) != ',') {
+            return -1;
+        }
+        for (int digit = 0; digit < 2; digit++) {
+            q = next(in, q + 1);
+            if (q >= in.length() || !isDigit(in.charAt(q))) {
+                return -1;
+            }
+        }
+        return q + 1;
+    }
+
+    private static int skipOptionalSpace(CharSequence in, int p) {
+        int q = next(in, p);
+        return q < in.length() && in.charAt(q) == ' ' ? q + 1 : p;
+    }
+
+    /**
+     * @return Primeiro índice a partir de p que não é caractere de controle removido
+     */
+    private static int next(CharSequence in, int p) {
+        int length = in.length();
+        while (p < length && isStripped(in.charAt(p))) {
+            p++;
+        }
+        return p;
+    }
+
+    private static void appendPadded(CharSequence in, int start, int end, StringBuilder out, boolean padLeft) {
+        int width = 0;
+        for (int i = start; i < end; i++) {
+            if (!isStripped(in.charAt(i))) {
+                width++;
+            }
+        }
+
+        if (padLeft) {
+            appendSpaces(out, PRICE_COLUMN_WIDTH - width);
+            appendClean(in, start, end, out);
+        } else {
+            appendClean(in, start, end, out);
+            appendSpaces(out, PRICE_COLUMN_WIDTH - width);
+        }
+    }
+
+    private static void appendClean(CharSequence in, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = in.charAt(i);
+            if (!isStripped(c)) {
+                out.append(c);
+            }
+        }
+    }
+
+    private static void appendSpaces(StringBuilder out, int count) {
+        for (int i = 0; i < count; i++) {
+            out.append(' ');
+        }
+    }
+
+    /**
+     * \p{Cntrl} (apenas ASCII, como no regex sem UNICODE_CHARACTER_CLASS), exceto \r e \n
+     */
+    private static boolean isStripped(char c) {
+        return (c < 0x20 && c != '\r' && c != '\n') || c == 0x7F;
+    }
+
+    /**
+     * \d sem UNICODE_CHARACTER_CLASS: apenas 0–9
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -1,18 +1,52 @@
 package com.grupoverona.selfcheckout.util;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 /**
  * Processador de mensagens recebidas dos PDVs.
  * Esta classe é responsável por formatar e filtrar mensagens antes da exibição na UI.
+ *
+ * Os filtros formam cadeias imutáveis ({@link FilterChain}): uma global e,
+ * opcionalmente, cadeias específicas por IP do PDV ou por porta, para lanes com
+ * firmwares de PDV diferentes. Alterações publicam novas cadeias por troca atômica;
+ * a consulta feita a cada mensagem não usa locks.
+ *
+ * Os destaques do log (cancelamentos, estornos, códigos de supervisor...) vêm
+ * de um dicionário de palavras-chave compilado em um único {@link KeywordMatcher}.
  */
 public class MessageProcessor {
 
-    // Lista de filtros registrados
-    private static final List<MessageFilter> filters = new ArrayList<>();
+    // Filtro padrão: controle, ^ e alinhamento de preços em uma única passada
+    private static final MessageNormalizer DEFAULT_NORMALIZER = new MessageNormalizer();
+
+    // Cadeia com apenas o filtro padrão
+    private static final FilterChain DEFAULT_CHAIN = FilterChain.of(DEFAULT_NORMALIZER);
+
+    // Cadeia global, usada quando não há cadeia específica para o PDV
+    private static volatile FilterChain globalChain = FilterChain.EMPTY;
+
+    // Cadeias específicas (mapas imutáveis, substituídos a cada alteração)
+    private static volatile Map<String, FilterChain> ipChains = Map.of();
+    private static volatile Map<Integer, FilterChain> portChains = Map.of();
+
+    // Dicionário de destaques padrão, no classpath (substituível por -Dselfcheckout.highlight.dictionary)
+    private static final String DEFAULT_DICTIONARY = "/com/grupoverona/selfcheckout/highlight-keywords.txt";
+
+    // Palavras-chave destacadas no log
+    private static volatile KeywordMatcher keywordMatcher = loadKeywordMatcher();
 
     /**
      * Interface para filtros de mensagens.
@@ -41,30 +75,14 @@ public class MessageProcessor {
         // TODO: Aqui você pode configurar os filtros de formatação padrão
         // de acordo com o formato esperado das mensagens dos PDVs
 
-        // Filtro para remover caracteres de controle (exceto nova linha)
-        addFilter(message -> message.replaceAll("[\\p{Cntrl}&&[^\r\n]]", ""));
-
-        // Filtro para substituir o caractere ^ por quebra de linha
-        // TODO: Personalizar este filtro conforme a sintaxe específica dos PDVs
-        addFilter(message -> message.replace("^", "\n"));
+        // Filtro único que, em uma só passada:
+        // - Remove caracteres de controle (exceto nova linha)
+        // - Substitui o caractere ^ por quebra de linha
+        // - Alinha os valores monetários "123,45 = 678,90" em colunas de 10
+        // TODO: Personalizar conforme a sintaxe específica dos PDVs
+        addFilter(DEFAULT_NORMALIZER);
 
-        // Filtro para alinhar mensagens com valores monetários
-        // TODO: Ajustar o padrão regex para capturar corretamente os valores monetários
-        // no formato específico utilizado pelos PDVs
-        addFilter(message -> {
-            Pattern pattern = Pattern.compile("(\\d+,\\d{2}) ?= ?(\\d+,\\d{2})");
-            Matcher matcher = pattern.matcher(message);
-            StringBuffer sb = new StringBuffer();
-
-            while (matcher.find()) {
-                // Formata para alinhar à direita
-                String replacement = String.format("%-10s = %10s", matcher.group(1), matcher.group(2));
-                matcher.appendReplacement(sb, replacement);
-            }
-
-            matcher.appendTail(sb);
-            return sb.toString();
-        });
+        // Destaque de palavras-chave e códigos de operação: ver highlight()
 
         // TODO: Adicionar filtros adicionais para formatação específica:
         // - Destacar valores negativos em vermelho
@@ -74,45 +92,184 @@ public class MessageProcessor {
     }
 
     /**
-     * Adiciona um filtro personalizado
+     * Adiciona um filtro personalizado à cadeia global
      * @param filter O filtro a ser adicionado
      */
-    public static void addFilter(MessageFilter filter) {
-        filters.add(filter);
+    public static synchronized void addFilter(MessageFilter filter) {
+        globalChain = globalChain.with(filter);
     }
 
     /**
-     * Remove todos os filtros existentes
+     * @return Filtros da cadeia global, na ordem de aplicação (lista imutável)
      */
-    public static void clearFilters() {
-        filters.clear();
+    public static List<MessageFilter> getFilters() {
+        return globalChain.filters();
+    }
+
+    /**
+     * Remove todos os filtros da cadeia global
+     */
+    public static synchronized void clearFilters() {
+        globalChain = FilterChain.EMPTY;
+    }
+
+    /**
+     * @return Cadeia com apenas o filtro padrão, base para compor cadeias específicas
+     */
+    public static FilterChain getDefaultChain() {
+        return DEFAULT_CHAIN;
+    }
+
+    /**
+     * Substitui a cadeia global
+     */
+    public static synchronized void setGlobalChain(FilterChain chain) {
+        globalChain = chain;
+    }
+
+    /**
+     * @return Cadeia global atual
+     */
+    public static FilterChain getGlobalChain() {
+        return globalChain;
+    }
+
+    /**
+     * Define a cadeia das mensagens de um PDV; tem precedência sobre a cadeia da porta e a global
+     * @param ip IP do PDV
+     * @param chain Cadeia a usar, ou null para voltar à cadeia da porta ou global
+     */
+    public static synchronized void setChainForIp(String ip, FilterChain chain) {
+        Map<String, FilterChain> updated = new HashMap<>(ipChains);
+        if (chain == null) {
+            updated.remove(normalizeIp(ip));
+        } else {
+            updated.put(normalizeIp(ip), chain);
+        }
+        ipChains = Map.copyOf(updated);
+    }
+
+    /**
+     * Define a cadeia das mensagens recebidas em uma porta; tem precedência sobre a global
+     * @param port Porta local em que os PDVs enviam
+     * @param chain Cadeia a usar, ou null para voltar à cadeia global
+     */
+    public static synchronized void setChainForPort(int port, FilterChain chain) {
+        Map<Integer, FilterChain> updated = new HashMap<>(portChains);
+        if (chain == null) {
+            updated.remove(port);
+        } else {
+            updated.put(port, chain);
+        }
+        portChains = Map.copyOf(updated);
+    }
+
+    /**
+     * Cadeia efetiva de um PDV: a do IP, senão a da porta, senão a global. Sem locks.
+     * @param senderIp IP do PDV, no formato de InetAddress.getHostAddress()
+     * @param port Porta local em que a mensagem foi recebida
+     */
+    public static FilterChain chainFor(String senderIp, int port) {
+        FilterChain chain = ipChains.get(senderIp);
+        if (chain == null) {
+            chain = portChains.get(port);
+        }
+        return chain != null ? chain : globalChain;
+    }
+
+    /**
+     * Padroniza o IP no formato usado pelo motor UDP (ex.: sem zeros à esquerda)
+     */
+    private static String normalizeIp(String ip) {
+        try {
+            return InetAddress.getByName(ip).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Endereço IP inválido: " + ip, e);
+        }
     }
 
     /**
-     * Processa uma mensagem aplicando todos os filtros registrados na ordem
+     * Processa uma mensagem aplicando todos os filtros da cadeia global na ordem
      * @param originalMessage A mensagem original recebida do PDV
      * @return A mensagem processada pronta para exibição
      */
     public static String processMessage(String originalMessage) {
-        String processedMessage = originalMessage;
+        return globalChain.apply(originalMessage);
+    }
 
-        // Aplicar cada filtro em sequência
-        for (MessageFilter filter : filters) {
-            processedMessage = filter.process(processedMessage);
-        }
+    /**
+     * Formata uma mensagem UDP com informações do remetente, usando a cadeia global
+     * @param senderInfo Informação do remetente (IP:porta)
+     * @param rawMessage Mensagem bruta recebida
+     * @return Mensagem formatada pronta para exibição
+     */
+    public static String processUdpMessage(String senderInfo, CharSequence rawMessage) {
+        return formatUdpMessage(globalChain, senderInfo, -1, rawMessage);
+    }
 
-        return processedMessage;
+    /**
+     * Formata uma mensagem UDP com a cadeia do PDV (IP, porta ou global)
+     * @param senderIp IP do PDV
+     * @param senderPort Porta de origem do datagrama
+     * @param localPort Porta local em que o datagrama foi recebido
+     * @param rawMessage Mensagem bruta recebida
+     * @return Mensagem formatada pronta para exibição
+     */
+    public static String processUdpMessage(String senderIp, int senderPort, int localPort, CharSequence rawMessage) {
+        return formatUdpMessage(chainFor(senderIp, localPort), senderIp, senderPort, rawMessage);
     }
 
     /**
-     * Formata uma mensagem UDP com informações do remetente
-     * @param senderInfo Informação do remetente (IP:porta)
+     * Aplica a cadeia à mensagem, sem o cabeçalho do remetente
+     * @param chain Cadeia do PDV (ver {@link #chainFor(String, int)})
      * @param rawMessage Mensagem bruta recebida
+     * @return Conteúdo processado
+     */
+    public static String processContent(FilterChain chain, CharSequence rawMessage) {
+        if (chain.isOnly(DEFAULT_NORMALIZER)) {
+            StringBuilder out = MessageNormalizer.buffer();
+            DEFAULT_NORMALIZER.normalize(rawMessage, out);
+            return out.toString();
+        }
+        return chain.apply(rawMessage.toString());
+    }
+
+    /**
+     * Acrescenta o cabeçalho do remetente a um conteúdo já processado
+     * @param senderIp IP do PDV
+     * @param senderPort Porta de origem do datagrama
+     * @param processedContent Resultado de {@link #processContent(FilterChain, CharSequence)}
      * @return Mensagem formatada pronta para exibição
      */
-    public static String processUdpMessage(String senderInfo, String rawMessage) {
+    public static String formatUdpMessage(String senderIp, int senderPort, String processedContent) {
+        char separator = processedContent.indexOf('\n') >= 0 ? '\n' : ' ';
+        return "Recebido de " + senderIp + ":" + senderPort + ":" + separator + processedContent;
+    }
+
+    /**
+     * @param sender IP do remetente, ou "IP:porta" completo se senderPort for negativo
+     */
+    private static String formatUdpMessage(FilterChain chain, String sender, int senderPort, CharSequence rawMessage) {
+        // Com apenas o filtro padrão, cabeçalho e conteúdo são montados em um único buffer
+        if (chain.isOnly(DEFAULT_NORMALIZER)) {
+            StringBuilder out = MessageNormalizer.buffer();
+            out.append("Recebido de ").append(sender);
+            if (senderPort >= 0) {
+                out.append(':').append(senderPort);
+            }
+            out.append(':');
+            int separator = out.length();
+            out.append(' ');
+            if (DEFAULT_NORMALIZER.normalize(rawMessage, out)) {
+                out.setCharAt(separator, '\n');
+            }
+            return out.toString();
+        }
+
+        String senderInfo = senderPort >= 0 ? sender + ":" + senderPort : sender;
+
         // Primeiro processa a mensagem bruta
-        String processedContent = processMessage(rawMessage);
+        String processedContent = chain.apply(rawMessage.toString());
 
         // Formata a mensagem completa com informações do remetente
         if (processedContent.contains("\n")) {
@@ -124,6 +281,56 @@ public class MessageProcessor {
         }
     }
 
+    /**
+     * Localiza as palavras-chave do dicionário em uma mensagem já formatada,
+     * em uma única passada. Chamado pela thread do PDV, antes de a mensagem ir para a UI.
+     * @param message Mensagem formatada
+     * @return Trechos a destacar (vazio na maioria das mensagens)
+     */
+    public static HighlightSpans highlight(String message) {
+        return keywordMatcher.highlight(message);
+    }
+
+    /**
+     * Substitui o dicionário de destaques
+     */
+    public static void setKeywordMatcher(KeywordMatcher matcher) {
+        keywordMatcher = matcher;
+    }
+
+    /**
+     * @return Dicionário de destaques atual
+     */
+    public static KeywordMatcher getKeywordMatcher() {
+        return keywordMatcher;
+    }
+
+    /**
+     * Carrega o dicionário indicado em selfcheckout.highlight.dictionary ou o padrão do classpath
+     */
+    private static KeywordMatcher loadKeywordMatcher() {
+        String file = System.getProperty("selfcheckout.highlight.dictionary");
+        try {
+            if (file != null) {
+                try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+                    return KeywordMatcher.parse(reader);
+                }
+            }
+
+            InputStream resource = MessageProcessor.class.getResourceAsStream(DEFAULT_DICTIONARY);
+            if (resource == null) {
+                System.err.println("Dicionário de destaques não encontrado: " + DEFAULT_DICTIONARY);
+                return KeywordMatcher.EMPTY;
+            }
+            try (Reader reader = new InputStreamReader(resource, StandardCharsets.UTF_8)) {
+                return KeywordMatcher.parse(reader);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Erro ao carregar o dicionário de destaques: " + e.getMessage());
+            return KeywordMatcher.EMPTY;
+        }
+    }
+
     /**
      * Cria um filtro que substitui um padrão regex por uma string formatada
      * @param regex O padrão regex para buscar
@@ -132,10 +339,12 @@ public class MessageProcessor {
      * @return Um filtro configurado
      */
     public static MessageFilter createRegexFilter(String regex, String format, int... groupIndices) {
+        // Compilado uma única vez, na criação do filtro
+        Pattern pattern = Pattern.compile(regex);
+
         return message -> {
-            Pattern pattern = Pattern.compile(regex);
             Matcher matcher = pattern.matcher(message);
-            StringBuffer sb = new StringBuffer();
+            StringBuilder sb = new StringBuilder(message.length() + 16);
 
             while (matcher.find()) {
                 // Prepara os argumentos para o formato
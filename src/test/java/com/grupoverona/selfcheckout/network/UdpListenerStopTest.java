@@ -0,0 +1,102 @@
+package com.grupoverona.selfcheckout.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Encerramento de listeners no motor UDP compartilhado: stop() deve liberar a
+ * porta sem esperar o próximo datagrama, de modo que o mesmo PDV possa ser
+ * registrado de novo imediatamente.
+ */
+class UdpListenerStopTest {
+
+    private static final String LOOPBACK_IP = "127.0.0.1";
+
+    // Limite de latência de stop(); o seletor é acordado, não aguardado por timeout
+    private static final long STOP_LIMIT_MS = 100;
+
+    private static final int REPETITIONS = 10;
+
+    private final List<UdpListener> listeners = new ArrayList<>();
+
+    @AfterEach
+    void stopListeners() {
+        for (UdpListener listener : listeners) {
+            listener.stop();
+        }
+        listeners.clear();
+    }
+
+    @Test
+    void stopOfLastListenerReleasesPortImmediately() throws IOException {
+        int port = freePort();
+
+        for (int i = 0; i < REPETITIONS; i++) {
+            UdpListener listener = start(port);
+
+            long elapsedMs = stopTimed(listener);
+            assertTrue(elapsedMs < STOP_LIMIT_MS, "stop() levou " + elapsedMs + " ms");
+
+            UdpListener again = start(port);
+            assertTrue(again.isActive(), "porta " + port + " não foi liberada na repetição " + i);
+            again.stop();
+        }
+    }
+
+    @Test
+    void reRegistrationWithSelectorKeptAliveByAnotherPort() throws IOException {
+        int port = freePort();
+        int otherPort = freePort();
+        start(otherPort);
+
+        UdpListener listener = start(port);
+        for (int i = 0; i < REPETITIONS; i++) {
+            long elapsedMs = stopTimed(listener);
+            assertTrue(elapsedMs < STOP_LIMIT_MS, "stop() levou " + elapsedMs + " ms");
+
+            listener = start(port);
+            assertTrue(listener.isActive(), "porta " + port + " não foi liberada na repetição " + i);
+        }
+    }
+
+    @Test
+    void stoppedPortCanBeBoundByAnotherSocket() throws IOException {
+        int port = freePort();
+        UdpListener listener = start(port);
+        stopTimed(listener);
+
+        // Nada do motor pode segurar o socket depois que stop() retorna
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.bind(new InetSocketAddress(port));
+        }
+    }
+
+    private UdpListener start(int port) {
+        UdpListener listener = new UdpListener(LOOPBACK_IP + ":" + port);
+        listener.start();
+        assertTrue(listener.isActive(), "não foi possível abrir a porta " + port);
+        listeners.add(listener);
+        return listener;
+    }
+
+    private static long stopTimed(UdpListener listener) {
+        long start = System.nanoTime();
+        listener.stop();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static int freePort() throws IOException {
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.bind(new InetSocketAddress(0));
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        }
+    }
+}
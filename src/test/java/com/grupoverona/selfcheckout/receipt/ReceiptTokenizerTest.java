@@ -0,0 +1,138 @@
+package com.grupoverona.selfcheckout.receipt;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Classificação das linhas de cupom pelo {@link ReceiptTokenizer}. Cada caso é
+ * um datagrama e os eventos esperados, no formato
+ * "TIPO item quantidade unitario valor [rotulo]" (-1 para campo ausente).
+ */
+class ReceiptTokenizerTest {
+
+    private static final String SENDER_IP = "192.168.0.101";
+
+    private record Case(String datagram, String... events) {
+    }
+
+    private static final Case[] CASES = {
+            // Item
+            new Case("001 ARROZ TIPO 1 5KG", "ITEM 1 -1 -1 -1 [ARROZ TIPO 1 5KG]"),
+            new Case("  042   FEIJAO  ", "ITEM 42 -1 -1 -1 [FEIJAO]"),
+            new Case("002 PÃO FRANCÊS KG", "ITEM 2 -1 -1 -1 [PÃO FRANCÊS KG]"),
+            new Case("003 ÁGUA MINERAL 500ML", "ITEM 3 -1 -1 -1 [ÁGUA MINERAL 500ML]"),
+            new Case("\u0002\u001B\u0001004 LEITE\u0007\u0003", "ITEM 4 -1 -1 -1 [LEITE]"),
+
+            // Quantidade × preço
+            new Case("2 UN X 12,50 = 25,00", "QUANTITY_PRICE -1 2000 1250 2500 []"),
+            new Case("0,750 KG x 15,90 = 11,93", "QUANTITY_PRICE -1 750 1590 1193 []"),
+            new Case("3 * 1.234,56=3.703,68", "QUANTITY_PRICE -1 3000 123456 370368 []"),
+            new Case("12,50 = 25,00", "QUANTITY_PRICE -1 -1 1250 2500 []"),
+            new Case("1 X R$9,99 = R$9,99", "QUANTITY_PRICE -1 1000 999 999 []"),
+
+            // Subtotal e total
+            new Case("SUBTOTAL R$ 1.234,56", "SUBTOTAL -1 -1 -1 123456 []"),
+            new Case("TOTAL R$ 45,90", "TOTAL -1 -1 -1 4590 []"),
+            new Case("Total 1.234.567,89", "TOTAL -1 -1 -1 123456789 []"),
+            new Case("TOTAL", "TOTAL -1 -1 -1 -1 []"),
+
+            // Cancelamento de item, com o valor na mesma linha ou na seguinte
+            new Case("CANCELAMENTO ITEM 013 -12,50", "CANCEL 13 -1 -1 1250 []"),
+            new Case("CANCELAMENTO ITEM 013^-12,50", "CANCEL 13 -1 -1 1250 []"),
+            new Case("CANCELAMENTO ITEM 013\r\n-R$12,50", "CANCEL 13 -1 -1 1250 []"),
+            new Case("CANCELAMENTO ITEM 013", "CANCEL 13 -1 -1 -1 []"),
+            new Case("CANCELAMENTO ITEM 013^014 FEIJAO",
+                    "CANCEL 13 -1 -1 -1 []", "ITEM 14 -1 -1 -1 [FEIJAO]"),
+
+            // Cancelamento do cupom inteiro
+            new Case("CANCELAMENTO DE CUPOM 45,90", "RECEIPT_VOID -1 -1 -1 4590 []"),
+            new Case("CANCELAMENTO CUPOM", "RECEIPT_VOID -1 -1 -1 -1 []"),
+            new Case("CUPOM CANCELADO", "RECEIPT_VOID -1 -1 -1 -1 []"),
+
+            // Alteração de preço
+            new Case("ALTERACAO DE PRECO ITEM 005 9,99", "PRICE_OVERRIDE 5 -1 -1 999 []"),
+            new Case("PREÇO ALTERADO 005 R$ 9,99", "PRICE_OVERRIDE 5 -1 -1 999 []"),
+            new Case("preco manual 7 1,00", "PRICE_OVERRIDE 7 -1 -1 100 []"),
+
+            // Pagamento
+            new Case("CARTAO DEBITO 25,90", "PAYMENT -1 -1 -1 2590 [CARTAO DEBITO]"),
+            new Case("PIX 1.000,00", "PAYMENT -1 -1 -1 100000 [PIX]"),
+            new Case("CARTAO CRÉDITO 10,00", "PAYMENT -1 -1 -1 1000 [CARTAO CRÉDITO]"),
+
+            // Linhas sem evento
+            new Case(""),
+            new Case("^^\r\n"),
+            new Case("CUPOM FISCAL ELETRONICO"),
+            new Case("CAIXA LIVRE"),
+            new Case("001"),
+
+            // Cupom em um único datagrama, na ordem das linhas
+            new Case("001 ARROZ^2 X 5,00 = 10,00^SUBTOTAL 10,00^TOTAL 10,00^DINHEIRO 10,00",
+                    "ITEM 1 -1 -1 -1 [ARROZ]",
+                    "QUANTITY_PRICE -1 2000 500 1000 []",
+                    "SUBTOTAL -1 -1 -1 1000 []",
+                    "TOTAL -1 -1 -1 1000 []",
+                    "PAYMENT -1 -1 -1 1000 [DINHEIRO]"),
+    };
+
+    @Test
+    void classifiesEachLine() {
+        ReceiptTokenizer tokenizer = new ReceiptTokenizer();
+        for (Case c : CASES) {
+            ByteBuffer payload = ByteBuffer.wrap(c.datagram().getBytes(StandardCharsets.UTF_8));
+            assertEquals(List.of(c.events()), tokenize(tokenizer, payload), "datagrama: " + c.datagram());
+        }
+    }
+
+    @Test
+    void readsOnlyBetweenPositionAndLimit() {
+        byte[] bytes = "XXX001 ARROZ^TOTAL 5,00YYY".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer payload = ByteBuffer.wrap(bytes, 3, bytes.length - 6);
+
+        List<String> events = tokenize(new ReceiptTokenizer(), payload);
+
+        assertEquals(List.of("ITEM 1 -1 -1 -1 [ARROZ]", "TOTAL -1 -1 -1 500 []"), events);
+        assertEquals(3, payload.position());
+        assertEquals(bytes.length - 3, payload.limit());
+    }
+
+    @Test
+    void pendingCancelDoesNotCrossDatagrams() {
+        ReceiptTokenizer tokenizer = new ReceiptTokenizer();
+
+        assertEquals(List.of("CANCEL 13 -1 -1 -1 []"), tokenize(tokenizer, ascii("CANCELAMENTO ITEM 013")));
+        assertEquals(List.of(), tokenize(tokenizer, ascii("-12,50")));
+    }
+
+    @Test
+    void exposesSourceAndLine() {
+        List<String> lines = new ArrayList<>();
+        new ReceiptTokenizer().tokenize(ascii("\u0002TOTAL  R$ 9,99 \u0003 "), SENDER_IP, 123L, event -> {
+            assertEquals(SENDER_IP, event.senderIp());
+            assertEquals(123L, event.receiveNanos());
+            lines.add(event.line().toString());
+        });
+        assertEquals(List.of("TOTAL  R$ 9,99"), lines);
+    }
+
+    /**
+     * @return Eventos emitidos, já formatados (o evento é reutilizado pelo tokenizador)
+     */
+    private static List<String> tokenize(ReceiptTokenizer tokenizer, ByteBuffer payload) {
+        List<String> events = new ArrayList<>();
+        tokenizer.tokenize(payload, SENDER_IP, System.nanoTime(), event -> events.add(
+                event.type() + " " + event.itemNumber() + " " + event.quantityMilli() + " " + event.unitPriceCents()
+                        + " " + event.amountCents() + " [" + event.label() + "]"));
+        return events;
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,172 @@
+package com.grupoverona.selfcheckout.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ocorrências e destaques do {@link KeywordMatcher} comparados com uma busca
+ * por força bruta: cada palavra-chave testada em cada posição da mensagem,
+ * com as mesmas regras de maiúsculas e de palavra inteira.
+ */
+class KeywordMatcherTest {
+
+    // Casos conhecidos: mensagem e trechos destacados ("início-fim categoria")
+    private static final String[][] CASES = {
+            {"CANCELAMENTO DE ITEM 003", "0-20 cancelamento"},
+            {"cancelamento do cupom", "0-12 cancelamento"},
+            {"CANCELAMENTOS", ""},
+            {"PIX 25,00", "0-3 pagamento"},
+            {"PIXEL", ""},
+            {"PAGO VIA PIX.", "9-12 pagamento"},
+            {"senha do supervisor ok", "0-19 supervisor"},
+            {"DEVOLUÇÃO autorizada", "0-9 cancelamento"},
+            {"devolução/estorno", "0-9 cancelamento", "10-17 cancelamento"},
+            {"nada aqui", ""},
+            {"", ""},
+    };
+
+    private static final String DICTIONARY_ALPHABET = "ABCabÇçÃã1 ";
+    private static final String TEXT_ALPHABET = "ABCabÇçÃã1 -.";
+
+    @Test
+    void knownMessages() {
+        KeywordMatcher matcher = KeywordMatcher.builder()
+                .category("cancelamento", "#ff6b6b")
+                .category("pagamento", "#4dabf7")
+                .category("supervisor", "#ffd43b")
+                .add("CANCELAMENTO", "cancelamento")
+                .add("CANCELAMENTO DE ITEM", "cancelamento")
+                .add("Devolução", "cancelamento")
+                .add("ESTORNO", "cancelamento")
+                .add("PIX", "pagamento")
+                .add("SENHA DO SUPERVISOR", "supervisor")
+                .build();
+
+        for (String[] c : CASES) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i < c.length; i++) {
+                if (!c[i].isEmpty()) {
+                    expected.add(c[i]);
+                }
+            }
+            assertEquals(expected, describe(matcher.highlight(c[0])), "mensagem: " + c[0]);
+        }
+    }
+
+    @Test
+    void randomDictionariesMatchBruteForce() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 20_000; round++) {
+            KeywordMatcher.Builder builder = KeywordMatcher.builder()
+                    .category("a", "#000000")
+                    .category("b", "#ffffff");
+            Map<String, String> keywords = new LinkedHashMap<>();
+            int count = 1 + random.nextInt(8);
+            for (int k = 0; k < count; k++) {
+                String keyword = randomText(random, DICTIONARY_ALPHABET, 1 + random.nextInt(4));
+                String category = random.nextBoolean() ? "a" : "b";
+                builder.add(keyword, category);
+                keywords.put(fold(keyword), category);
+            }
+            KeywordMatcher matcher = builder.build();
+            String text = randomText(random, TEXT_ALPHABET, random.nextInt(40));
+
+            List<int[]> found = new ArrayList<>();
+            List<String> foundDescribed = new ArrayList<>();
+            matcher.findAll(text, (start, end, category) -> {
+                found.add(new int[]{start, end});
+                foundDescribed.add(start + "-" + end + " " + category.name());
+            });
+            for (int i = 1; i < found.size(); i++) {
+                assertTrue(found.get(i - 1)[1] <= found.get(i)[1], "ocorrências fora de ordem em: " + text);
+            }
+
+            List<String> expected = bruteForce(keywords, text);
+            assertEquals(sorted(expected), sorted(foundDescribed), () -> "dicionário " + keywords + ", texto [" + text + "]");
+            assertEquals(select(expected), describe(matcher.highlight(text)), () -> "dicionário " + keywords + ", texto [" + text + "]");
+        }
+    }
+
+    /**
+     * Todas as ocorrências, ordenadas por início e, no mesmo início, da mais longa para a mais curta
+     */
+    private static List<String> bruteForce(Map<String, String> keywords, String text) {
+        List<String> matches = new ArrayList<>();
+        for (int start = 0; start < text.length(); start++) {
+            for (int end = text.length(); end > start; end--) {
+                String category = keywords.get(fold(text.substring(start, end)));
+                if (category != null && isWholeWord(text, start, end)) {
+                    matches.add(start + "-" + end + " " + category);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Entre ocorrências sobrepostas, a que começa antes e, empatadas, a mais longa
+     */
+    private static List<String> select(List<String> matches) {
+        List<String> selected = new ArrayList<>();
+        int lastEnd = -1;
+        for (String match : matches) {
+            int dash = match.indexOf('-');
+            int start = Integer.parseInt(match.substring(0, dash));
+            int end = Integer.parseInt(match.substring(dash + 1, match.indexOf(' ')));
+            if (start >= lastEnd) {
+                selected.add(match);
+                lastEnd = end;
+            }
+        }
+        return selected;
+    }
+
+    private static boolean isWholeWord(String text, int start, int end) {
+        boolean startOk = start == 0
+                || !Character.isLetterOrDigit(text.charAt(start - 1))
+                || !Character.isLetterOrDigit(text.charAt(start));
+        boolean endOk = end == text.length()
+                || !Character.isLetterOrDigit(text.charAt(end))
+                || !Character.isLetterOrDigit(text.charAt(end - 1));
+        return startOk && endOk;
+    }
+
+    private static String fold(String text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            folded.append(Character.toUpperCase(text.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static List<String> describe(HighlightSpans spans) {
+        List<String> described = new ArrayList<>();
+        for (int i = 0; i < spans.size(); i++) {
+            described.add(spans.start(i) + "-" + spans.end(i) + " " + spans.category(i).name());
+        }
+        return described;
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<>(list);
+        copy.sort(null);
+        return copy;
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
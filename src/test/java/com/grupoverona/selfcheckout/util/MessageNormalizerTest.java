@@ -0,0 +1,119 @@
+package com.grupoverona.selfcheckout.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comparação diferencial do filtro padrão com a cadeia original de três
+ * filtros (controle, ^ e alinhamento de preços): a saída deve ser idêntica,
+ * caractere a caractere, para qualquer mensagem.
+ */
+class MessageNormalizerTest {
+
+    private static final String SENDER_INFO = "192.168.0.101:38800";
+
+    // Casos conhecidos: preços com e sem espaços, controles no meio do preço, ^, \r\n
+    private static final String[] MESSAGES = {
+            "",
+            "CAIXA LIVRE",
+            "001 ARROZ 5KG 1 UN 23,90 = 23,90",
+            "002 FEIJAO 2 X 8,50=17,00",
+            "TOTAL R$ 1234,56 = 1234,56",
+            "12345678901,23 = 1,00",
+            "1,2 = 3,45",
+            "1,23 =  4,56",
+            "1,23 = 4,5",
+            "9,99 = 9,99 = 9,99",
+            "\u001B@\u001Ba\u0001CUPOM FISCAL\u001Bd\u0003",
+            "LINHA 1^LINHA 2^^LINHA 4",
+            "ITEM\r\nOUTRO\n",
+            "12\u0001,3\u00024 = 5\u001B6,78",
+            "1,23\u0007 \u0007=\u0007 4,56",
+            "\u007FDEL e \u0085 NEL",
+            "PÃO FRANCÊS 0,350 KG 15,90 = 5,57",
+            "١٢,٣٤ = ٥٦,٧٨",
+            "^",
+            "\u0000\u0000\u0000",
+    };
+
+    // Alfabeto do teste aleatório, concentrado no que importa para o filtro
+    private static final char[] ALPHABET =
+            "0123456789012345,,,,  ==^^\r\n\t\u0001\u001B\u007F\u0085١aZ,=1".toCharArray();
+
+    private static final int RANDOM_MESSAGES = 200_000;
+
+    @Test
+    void knownMessagesMatchLegacyChain() {
+        for (String message : MESSAGES) {
+            assertSameOutput(message);
+        }
+    }
+
+    @Test
+    void randomMessagesMatchLegacyChain() {
+        Random random = new Random(42);
+        StringBuilder message = new StringBuilder();
+
+        for (int i = 0; i < RANDOM_MESSAGES; i++) {
+            message.setLength(0);
+            int length = random.nextInt(40);
+            for (int c = 0; c < length; c++) {
+                message.append(random.nextInt(20) == 0
+                        ? (char) random.nextInt(0x10000)
+                        : ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            assertSameOutput(message.toString());
+        }
+    }
+
+    private static void assertSameOutput(String message) {
+        assertEquals(legacyProcessMessage(message), new MessageNormalizer().process(message),
+                () -> "processMessage: " + escape(message));
+
+        // Cabeçalho e corpo no mesmo buffer, também a partir de um CharSequence deslocado
+        String expected = legacyProcessUdpMessage(message);
+        assertEquals(expected, MessageProcessor.processUdpMessage(SENDER_INFO, message),
+                () -> "processUdpMessage: " + escape(message));
+        assertEquals(expected, MessageProcessor.processUdpMessage(SENDER_INFO, CharBuffer.wrap("xx" + message).position(2)),
+                () -> "processUdpMessage (CharBuffer): " + escape(message));
+    }
+
+    /**
+     * Cadeia original, anterior ao filtro de passada única
+     */
+    private static String legacyProcessMessage(String message) {
+        message = message.replaceAll("[\\p{Cntrl}&&[^\r\n]]", "");
+        message = message.replace("^", "\n");
+
+        Matcher matcher = Pattern.compile("(\\d+,\\d{2}) ?= ?(\\d+,\\d{2})").matcher(message);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, String.format("%-10s = %10s", matcher.group(1), matcher.group(2)));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static String legacyProcessUdpMessage(String message) {
+        String processed = legacyProcessMessage(message);
+        if (processed.contains("\n")) {
+            return "Recebido de " + SENDER_INFO + ":\n" + processed;
+        } else {
+            return "Recebido de " + SENDER_INFO + ": " + processed;
+        }
+    }
+
+    private static String escape(String text) {
+        StringBuilder out = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            out.append(c < 0x20 || c > 0x7E ? String.format("\\u%04x", (int) c) : String.valueOf(c));
+        }
+        return out.toString();
+    }
+}